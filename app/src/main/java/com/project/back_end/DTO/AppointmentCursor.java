@@ -0,0 +1,64 @@
+package com.project.back_end.DTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position of the last row of a page on the (appointment_date, appointment_time, id) key.
+// Clients only ever see the encoded token and hand it back unchanged to get the next page.
+public final class AppointmentCursor {
+
+    private static final String VERSION = "a1";
+
+    private final LocalDate date;
+    private final LocalTime time;
+    private final Long id;
+
+    public AppointmentCursor(LocalDate date, LocalTime time, Long id) {
+        this.date = date;
+        this.time = time;
+        this.id = id;
+    }
+
+    public static AppointmentCursor after(AppointmentDTO row) {
+        return new AppointmentCursor(row.getAppointmentDate(), row.getAppointmentTimeOnly(), row.getId());
+    }
+
+    // Throws IllegalArgumentException for tokens this class did not produce.
+    public static AppointmentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            return new AppointmentCursor(LocalDate.parse(parts[1]), LocalTime.parse(parts[2]), Long.valueOf(parts[3]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + "|" + date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+// One page of appointment rows. nextCursor is null on the last page.
+public class AppointmentPage {
+
+    private final List<AppointmentDTO> appointments;
+    private final String nextCursor;
+
+    public AppointmentPage(List<AppointmentDTO> appointments, String nextCursor) {
+        this.appointments = appointments;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<AppointmentDTO> getAppointments() {
+        return appointments;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.back_end.DTO;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// A serialized JSON body together with its strong ETag. Instances are immutable and shared
+// between requests, so callers must not modify the returned bytes.
+public final class CachedJson {
+
+    private final byte[] body;
+    private final String etag;
+
+    private CachedJson(byte[] body, String etag) {
+        this.body = body;
+        this.etag = etag;
+    }
+
+    public static CachedJson of(byte[] body) {
+        return new CachedJson(body, strongEtag(body));
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public int length() {
+        return body.length;
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored.
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String strongEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedJson{" +
+                "etag=" + etag +
+                ", length=" + body.length +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.back_end.DTO;
+
+import com.project.back_end.models.Doctor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DoctorSummaryDTO {
+
+    private final Long id;
+    private final String name;
+    private final String firstName;
+    private final String lastName;
+    private final String specialty;
+    private final String phone;
+    private final Integer yearsOfExperience;
+    private final BigDecimal consultationFee;
+    private final String profileImageUrl;
+    private final Boolean isAvailable;
+    private final List<String> availableTimes;
+    private final String clinic;
+
+    public DoctorSummaryDTO(Doctor doctor) {
+        this.id = doctor.getId();
+        this.name = doctor.getName();
+        this.firstName = doctor.getFirstName();
+        this.lastName = doctor.getLastName();
+        this.specialty = doctor.getSpecialization();
+        this.phone = doctor.getPhonePublic();
+        this.yearsOfExperience = doctor.getYearsOfExperience();
+        this.consultationFee = doctor.getConsultationFee();
+        this.profileImageUrl = doctor.getProfileImageUrl();
+        this.isAvailable = doctor.getIsAvailable();
+        this.availableTimes = new ArrayList<>(doctor.getAvailableTimes());
+        this.clinic = doctor.getClinicLocation() != null ? doctor.getClinicLocation().getName() : null;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public Integer getYearsOfExperience() {
+        return yearsOfExperience;
+    }
+
+    public BigDecimal getConsultationFee() {
+        return consultationFee;
+    }
+
+    public String getProfileImageUrl() {
+        return profileImageUrl;
+    }
+
+    public Boolean getIsAvailable() {
+        return isAvailable;
+    }
+
+    public List<String> getAvailableTimes() {
+        return availableTimes;
+    }
+
+    public String getClinic() {
+        return clinic;
+    }
+}
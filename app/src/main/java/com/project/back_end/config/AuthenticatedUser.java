@@ -0,0 +1,50 @@
+package com.project.back_end.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.security.Principal;
+
+// The caller behind a validated bearer token, placed on the request by TokenAuthenticationFilter.
+// Controllers read it with from(request), as a Principal argument, or as
+// @RequestAttribute(AuthenticatedUser.ATTRIBUTE), instead of validating the token themselves.
+public final class AuthenticatedUser implements Principal {
+
+    public static final String ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    public static final String ADMIN = "admin";
+    public static final String DOCTOR = "doctor";
+    public static final String PATIENT = "patient";
+
+    private final String name;
+    private final String role;
+
+    public AuthenticatedUser(String name, String role) {
+        this.name = name;
+        this.role = role;
+    }
+
+    // Null for anonymous requests.
+    public static AuthenticatedUser from(HttpServletRequest request) {
+        Object user = request.getAttribute(ATTRIBUTE);
+        return user instanceof AuthenticatedUser ? (AuthenticatedUser) user : null;
+    }
+
+    // Email for doctors and patients, username for admins; the token subject either way.
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean hasRole(String role) {
+        return this.role != null && this.role.equalsIgnoreCase(role);
+    }
+
+    @Override
+    public String toString() {
+        return role + ":" + name;
+    }
+}
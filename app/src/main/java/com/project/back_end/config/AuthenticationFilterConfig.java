@@ -0,0 +1,28 @@
+package com.project.back_end.config;
+
+import com.project.back_end.services.TokenAuthenticator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// The legacy path adapter has to run before authentication so that rewritten requests are
+// authenticated from the header it adds.
+@Configuration
+public class AuthenticationFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<LegacyTokenPathFilter> legacyTokenPathFilter(@Value("${api.path:/}") String apiPath) {
+        FilterRegistrationBean<LegacyTokenPathFilter> registration = new FilterRegistrationBean<>(new LegacyTokenPathFilter(apiPath));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<TokenAuthenticationFilter> tokenAuthenticationFilter(TokenAuthenticator authenticator) {
+        FilterRegistrationBean<TokenAuthenticationFilter> registration = new FilterRegistrationBean<>(new TokenAuthenticationFilter(authenticator));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
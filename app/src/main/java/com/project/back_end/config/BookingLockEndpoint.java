@@ -0,0 +1,29 @@
+package com.project.back_end.config;
+
+import com.project.back_end.services.BookingLockTable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Exposes per-stripe wait times and queue depth of the booking locks at /actuator/bookinglocks.
+@Component
+@Endpoint(id = "bookinglocks")
+public class BookingLockEndpoint {
+
+    private final BookingLockTable bookingLockTable;
+
+    public BookingLockEndpoint(BookingLockTable bookingLockTable) {
+        this.bookingLockTable = bookingLockTable;
+    }
+
+    @ReadOperation
+    public Map<String, Object> bookingLocks() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("stripes", bookingLockTable.stripeCount());
+        body.put("activeStripes", bookingLockTable.stats());
+        return body;
+    }
+}
@@ -0,0 +1,173 @@
+package com.project.back_end.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Keeps the old token-in-path URLs working. A request matching one of the legacy routes has
+// its {token} segment moved into an "Authorization: Bearer" header and removed from the path,
+// so "/appointments/2030-01-01/null/<jwt>" reaches the controllers as
+// "/appointments/2030-01-01/null" and is authenticated by TokenAuthenticationFilter like any
+// other request. Responses to rewritten requests carry "Deprecation: true".
+//
+// The segment is only taken when it has the shape of a JWT and the request has no
+// Authorization header, so new-style URLs with the same number of segments pass untouched.
+public class LegacyTokenPathFilter extends OncePerRequestFilter {
+
+    // "{api}" stands for the api.path prefix used by the admin, doctor and prescription controllers.
+    static final List<String> ROUTES = List.of(
+            "GET /adminDashboard/{token}",
+            "GET /doctorDashboard/{token}",
+            "GET {api}doctor/availability/{user}/{doctorId}/{date}/{token}",
+            "POST {api}doctor/{token}",
+            "PUT {api}doctor/{token}",
+            "DELETE {api}doctor/{id}/{token}",
+            "GET /appointments/{date}/{patientName}/{token}",
+            "POST /appointments/{token}",
+            "PUT /appointments/{token}",
+            "DELETE /appointments/{id}/{token}",
+            "GET /patient/{token}",
+            "GET /patient/{id}/{user}/{token}",
+            "GET /patient/filter/{condition}/{name}/{token}",
+            "POST {api}prescription/{token}",
+            "GET {api}prescription/{appointmentId}/{token}");
+
+    // Three base64url parts, the first a JSON header (so beginning "eyJ", base64url for '{"'),
+    // which ordinary dotted segments such as "report.v1.json" do not have.
+    private static final Pattern JWT = Pattern.compile("eyJ[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*");
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public LegacyTokenPathFilter(String apiPath) {
+        String prefix = apiPath == null || apiPath.isBlank() ? "/" : apiPath;
+        if (!prefix.startsWith("/")) {
+            prefix = "/" + prefix;
+        }
+        if (!prefix.endsWith("/")) {
+            prefix = prefix + "/";
+        }
+        for (String route : ROUTES) {
+            int space = route.indexOf(' ');
+            routes.add(new Route(route.substring(0, space), route.substring(space + 1).replace("{api}", prefix)));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(HttpHeaders.AUTHORIZATION) == null) {
+            String contextPath = request.getContextPath();
+            String path = request.getRequestURI().substring(contextPath.length());
+            PathContainer container = PathContainer.parsePath(path);
+            for (Route route : routes) {
+                if (!route.method.equalsIgnoreCase(request.getMethod())) {
+                    continue;
+                }
+                PathPattern.PathMatchInfo match = route.pattern.matchAndExtract(container);
+                if (match == null) {
+                    continue;
+                }
+                String token = match.getUriVariables().get("token");
+                if (token != null && JWT.matcher(token).matches()) {
+                    response.setHeader("Deprecation", "true");
+                    chain.doFilter(new RewrittenRequest(request, route.withoutToken(path), token), response);
+                    return;
+                }
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static final class Route {
+
+        private final String method;
+        private final PathPattern pattern;
+        private final int tokenSegment;
+
+        private Route(String method, String pattern) {
+            this.method = method;
+            this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+            this.tokenSegment = Arrays.asList(pattern.split("/")).indexOf("{token}");
+        }
+
+        private String withoutToken(String path) {
+            List<String> segments = new ArrayList<>(Arrays.asList(path.split("/", -1)));
+            segments.remove(tokenSegment);
+            String rewritten = String.join("/", segments);
+            return rewritten.isEmpty() ? "/" : rewritten;
+        }
+    }
+
+    private static final class RewrittenRequest extends HttpServletRequestWrapper {
+
+        private final String path;
+        private final String authorization;
+
+        private RewrittenRequest(HttpServletRequest request, String path, String token) {
+            super(request);
+            this.path = path;
+            this.authorization = "Bearer " + token;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return getContextPath() + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer();
+            url.append(getScheme()).append("://").append(getServerName());
+            int port = getServerPort();
+            if (("http".equals(getScheme()) && port != 80) || ("https".equals(getScheme()) && port != 443)) {
+                url.append(':').append(port);
+            }
+            return url.append(getRequestURI());
+        }
+
+        // The DispatcherServlet is mapped to "/", so the servlet path is the whole path.
+        @Override
+        public String getServletPath() {
+            return path;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name) ? authorization : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name)
+                    ? Collections.enumeration(List.of(authorization))
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>(Collections.list(super.getHeaderNames()));
+            names.add(HttpHeaders.AUTHORIZATION);
+            return Collections.enumeration(names);
+        }
+    }
+}
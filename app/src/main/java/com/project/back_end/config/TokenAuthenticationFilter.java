@@ -0,0 +1,86 @@
+package com.project.back_end.config;
+
+import com.project.back_end.services.TokenAuthenticator;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+// Single authentication stage for the whole application. Reads "Authorization: Bearer <jwt>",
+// validates it once through TokenAuthenticator and exposes the caller as the request's
+// Principal and as the AuthenticatedUser request attribute.
+//
+// Requests without a bearer header pass through anonymously; whether that is acceptable is up
+// to the endpoint. A bearer header that does not validate is answered with 401 here, so no
+// controller sees a request carrying a bad token.
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenAuthenticator authenticator;
+
+    public TokenAuthenticationFilter(TokenAuthenticator authenticator) {
+        this.authenticator = authenticator;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = bearerToken(request);
+        if (token == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AuthenticatedUser user = authenticator.authenticate(token);
+        if (user == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Invalid or expired token\"}");
+            return;
+        }
+        request.setAttribute(AuthenticatedUser.ATTRIBUTE, user);
+        chain.doFilter(new AuthenticatedRequest(request, user), response);
+    }
+
+    static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = header.substring(BEARER.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static final class AuthenticatedRequest extends HttpServletRequestWrapper {
+
+        private final AuthenticatedUser user;
+
+        private AuthenticatedRequest(HttpServletRequest request, AuthenticatedUser user) {
+            super(request);
+            this.user = user;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return user;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return user.getName();
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return user.hasRole(role);
+        }
+    }
+}
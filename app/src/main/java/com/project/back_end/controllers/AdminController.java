@@ -22,6 +22,19 @@ public class AdminController {
 //    - Returns a `ResponseEntity` with a `Map` containing login status or messages.
 
 
+// 4. Define the `reconcilePayments` Method:
+//    - Handles HTTP POST requests to `/payments/reconcile` with `from` and `to` dates (`to` exclusive), an `apply` flag
+//      (default `false`) and the provider's settlement CSV as a multipart `file`.
+//    - Requires an `AuthenticatedUser` with the `"admin"` role, from the `Authorization: Bearer` header; returns 401 or 403 otherwise.
+//    - Copies the upload to a temporary file with `MultipartFile.transferTo` and passes its path, since the file is memory-mapped
+//      rather than read into memory. Delete the temporary file in a `finally` around the call inside the response body, with
+//      `Files.deleteIfExists` and logging an `IOException` rather than failing the response: the mapping is only released once
+//      it is collected, and some platforms refuse to delete a mapped file until then.
+//    - Returns a `ResponseEntity<StreamingResponseBody>` with `MediaType.APPLICATION_NDJSON` whose body calls
+//      `PaymentReconciliationService.reconcile(from, to, path, out, apply)`; discrepancies stream back as the payments are read,
+//      ending with a `summary` line. Call it with `apply=false` first to review the status changes it would make.
+//    - Returns 400 when the settlement file has no `transaction_id`, `amount` and `status` header (`IllegalArgumentException`).
+
 
-}
 
+}
@@ -11,37 +11,43 @@ public class AppointmentController {
 
 // 2. Autowire Dependencies:
 //    - Inject `AppointmentService` for handling the business logic specific to appointments.
-//    - Inject the general `Service` class, which provides shared functionality like token validation and appointment checks.
+//    - Inject the general `Service` class, which provides shared functionality like appointment checks.
+//    - Tokens are not path variables: TokenAuthenticationFilter validates the `Authorization: Bearer` header and puts the
+//      caller on the request, and each method reads it with `AuthenticatedUser.from(request)` (null when anonymous).
+//      LegacyTokenPathFilter.ROUTES moves the token out of the old `/{token}` URLs before they reach this controller.
 
 
 // 3. Define the `getAppointments` Method:
 //    - Handles HTTP GET requests to fetch appointments based on date and patient name.
-//    - Takes the appointment date, patient name, and token as path variables.
-//    - First validates the token for role `"doctor"` using the `Service`.
-//    - If the token is valid, returns appointments for the given patient on the specified date.
-//    - If the token is invalid or expired, responds with the appropriate message and status code.
+//    - Mapped to `/{date}/{patientName}`; takes the appointment date and patient name as path variables.
+//    - Requires an `AuthenticatedUser` with role `"doctor"`.
+//    - If the caller is a doctor, returns appointments for the given patient on the specified date.
+//    - Otherwise responds with 401 (anonymous) or 403 (another role).
+//    - Accept optional `cursor` and `size` query parameters and return `AppointmentPageService.doctorDay(...)`,
+//      which serializes as `{ appointments, nextCursor, hasMore }`. Pass `nextCursor` back unchanged for the next page;
+//      an `IllegalArgumentException` from a tampered or stale cursor becomes a 400 response.
 
 
 // 4. Define the `bookAppointment` Method:
 //    - Handles HTTP POST requests to create a new appointment.
-//    - Accepts a validated `Appointment` object in the request body and a token as a path variable.
-//    - Validates the token for the `"patient"` role.
+//    - Accepts a validated `Appointment` object in the request body.
+//    - Requires an `AuthenticatedUser` with the `"patient"` role.
 //    - Uses service logic to validate the appointment data (e.g., check for doctor availability and time conflicts).
 //    - Returns success if booked, or appropriate error messages if the doctor ID is invalid or the slot is already taken.
 
 
 // 5. Define the `updateAppointment` Method:
 //    - Handles HTTP PUT requests to modify an existing appointment.
-//    - Accepts a validated `Appointment` object and a token as input.
-//    - Validates the token for `"patient"` role.
+//    - Accepts a validated `Appointment` object.
+//    - Requires an `AuthenticatedUser` with the `"patient"` role.
 //    - Delegates the update logic to the `AppointmentService`.
 //    - Returns an appropriate success or failure response based on the update result.
 
 
 // 6. Define the `cancelAppointment` Method:
 //    - Handles HTTP DELETE requests to cancel a specific appointment.
-//    - Accepts the appointment ID and a token as path variables.
-//    - Validates the token for `"patient"` role to ensure the user is authorized to cancel the appointment.
+//    - Mapped to `/{id}`; accepts the appointment ID as a path variable.
+//    - Requires an `AuthenticatedUser` with the `"patient"` role to ensure the user is authorized to cancel the appointment.
 //    - Calls `AppointmentService` to handle the cancellation process and returns the result.
 
 
@@ -0,0 +1,30 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.DTO.CachedJson;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// Writes pre-serialized bodies from the service caches, answering 304 when the client's
+// If-None-Match already names the current ETag.
+public final class CachedJsonResponses {
+
+    private CachedJsonResponses() {
+    }
+
+    public static ResponseEntity<byte[]> of(CachedJson json, String ifNoneMatch) {
+        if (json.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(json.getEtag())
+                    .cacheControl(CacheControl.noCache().cachePublic())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(json.length())
+                .eTag(json.getEtag())
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .body(json.getBody());
+    }
+}
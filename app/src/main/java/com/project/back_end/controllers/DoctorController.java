@@ -11,25 +11,31 @@ public class DoctorController {
 
 // 2. Autowire Dependencies:
 //    - Inject `DoctorService` for handling the core logic related to doctors (e.g., CRUD operations, authentication).
-//    - Inject the shared `Service` class for general-purpose features like token validation and filtering.
+//    - Inject the shared `Service` class for general-purpose features like filtering.
+//    - Tokens are not path variables: TokenAuthenticationFilter validates the `Authorization: Bearer` header and puts the
+//      caller on the request, and each method reads it with `AuthenticatedUser.from(request)` (null when anonymous).
+//      LegacyTokenPathFilter.ROUTES moves the token out of the old `/{token}` URLs before they reach this controller.
 
 
 // 3. Define the `getDoctorAvailability` Method:
 //    - Handles HTTP GET requests to check a specific doctor’s availability on a given date.
-//    - Requires `user` type, `doctorId`, `date`, and `token` as path variables.
-//    - First validates the token against the user type.
-//    - If the token is invalid, returns an error response; otherwise, returns the availability status for the doctor.
+//    - Mapped to `/availability/{user}/{doctorId}/{date}`; requires `user` type, `doctorId` and `date` as path variables.
+//    - First checks that the `AuthenticatedUser` role matches the user type.
+//    - If it does not, returns 401 or 403; otherwise, returns the availability status for the doctor.
 
 
 // 4. Define the `getDoctor` Method:
 //    - Handles HTTP GET requests to retrieve a list of all doctors.
 //    - Returns the list within a response map under the key `"doctors"` with HTTP 200 OK status.
+//    - Return `DoctorSummaryCache.getDoctors()` through `CachedJsonResponses.of(json, ifNoneMatch)`; the bytes already hold `{"doctors":[...]}`, so Jackson is skipped on cache hits.
+//    - Read the `If-None-Match` header with `@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)` so browsers holding the current ETag get a `304 Not Modified`.
+//    - Unauthenticated visitors of the landing page only see public doctors: serve them `DoctorSummaryCache.getPublicDoctors()` the same way.
 
 
 // 5. Define the `saveDoctor` Method:
 //    - Handles HTTP POST requests to register a new doctor.
-//    - Accepts a validated `Doctor` object in the request body and a token for authorization.
-//    - Validates the token for the `"admin"` role before proceeding.
+//    - Accepts a validated `Doctor` object in the request body.
+//    - Requires an `AuthenticatedUser` with the `"admin"` role before proceeding.
 //    - If the doctor already exists, returns a conflict response; otherwise, adds the doctor and returns a success message.
 
 
@@ -41,14 +47,14 @@ public class DoctorController {
 
 // 7. Define the `updateDoctor` Method:
 //    - Handles HTTP PUT requests to update an existing doctor's information.
-//    - Accepts a validated `Doctor` object and a token for authorization.
-//    - Token must belong to an `"admin"`.
+//    - Accepts a validated `Doctor` object.
+//    - The `AuthenticatedUser` must be an `"admin"`.
 //    - If the doctor exists, updates the record and returns success; otherwise, returns not found or error messages.
 
 
 // 8. Define the `deleteDoctor` Method:
 //    - Handles HTTP DELETE requests to remove a doctor by ID.
-//    - Requires both doctor ID and an admin token as path variables.
+//    - Mapped to `/{id}`; requires the doctor ID as a path variable and an `AuthenticatedUser` with the `"admin"` role.
 //    - If the doctor exists, deletes the record and returns a success message; otherwise, responds with a not found or error message.
 
 
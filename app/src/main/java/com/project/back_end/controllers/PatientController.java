@@ -9,13 +9,16 @@ public class PatientController {
 
 // 2. Autowire Dependencies:
 //    - Inject `PatientService` to handle patient-specific logic such as creation, retrieval, and appointments.
-//    - Inject the shared `Service` class for tasks like token validation and login authentication.
+//    - Inject the shared `Service` class for tasks like login authentication.
+//    - Tokens are not path variables: TokenAuthenticationFilter validates the `Authorization: Bearer` header and puts the
+//      caller on the request, and each method reads it with `AuthenticatedUser.from(request)` (null when anonymous).
+//      LegacyTokenPathFilter.ROUTES moves the token out of the old `/{token}` URLs before they reach this controller.
 
 
 // 3. Define the `getPatient` Method:
-//    - Handles HTTP GET requests to retrieve patient details using a token.
-//    - Validates the token for the `"patient"` role using the shared service.
-//    - If the token is valid, returns patient information; otherwise, returns an appropriate error message.
+//    - Handles HTTP GET requests to `/patient` to retrieve the caller's own details.
+//    - Requires an `AuthenticatedUser` with the `"patient"` role; its name is the patient's email.
+//    - Returns the patient information, or 401 when there is no patient caller.
 
 
 // 4. Define the `createPatient` Method:
@@ -34,16 +37,25 @@ public class PatientController {
 
 // 6. Define the `getPatientAppointment` Method:
 //    - Handles HTTP GET requests to fetch appointment details for a specific patient.
-//    - Requires the patient ID, token, and user role as path variables.
-//    - Validates the token using the shared service.
-//    - If valid, retrieves the patient's appointment data from `PatientService`; otherwise, returns a validation error.
+//    - Mapped to `/{id}/{user}`; takes the patient ID and user role as path variables.
+//    - Requires an `AuthenticatedUser` whose role matches `user`.
+//    - If it does, retrieves the patient's appointment data from `PatientService`; otherwise, returns 401 or 403.
+//    - Accept optional `cursor` and `size` query parameters and return `AppointmentPageService.patientHistory(...)`,
+//      newest first, as `{ appointments, nextCursor, hasMore }`; an invalid cursor becomes a 400 response.
 
 
 // 7. Define the `filterPatientAppointment` Method:
 //    - Handles HTTP GET requests to filter a patient's appointments based on specific conditions.
-//    - Accepts filtering parameters: `condition`, `name`, and a token.
-//    - Token must be valid for a `"patient"` role.
-//    - If valid, delegates filtering logic to the shared service and returns the filtered result.
+//    - Mapped to `/filter/{condition}/{name}`; accepts the filtering parameters `condition` and `name`.
+//    - Requires an `AuthenticatedUser` with the `"patient"` role.
+//    - If present, delegates filtering logic to the shared service and returns the filtered result.
+
+
+// 8. Define the `getActiveMedications` Method:
+//    - Handles HTTP GET requests to `/medications/{patientId}`; requires an `AuthenticatedUser` with the `"patient"` role
+//      (their own id only) or the `"doctor"` role, and returns 401 or 403 otherwise.
+//    - Returns `MedicationTimelineService.getActiveMedications(patientId, LocalDateTime.now())` as `{ "medications": [...] }`: one
+//      read of the patient's `medication_timelines` document, with no prescriptions loaded.
 
 
 
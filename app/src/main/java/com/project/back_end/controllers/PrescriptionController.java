@@ -10,24 +10,36 @@ public class PrescriptionController {
 
 // 2. Autowire Dependencies:
 //    - Inject `PrescriptionService` to handle logic related to saving and fetching prescriptions.
-//    - Inject the shared `Service` class for token validation and role-based access control.
+//    - Tokens are not path variables: TokenAuthenticationFilter validates the `Authorization: Bearer` header and puts the
+//      caller on the request, and each method reads it with `AuthenticatedUser.from(request)` for role-based access control.
+//      LegacyTokenPathFilter.ROUTES moves the token out of the old `/{token}` URLs before they reach this controller.
 //    - Inject `AppointmentService` to update appointment status after a prescription is issued.
 
 
 // 3. Define the `savePrescription` Method:
 //    - Handles HTTP POST requests to save a new prescription for a given appointment.
-//    - Accepts a validated `Prescription` object in the request body and a doctor’s token as a path variable.
-//    - Validates the token for the `"doctor"` role.
-//    - If the token is valid, updates the status of the corresponding appointment to reflect that a prescription has been added.
+//    - Accepts a validated `Prescription` object in the request body.
+//    - Requires an `AuthenticatedUser` with the `"doctor"` role.
+//    - If the caller is a doctor, updates the status of the corresponding appointment to reflect that a prescription has been added.
 //    - Delegates the saving logic to `PrescriptionService` and returns a response indicating success or failure.
 
 
 // 4. Define the `getPrescription` Method:
 //    - Handles HTTP GET requests to retrieve a prescription by its associated appointment ID.
-//    - Accepts the appointment ID and a doctor’s token as path variables.
-//    - Validates the token for the `"doctor"` role using the shared service.
-//    - If the token is valid, fetches the prescription using the `PrescriptionService`.
-//    - Returns the prescription details or an appropriate error message if validation fails.
+//    - Mapped to `/{appointmentId}`; accepts the appointment ID as a path variable.
+//    - Requires an `AuthenticatedUser` with the `"doctor"` role.
+//    - If the caller is a doctor, fetches the prescription using the `PrescriptionService`.
+//    - Return `PrescriptionCache.getByAppointment(appointmentId)` through `CachedJsonResponses.of(json, ifNoneMatch)`; repeated opens of the same record are served from the cached bytes, or as a 304.
+//    - Returns the prescription details, or 401/403 when the caller is not a doctor.
+
+
+// 5. Define the `importPrescriptions` Method:
+//    - Handles HTTP POST requests to `/import` with `Content-Type: application/x-ndjson`, one `Prescription` per line.
+//    - Requires an `AuthenticatedUser` with the `"admin"` role, from the `Authorization: Bearer` header; returns 401 or 403 otherwise.
+//    - Takes the body as the raw `HttpServletRequest` input stream, not `@RequestBody`, so the upload is never read into memory.
+//    - Returns a `ResponseEntity<StreamingResponseBody>` with `MediaType.APPLICATION_NDJSON` whose body calls
+//      `PrescriptionImportService.importNdjson(request.getInputStream(), out)`; the per-record results stream back as the
+//      batches are written, ending with a `summary` line. The response is 200 even when some records were rejected.
 
 
 }
@@ -3,14 +3,24 @@ package com.project.back_end.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.back_end.services.AuditChangeListener;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(AuditChangeListener.class)
 @Table(name = "appointments", 
        uniqueConstraints = {
-           @UniqueConstraint(columnNames = {"doctor_id", "appointment_date", "appointment_time"})
+           @UniqueConstraint(name = "uk_appointments_doctor_date_time",
+                             columnNames = {"doctor_id", "appointment_date", "appointment_time"})
+       },
+       indexes = {
+           @Index(name = "idx_appointments_patient_status_date_time",
+                  columnList = "patient_id, status, appointment_date, appointment_time"),
+           @Index(name = "idx_appointments_patient_date_time_id",
+                  columnList = "patient_id, appointment_date, appointment_time, id"),
+           @Index(name = "idx_appointments_date_status", columnList = "appointment_date, status")
        })
 public class Appointment {
 
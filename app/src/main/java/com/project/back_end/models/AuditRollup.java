@@ -0,0 +1,70 @@
+package com.project.back_end.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+// One counter of audit_logs events per time bucket, event type, category and severity. Stored
+// in audit_rollups_hourly and audit_rollups_daily; the _id is built from the other keys so an
+// increment can upsert it.
+@Document
+public class AuditRollup {
+
+    @Id
+    @JsonProperty("_id")
+    private String id;
+
+    @Field("bucket")
+    @JsonProperty("bucket")
+    private LocalDateTime bucket; // Start of the hour or day
+
+    @Field("eventType")
+    @JsonProperty("eventType")
+    private String eventType;
+
+    @Field("category")
+    @JsonProperty("category")
+    private String category;
+
+    @Field("severity")
+    @JsonProperty("severity")
+    private String severity;
+
+    @Field("count")
+    @JsonProperty("count")
+    private long count;
+
+    // Constructors
+    public AuditRollup() {
+    }
+
+    public AuditRollup(LocalDateTime bucket, String eventType, String category, String severity, long count) {
+        this.bucket = bucket;
+        this.eventType = eventType;
+        this.category = category;
+        this.severity = severity;
+        this.count = count;
+    }
+
+    // Getters and setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDateTime getBucket() { return bucket; }
+    public void setBucket(LocalDateTime bucket) { this.bucket = bucket; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getSeverity() { return severity; }
+    public void setSeverity(String severity) { this.severity = severity; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
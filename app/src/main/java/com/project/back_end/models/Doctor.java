@@ -3,12 +3,14 @@ package com.project.back_end.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.back_end.services.AuditChangeListener;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
 
 @Entity
+@EntityListeners(AuditChangeListener.class)
 @Table(name = "doctors")
 public class Doctor {
 
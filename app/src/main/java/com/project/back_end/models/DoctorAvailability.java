@@ -8,6 +8,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "doctor_availability",
@@ -202,6 +203,12 @@ public class DoctorAvailability {
                (isAvailable != null && isAvailable);
     }
     
+    public boolean isEffectiveOn(LocalDate date) {
+        return (isAvailable != null && isAvailable) &&
+               (effectiveFrom == null || !effectiveFrom.toLocalDate().isAfter(date)) &&
+               (effectiveUntil == null || !effectiveUntil.toLocalDate().isBefore(date));
+    }
+    
     public int getTotalAvailableMinutes() {
         if (startTime != null && endTime != null) {
             long diffInMillis = endTime.getTime() - startTime.getTime();
@@ -9,6 +9,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "doctor_unavailability")
@@ -286,6 +287,31 @@ public class DoctorUnavailability {
         return 0;
     }
     
+    public boolean occursOn(LocalDate date) {
+        if (unavailableDate == null || date == null) {
+            return false;
+        }
+        LocalDate first = unavailableDate.toLocalDate();
+        if (isRecurring == null || !isRecurring || recurrencePattern == null) {
+            return first.equals(date);
+        }
+        if (date.isBefore(first) || (recurrenceEndDate != null && date.isAfter(recurrenceEndDate.toLocalDate()))) {
+            return false;
+        }
+        switch (recurrencePattern) {
+            case DAILY:
+                return true;
+            case WEEKLY:
+                return first.getDayOfWeek() == date.getDayOfWeek();
+            case MONTHLY:
+                return first.getDayOfMonth() == date.getDayOfMonth();
+            case YEARLY:
+                return first.getMonth() == date.getMonth() && first.getDayOfMonth() == date.getDayOfMonth();
+            default:
+                return false;
+        }
+    }
+    
     public boolean conflicts(Date date, Time time) {
         if (!unavailableDate.equals(date)) {
             return false;
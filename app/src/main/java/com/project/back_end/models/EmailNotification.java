@@ -56,7 +56,7 @@ public class EmailNotification {
     @Field("emailStatus")
     @NotBlank(message = "Email status is required")
     @JsonProperty("emailStatus")
-    private String emailStatus; // Pending, Sent, Delivered, Failed
+    private String emailStatus; // Pending, Sending, Sent, Delivered, Failed
     
     @Field("sentAt")
     @JsonProperty("sentAt")
@@ -86,6 +86,14 @@ public class EmailNotification {
     @JsonProperty("metadata")
     private EmailMetadata metadata;
     
+    @Field("claimToken")
+    @JsonProperty("claimToken")
+    private String claimToken; // Set by EmailDispatcher while Sending
+    
+    @Field("claimedAt")
+    @JsonProperty("claimedAt")
+    private LocalDateTime claimedAt;
+    
     @Field("createdAt")
     @JsonProperty("createdAt")
     private LocalDateTime createdAt;
@@ -102,6 +110,9 @@ public class EmailNotification {
         @JsonProperty("templateName")
         private String templateName;
         
+        @JsonProperty("templateVersion")
+        private Integer templateVersion; // See EmailTemplates; null means version 1
+        
         @JsonProperty("personalizedData")
         private Map<String, Object> personalizedData;
         
@@ -111,6 +122,9 @@ public class EmailNotification {
         public String getTemplateName() { return templateName; }
         public void setTemplateName(String templateName) { this.templateName = templateName; }
         
+        public Integer getTemplateVersion() { return templateVersion; }
+        public void setTemplateVersion(Integer templateVersion) { this.templateVersion = templateVersion; }
+        
         public Map<String, Object> getPersonalizedData() { return personalizedData; }
         public void setPersonalizedData(Map<String, Object> personalizedData) { this.personalizedData = personalizedData; }
     }
@@ -193,6 +207,12 @@ public class EmailNotification {
     public EmailMetadata getMetadata() { return metadata; }
     public void setMetadata(EmailMetadata metadata) { this.metadata = metadata; }
     
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+    
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,160 @@
+package com.project.back_end.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// A patient's medications across all their prescriptions, one document per patient in
+// medication_timelines with the patient id as _id, so the active medication list is a single
+// read. Maintained by MedicationTimelineService from the prescriptions collection; entries are
+// keyed by prescription id so one prescription can be replaced or removed on its own.
+@Document(collection = "medication_timelines")
+public class MedicationTimeline {
+
+    @Id
+    @JsonProperty("patientId")
+    private Long patientId;
+
+    @Field("prescriptions")
+    @JsonProperty("prescriptions")
+    private Map<String, Entry> prescriptions = new LinkedHashMap<>();
+
+    @Field("updatedAt")
+    @JsonProperty("updatedAt")
+    private LocalDateTime updatedAt;
+
+    // One prescription, reduced to what the timeline shows.
+    public static class Entry {
+
+        @JsonProperty("prescriptionId")
+        private String prescriptionId;
+
+        @JsonProperty("appointmentId")
+        private Long appointmentId;
+
+        @JsonProperty("doctorId")
+        private Long doctorId;
+
+        @JsonProperty("doctorName")
+        private String doctorName;
+
+        @JsonProperty("prescriptionDate")
+        private LocalDateTime prescriptionDate;
+
+        @JsonProperty("status")
+        private Prescription.PrescriptionStatus status;
+
+        // The prescription's updatedAt when the entry was written; older writes are ignored.
+        @JsonProperty("version")
+        private LocalDateTime version;
+
+        @JsonProperty("medications")
+        private List<Course> medications = new ArrayList<>();
+
+        public String getPrescriptionId() { return prescriptionId; }
+        public void setPrescriptionId(String prescriptionId) { this.prescriptionId = prescriptionId; }
+
+        public Long getAppointmentId() { return appointmentId; }
+        public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+        public Long getDoctorId() { return doctorId; }
+        public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+        public String getDoctorName() { return doctorName; }
+        public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+
+        public LocalDateTime getPrescriptionDate() { return prescriptionDate; }
+        public void setPrescriptionDate(LocalDateTime prescriptionDate) { this.prescriptionDate = prescriptionDate; }
+
+        public Prescription.PrescriptionStatus getStatus() { return status; }
+        public void setStatus(Prescription.PrescriptionStatus status) { this.status = status; }
+
+        public LocalDateTime getVersion() { return version; }
+        public void setVersion(LocalDateTime version) { this.version = version; }
+
+        public List<Course> getMedications() { return medications; }
+        public void setMedications(List<Course> medications) { this.medications = medications; }
+    }
+
+    // One medication of a prescription, with its dates worked out from the prescription date,
+    // the duration and the refills. The end dates are null when the duration has no fixed length.
+    public static class Course {
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("dosage")
+        private String dosage;
+
+        @JsonProperty("frequency")
+        private String frequency;
+
+        @JsonProperty("instructions")
+        private String instructions;
+
+        @JsonProperty("startsAt")
+        private LocalDateTime startsAt;
+
+        @JsonProperty("supplyEndsAt")
+        private LocalDateTime supplyEndsAt; // End of what was dispensed: the first fill and the refills used
+
+        @JsonProperty("endsAt")
+        private LocalDateTime endsAt; // End of the course if every refill allowed is used
+
+        @JsonProperty("refillsRemaining")
+        private int refillsRemaining;
+
+        public boolean isActiveAt(LocalDateTime time) {
+            return !time.isBefore(startsAt) && (endsAt == null || time.isBefore(endsAt));
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getDosage() { return dosage; }
+        public void setDosage(String dosage) { this.dosage = dosage; }
+
+        public String getFrequency() { return frequency; }
+        public void setFrequency(String frequency) { this.frequency = frequency; }
+
+        public String getInstructions() { return instructions; }
+        public void setInstructions(String instructions) { this.instructions = instructions; }
+
+        public LocalDateTime getStartsAt() { return startsAt; }
+        public void setStartsAt(LocalDateTime startsAt) { this.startsAt = startsAt; }
+
+        public LocalDateTime getSupplyEndsAt() { return supplyEndsAt; }
+        public void setSupplyEndsAt(LocalDateTime supplyEndsAt) { this.supplyEndsAt = supplyEndsAt; }
+
+        public LocalDateTime getEndsAt() { return endsAt; }
+        public void setEndsAt(LocalDateTime endsAt) { this.endsAt = endsAt; }
+
+        public int getRefillsRemaining() { return refillsRemaining; }
+        public void setRefillsRemaining(int refillsRemaining) { this.refillsRemaining = refillsRemaining; }
+    }
+
+    // Constructors
+    public MedicationTimeline() {
+    }
+
+    public MedicationTimeline(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    // Getters and setters
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public Map<String, Entry> getPrescriptions() { return prescriptions; }
+    public void setPrescriptions(Map<String, Entry> prescriptions) { this.prescriptions = prescriptions; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -2,14 +2,22 @@ package com.project.back_end.models;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.back_end.services.AuditChangeListener;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "patients")
+@EntityListeners(AuditChangeListener.class)
+@Table(name = "patients",
+       indexes = {
+           // Startup reload of pending expiries in ExpiryScheduler
+           @Index(name = "idx_patients_password_reset_expires", columnList = "password_reset_expires"),
+           @Index(name = "idx_patients_account_locked_until", columnList = "account_locked_until")
+       })
 public class Patient {
 
     @Id
@@ -107,6 +115,15 @@ public class Patient {
     @JsonProperty("accountLockedUntil")
     private LocalDateTime accountLockedUntil;
 
+    // SHA-256 of the emailed reset token; the token itself is never stored
+    @Column(name = "password_reset_token", length = 64)
+    @JsonIgnore
+    private String passwordResetToken;
+
+    @Column(name = "password_reset_expires")
+    @JsonIgnore
+    private LocalDateTime passwordResetExpires;
+
     @Column(name = "is_active")
     @JsonProperty("isActive")
     private Boolean isActive = true;
@@ -343,6 +360,22 @@ public class Patient {
         this.accountLockedUntil = accountLockedUntil;
     }
 
+    public String getPasswordResetToken() {
+        return passwordResetToken;
+    }
+
+    public void setPasswordResetToken(String passwordResetToken) {
+        this.passwordResetToken = passwordResetToken;
+    }
+
+    public LocalDateTime getPasswordResetExpires() {
+        return passwordResetExpires;
+    }
+
+    public void setPasswordResetExpires(LocalDateTime passwordResetExpires) {
+        this.passwordResetExpires = passwordResetExpires;
+    }
+
     public Boolean getIsActive() {
         return isActive;
     }
@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+       indexes = {
+           @Index(name = "idx_payments_payment_date", columnList = "payment_date")
+       })
 public class Payment {
     
     @Id
@@ -5,6 +5,8 @@ public class DashboardController {
 // 1. Set Up the MVC Controller Class:
 //    - Annotate the class with `@Controller` to indicate that it serves as an MVC controller returning view names (not JSON).
 //    - This class handles routing to admin and doctor dashboard pages based on token validation.
+//    - Map `/adminDashboard` and `/doctorDashboard` without a token segment: `LegacyTokenPathFilter` rewrites the old
+//      `/adminDashboard/{token}` links, and the caller arrives as `AuthenticatedUser.from(request)`.
 
 
 // 2. Autowire the Shared Service:
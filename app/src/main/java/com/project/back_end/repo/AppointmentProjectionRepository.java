@@ -0,0 +1,73 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Read-only queries that select just the columns the dashboards render. Each one is shaped to
+// be answered from an index on the appointments table without touching the row data:
+//   - idx_appointments_patient_status_date_time (patient_id, status, appointment_date, appointment_time)
+//   - idx_appointments_patient_date_time_id (patient_id, appointment_date, appointment_time, id),
+//     which also serves the patient-history order and keyset of AppointmentPageService
+//   - uk_appointments_doctor_date_time (doctor_id, appointment_date, appointment_time), the
+//     unique constraint, which also serves lookups on its (doctor_id, appointment_date) prefix
+// InnoDB secondary indexes carry the primary key, so selecting a.id keeps them covering.
+//
+// The dashboard listings build AppointmentDTO with a constructor expression over one inner
+// join, so a listing is a single statement with no lazy loads during serialization.
+public interface AppointmentProjectionRepository extends Repository<Appointment, Long> {
+
+    interface AppointmentSlotView {
+        Long getId();
+
+        LocalDate getAppointmentDate();
+
+        LocalTime getAppointmentTime();
+    }
+
+    @Query("select a.id as id, a.appointmentDate as appointmentDate, a.appointmentTime as appointmentTime " +
+           "from Appointment a where a.patient.id = :patientId and a.status = :status " +
+           "and a.appointmentDate >= :from order by a.appointmentDate, a.appointmentTime")
+    List<AppointmentSlotView> findPatientSlotsByStatus(@Param("patientId") Long patientId,
+                                                       @Param("status") Appointment.AppointmentStatus status,
+                                                       @Param("from") LocalDate from);
+
+    @Query("select a.id as id, a.appointmentDate as appointmentDate, a.appointmentTime as appointmentTime " +
+           "from Appointment a where a.doctor.id = :doctorId " +
+           "and a.appointmentDate between :from and :to order by a.appointmentDate, a.appointmentTime")
+    List<AppointmentSlotView> findDoctorSlotsBetween(@Param("doctorId") Long doctorId,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
+    @Query("select count(a) from Appointment a where a.doctor.id = :doctorId and a.appointmentDate = :date")
+    long countByDoctorAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    @Query("select a.id from Appointment a where a.doctor.id = :doctorId and a.appointmentDate = :date")
+    List<Long> findIdsByDoctorAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    String DASHBOARD_ROW = "select new com.project.back_end.DTO.AppointmentDTO(" +
+            "a.id, d.id, d.firstName, d.lastName, p.id, p.firstName, p.lastName, p.email, p.phone, " +
+            "a.appointmentDate, a.appointmentTime, a.durationMinutes, a.status) " +
+            "from Appointment a join a.doctor d join a.patient p ";
+
+    // Rows for the doctorDashboard patient table (patientRows.js).
+    @Query(DASHBOARD_ROW + "where d.id = :doctorId and a.appointmentDate = :date order by a.appointmentTime")
+    List<AppointmentDTO> findDashboardRows(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    @Query(DASHBOARD_ROW + "where d.id = :doctorId and a.appointmentDate = :date " +
+           "and lower(concat(p.firstName, ' ', p.lastName)) like lower(concat('%', :patientName, '%')) " +
+           "order by a.appointmentTime")
+    List<AppointmentDTO> findDashboardRowsByPatientName(@Param("doctorId") Long doctorId,
+                                                        @Param("date") LocalDate date,
+                                                        @Param("patientName") String patientName);
+
+    // Rows for a patient's appointment history (appointmentRow.js).
+    @Query(DASHBOARD_ROW + "where p.id = :patientId order by a.appointmentDate desc, a.appointmentTime desc")
+    List<AppointmentDTO> findPatientAppointmentRows(@Param("patientId") Long patientId);
+}
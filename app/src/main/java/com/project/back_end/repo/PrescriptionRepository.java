@@ -15,6 +15,8 @@ public interface PrescriptionRepository  {
 //      - Return type: List<Prescription>
 //      - Parameters: Long appointmentId
 //      - MongoRepository automatically derives the query from the method name, in this case, it will find prescriptions by the appointment ID.
+//      - The query is served by the `appointmentId` index that `PrescriptionCache.ensureIndexes()` creates at startup; for reads on the
+//        record page, go through `PrescriptionCache.getByAppointment` instead of calling this directly.
 
 
 }
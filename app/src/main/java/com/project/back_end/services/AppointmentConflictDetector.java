@@ -0,0 +1,185 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Answers "does this booking overlap another one for the same doctor?" from an in-memory
+// interval tree per doctor, so appointments of different durations are checked properly
+// without scanning the doctor's appointment list.
+//
+// A schedule holds the appointments from the day it was loaded on, in its own read-only
+// transaction. The first lookup of a new day drops every schedule loaded on an earlier day, so
+// past appointments do not pile up; those doctors are reloaded from today when next checked.
+// Changes are applied with computeIfPresent, so one arriving while the doctor is being loaded
+// waits for the load and is applied to its result, as in SlotAvailabilityEngine.
+@Service
+public class AppointmentConflictDetector {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final ScheduleLoader loader;
+    private final Supplier<LocalDate> today;
+    private final ConcurrentMap<Long, DoctorSchedule> schedules = new ConcurrentHashMap<>();
+    private volatile LocalDate sweptOn;
+
+    @Autowired
+    public AppointmentConflictDetector(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.loader = (doctorId, from) -> readOnly.execute(status -> load(doctorId, from));
+        this.today = LocalDate::now;
+    }
+
+    // For tests, with the database replaced by loader and the date by today.
+    AppointmentConflictDetector(ScheduleLoader loader, Supplier<LocalDate> today) {
+        this.entityManager = null;
+        this.readOnly = null;
+        this.loader = loader;
+        this.today = today;
+    }
+
+    public boolean hasConflict(Long doctorId, LocalDateTime start, int durationMinutes, Long excludeAppointmentId) {
+        return findConflict(doctorId, start, durationMinutes, excludeAppointmentId) != null;
+    }
+
+    // Id of an existing appointment overlapping the requested range, or null when the range is free.
+    public Long findConflict(Long doctorId, LocalDateTime start, int durationMinutes, Long excludeAppointmentId) {
+        long from = epochMinute(start);
+        return scheduleFor(doctorId).findOverlap(from, from + durationMinutes, excludeAppointmentId);
+    }
+
+    public void onBooked(Appointment appointment) {
+        if (!isTracked(appointment) || appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            return;
+        }
+        schedules.computeIfPresent(appointment.getDoctor().getId(), (doctorId, schedule) -> {
+            schedule.put(appointment.getId(), epochMinute(appointment.getAppointmentDateTime()),
+                    appointment.getDurationMinutes());
+            return schedule;
+        });
+    }
+
+    // Also covers a change of doctor: the appointment is dropped from whichever schedule held it.
+    public void onUpdated(Long previousDoctorId, Appointment appointment) {
+        if (previousDoctorId != null && appointment.getDoctor() != null
+                && !previousDoctorId.equals(appointment.getDoctor().getId())) {
+            remove(previousDoctorId, appointment.getId());
+        }
+        if (!isTracked(appointment)) {
+            return;
+        }
+        if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            remove(appointment.getDoctor().getId(), appointment.getId());
+        } else {
+            onBooked(appointment);
+        }
+    }
+
+    public void onCancelled(Appointment appointment) {
+        if (isTracked(appointment)) {
+            remove(appointment.getDoctor().getId(), appointment.getId());
+        }
+    }
+
+    public void invalidateDoctor(Long doctorId) {
+        schedules.remove(doctorId);
+    }
+
+    private void remove(Long doctorId, Long appointmentId) {
+        schedules.computeIfPresent(doctorId, (id, schedule) -> {
+            schedule.remove(appointmentId);
+            return schedule;
+        });
+    }
+
+    private static boolean isTracked(Appointment appointment) {
+        return appointment.getDoctor() != null && appointment.getId() != null
+                && appointment.getAppointmentDateTime() != null && appointment.getDurationMinutes() != null;
+    }
+
+    private DoctorSchedule scheduleFor(Long doctorId) {
+        LocalDate date = today.get();
+        if (!date.equals(sweptOn)) {
+            sweptOn = date;
+            schedules.values().removeIf(schedule -> schedule.loadedOn.isBefore(date));
+        }
+        DoctorSchedule schedule = schedules.get(doctorId);
+        if (schedule != null && !schedule.loadedOn.isBefore(date)) {
+            return schedule;
+        }
+        return schedules.compute(doctorId, (id, current) ->
+                current != null && !current.loadedOn.isBefore(date) ? current : loader.load(id, date));
+    }
+
+    // Only appointments from the given day on can collide with a new booking.
+    private DoctorSchedule load(Long doctorId, LocalDate from) {
+        List<Object[]> rows = entityManager.createQuery(
+                        "select a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes from Appointment a " +
+                        "where a.doctor.id = :doctorId and a.appointmentDate >= :from and a.status <> :cancelled",
+                        Object[].class)
+                .setParameter("doctorId", doctorId)
+                .setParameter("from", from)
+                .setParameter("cancelled", Appointment.AppointmentStatus.CANCELLED)
+                .getResultList();
+        DoctorSchedule schedule = new DoctorSchedule(from);
+        for (Object[] row : rows) {
+            LocalDateTime start = LocalDateTime.of((LocalDate) row[1], (LocalTime) row[2]);
+            schedule.put((Long) row[0], epochMinute(start), (Integer) row[3]);
+        }
+        return schedule;
+    }
+
+    static long epochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    interface ScheduleLoader {
+        DoctorSchedule load(Long doctorId, LocalDate from);
+    }
+
+    static final class DoctorSchedule {
+
+        private final LocalDate loadedOn;
+        private final AppointmentIntervalTree tree = new AppointmentIntervalTree();
+        private final Map<Long, Long> startById = new HashMap<>();
+
+        DoctorSchedule(LocalDate loadedOn) {
+            this.loadedOn = loadedOn;
+        }
+
+        private synchronized Long findOverlap(long start, long end, Long excludeId) {
+            return tree.findOverlap(start, end, excludeId);
+        }
+
+        synchronized void put(Long id, long start, int durationMinutes) {
+            Long previousStart = startById.put(id, start);
+            if (previousStart != null) {
+                tree.remove(id, previousStart);
+            }
+            tree.insert(id, start, start + durationMinutes);
+        }
+
+        private synchronized void remove(Long id) {
+            Long start = startById.remove(id);
+            if (start != null) {
+                tree.remove(id, start);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Half-open [start, end) booking intervals for a single doctor, stored in a treap ordered by
+// (start, id) and augmented with the maximum end of each subtree, so overlap lookups can
+// skip whole subtrees and run in O(log n) expected time. Not thread-safe.
+public class AppointmentIntervalTree {
+
+    private Node root;
+    private int size;
+
+    public void insert(long id, long start, long end) {
+        root = insert(root, new Node(id, start, end));
+        size++;
+    }
+
+    public boolean remove(long id, long start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+
+    // Returns the id of any stored interval overlapping [start, end) other than excludeId, or null.
+    public Long findOverlap(long start, long end, Long excludeId) {
+        Node node = root;
+        while (node != null) {
+            if (node.left != null && node.left.maxEnd > start) {
+                Long found = findInSubtree(node.left, start, end, excludeId);
+                if (found != null) {
+                    return found;
+                }
+            }
+            if (node.start >= end) {
+                return null;
+            }
+            if (node.end > start && (excludeId == null || node.id != excludeId)) {
+                return node.id;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    public List<Long> findAllOverlaps(long start, long end) {
+        List<Long> ids = new ArrayList<>();
+        collect(root, start, end, ids);
+        return ids;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Long findInSubtree(Node node, long start, long end, Long excludeId) {
+        if (node == null || node.maxEnd <= start) {
+            return null;
+        }
+        Long found = findInSubtree(node.left, start, end, excludeId);
+        if (found != null) {
+            return found;
+        }
+        if (node.start >= end) {
+            return null;
+        }
+        if (node.end > start && (excludeId == null || node.id != excludeId)) {
+            return node.id;
+        }
+        return findInSubtree(node.right, start, end, excludeId);
+    }
+
+    private void collect(Node node, long start, long end, List<Long> ids) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, ids);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            ids.add(node.id);
+        }
+        collect(node.right, start, end, ids);
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node remove(Node node, long id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static final class Node {
+
+        private final long id;
+        private final long start;
+        private final long end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        private void update() {
+            long max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentCursor;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AppointmentPage;
+import com.project.back_end.repo.AppointmentProjectionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keyset pagination over the dashboard projections. Each page continues strictly after the
+// (appointment_date, appointment_time, id) of the previous page's last row, so a page costs
+// the same no matter how deep the client has scrolled; nothing is skipped with OFFSET. One
+// extra row is fetched to tell whether another page exists. The patient history is read backwards
+// along idx_appointments_patient_date_time_id, so a page stops after size + 1 index entries.
+@Service
+public class AppointmentPageService {
+
+    private static final String DOCTOR_DAY = AppointmentProjectionRepository.DASHBOARD_ROW +
+            "where d.id = :doctorId and a.appointmentDate = :date ";
+    private static final String DOCTOR_DAY_NAME =
+            "and lower(concat(p.firstName, ' ', p.lastName)) like lower(concat('%', :patientName, '%')) ";
+    private static final String DOCTOR_DAY_AFTER =
+            "and (a.appointmentTime > :time or (a.appointmentTime = :time and a.id > :id)) ";
+    private static final String DOCTOR_DAY_ORDER = "order by a.appointmentTime, a.id";
+
+    private static final String PATIENT_HISTORY = AppointmentProjectionRepository.DASHBOARD_ROW +
+            "where p.id = :patientId ";
+    private static final String PATIENT_HISTORY_AFTER =
+            "and (a.appointmentDate < :date or (a.appointmentDate = :date and " +
+            "(a.appointmentTime < :time or (a.appointmentTime = :time and a.id < :id)))) ";
+    private static final String PATIENT_HISTORY_ORDER = "order by a.appointmentDate desc, a.appointmentTime desc, a.id desc";
+
+    private final EntityManager entityManager;
+    private final int defaultSize;
+    private final int maxSize;
+
+    public AppointmentPageService(EntityManager entityManager,
+                                  @Value("${appointment.page.default-size:20}") int defaultSize,
+                                  @Value("${appointment.page.max-size:100}") int maxSize) {
+        this.entityManager = entityManager;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    // Doctor dashboard: one day in time order. patientName may be null or "null", as sent by
+    // doctorDashboard.js when the search bar is empty.
+    @Transactional(readOnly = true)
+    public AppointmentPage doctorDay(Long doctorId, LocalDate date, String patientName, String cursor, Integer size) {
+        boolean byName = patientName != null && !patientName.isBlank() && !"null".equals(patientName);
+        AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+        if (after != null && !date.equals(after.getDate())) {
+            throw new IllegalArgumentException("Page cursor belongs to another day");
+        }
+
+        String jpql = DOCTOR_DAY + (byName ? DOCTOR_DAY_NAME : "") + (after != null ? DOCTOR_DAY_AFTER : "") + DOCTOR_DAY_ORDER;
+        TypedQuery<AppointmentDTO> query = entityManager.createQuery(jpql, AppointmentDTO.class)
+                .setParameter("doctorId", doctorId)
+                .setParameter("date", date);
+        if (byName) {
+            query.setParameter("patientName", patientName.trim());
+        }
+        if (after != null) {
+            query.setParameter("time", after.getTime()).setParameter("id", after.getId());
+        }
+        return page(query, pageSize(size));
+    }
+
+    // Patient history: most recent first.
+    @Transactional(readOnly = true)
+    public AppointmentPage patientHistory(Long patientId, String cursor, Integer size) {
+        AppointmentCursor after = cursor == null || cursor.isBlank() ? null : AppointmentCursor.decode(cursor);
+
+        String jpql = PATIENT_HISTORY + (after != null ? PATIENT_HISTORY_AFTER : "") + PATIENT_HISTORY_ORDER;
+        TypedQuery<AppointmentDTO> query = entityManager.createQuery(jpql, AppointmentDTO.class)
+                .setParameter("patientId", patientId);
+        if (after != null) {
+            query.setParameter("date", after.getDate())
+                    .setParameter("time", after.getTime())
+                    .setParameter("id", after.getId());
+        }
+        return page(query, pageSize(size));
+    }
+
+    int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    private static AppointmentPage page(TypedQuery<AppointmentDTO> query, int size) {
+        List<AppointmentDTO> rows = query.setMaxResults(size + 1).getResultList();
+        if (rows.size() <= size) {
+            return new AppointmentPage(rows, null);
+        }
+        List<AppointmentDTO> items = new ArrayList<>(rows.subList(0, size));
+        return new AppointmentPage(items, AppointmentCursor.after(items.get(size - 1)).encode());
+    }
+}
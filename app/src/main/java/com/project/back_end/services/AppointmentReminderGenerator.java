@@ -0,0 +1,296 @@
+package com.project.back_end.services;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Creates the "appointment_reminder" EmailNotification for every SCHEDULED or CONFIRMED
+// appointment of a day that has no reminder yet, for all clinics at once, and then sets
+// reminderSent. Runs daily at reminders.run-at for the next day; EmailDispatcher sends them.
+//
+// The appointments are read in one forward-only, streaming result set (rows arrive as they are
+// read rather than being loaded first), with the patient, doctor and clinic joined in, and
+// handled in chunks of reminders.batch-size: the chunk's notifications get their subject from
+// the precompiled "appointment_reminder" template (the body is rendered from the same template
+// when the notification is sent), are inserted in one unordered bulk write, and its
+// appointments flagged with one UPDATE ... WHERE id IN (...). Only one chunk is held at a time,
+// so memory does not grow with the size of the day.
+//
+// A notification's _id is derived from its appointment, so when a run stops between the
+// insert and the UPDATE the next run skips the notifications that already exist (duplicate
+// key errors are expected) and only sets the flags. The flags are written with JDBC, past
+// AuditChangeListener, so there is no audit event per appointment for them.
+@Service
+public class AppointmentReminderGenerator {
+
+    public static final String NOTIFICATION_TYPE = "appointment_reminder";
+
+    private static final String DUE = "select a.id, a.appointment_date, a.appointment_time, a.duration_minutes, " +
+            "a.preparation_instructions, p.id as patient_id, p.first_name, p.last_name, p.email, " +
+            "d.first_name as doctor_first_name, d.last_name as doctor_last_name, " +
+            "c.name as clinic_name, c.address as clinic_address, c.phone as clinic_phone " +
+            "from appointments a " +
+            "join patients p on p.id = a.patient_id " +
+            "join doctors d on d.id = a.doctor_id " +
+            "join clinic_locations c on c.id = a.clinic_location_id " +
+            "where a.appointment_date = ? and a.status in ('SCHEDULED', 'CONFIRMED') " +
+            "and (a.reminder_sent = false or a.reminder_sent is null)";
+    private static final String MARK_SENT = "update appointments set reminder_sent = true, updated_at = ? where id in ";
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("EEEE, MMMM d, yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MongoOperations mongoOperations;
+    private final EmailTemplates templates;
+    private final int batchSize;
+    private final LocalTime runAt;
+    private final String markSentChunk;
+    private final Counter generated;
+    private final Counter runFailures;
+    private final Timer runTime;
+    private final ScheduledExecutorService executor;
+
+    public AppointmentReminderGenerator(JdbcTemplate jdbcTemplate,
+                                        MongoOperations mongoOperations,
+                                        EmailTemplates templates,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${reminders.batch-size:1000}") int batchSize,
+                                        @Value("${reminders.run-at:18:00}") String runAt) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mongoOperations = mongoOperations;
+        this.templates = templates;
+        this.batchSize = batchSize;
+        this.runAt = LocalTime.parse(runAt);
+        this.markSentChunk = MARK_SENT + inList(batchSize);
+        this.generated = meterRegistry.counter("reminders.generated");
+        this.runFailures = meterRegistry.counter("reminders.run.failures");
+        this.runTime = meterRegistry.timer("reminders.run");
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleNextRun();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Generates the reminders still missing for the day's appointments. Returns how many
+    // notifications were inserted; appointments whose reminder already existed are only flagged.
+    public int generate(LocalDate day) {
+        EmailTemplates.Template template = templates.get(NOTIFICATION_TYPE, EmailTemplates.DEFAULT_VERSION);
+        if (template == null) {
+            throw new IllegalStateException("No email template " + NOTIFICATION_TYPE);
+        }
+        Run run = run();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DUE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J streams the result row by row only for this fetch size
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setDate(1, Date.valueOf(day));
+            return statement;
+        }, rs -> {
+            run.add(rs.getLong("id"), notification(rs, template));
+        });
+        return run.finish();
+    }
+
+    // The chunking of one generate, fed the due appointments by its cursor. Package-private so
+    // the writes can be checked without a database.
+    Run run() {
+        return new Run(batchSize, this::insert, this::markSent);
+    }
+
+    // Package-private so the rendering can be checked without a database.
+    static EmailNotification notification(long appointmentId, long patientId, String email,
+                                          Map<String, Object> data, EmailTemplates.Template template,
+                                          LocalDateTime now) {
+        EmailNotification notification = new EmailNotification();
+        notification.setId(NOTIFICATION_TYPE + "-" + appointmentId);
+        notification.setRecipientId(Math.toIntExact(patientId));
+        notification.setRecipientType("Patient");
+        notification.setRecipientEmail(email);
+        notification.setNotificationType(NOTIFICATION_TYPE);
+        notification.setAppointmentId(Math.toIntExact(appointmentId));
+        notification.setSubject(template.renderSubject(data));
+        EmailNotification.EmailContent content = new EmailNotification.EmailContent();
+        content.setTemplateName(NOTIFICATION_TYPE);
+        content.setTemplateVersion(EmailTemplates.DEFAULT_VERSION);
+        content.setPersonalizedData(data);
+        notification.setContent(content);
+        EmailNotification.EmailMetadata metadata = new EmailNotification.EmailMetadata();
+        metadata.setPriority("High");
+        metadata.setTags(List.of("reminder"));
+        notification.setMetadata(metadata);
+        notification.setCreatedAt(now);
+        return notification;
+    }
+
+    private static EmailNotification notification(ResultSet rs, EmailTemplates.Template template) throws SQLException {
+        Map<String, Object> data = new HashMap<>(16);
+        data.put("patientName", rs.getString("first_name") + " " + rs.getString("last_name"));
+        data.put("doctorName", rs.getString("doctor_first_name") + " " + rs.getString("doctor_last_name"));
+        data.put("date", DATE.format(rs.getDate("appointment_date").toLocalDate()));
+        data.put("time", TIME.format(rs.getTime("appointment_time").toLocalTime()));
+        data.put("durationMinutes", rs.getInt("duration_minutes"));
+        data.put("clinicName", rs.getString("clinic_name"));
+        data.put("clinicAddress", rs.getString("clinic_address"));
+        data.put("clinicPhone", rs.getString("clinic_phone"));
+        String preparation = rs.getString("preparation_instructions");
+        if (preparation != null && !preparation.isBlank()) {
+            data.put("preparationInstructions", "\nTo prepare: " + preparation.trim() + "\n");
+        }
+        return notification(rs.getLong("id"), rs.getLong("patient_id"), rs.getString("email"), data, template,
+                LocalDateTime.now());
+    }
+
+    // Returns how many were new; notifications that already exist are left as they are.
+    private int insert(List<EmailNotification> notifications) {
+        int inserted = notifications.size();
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailNotification.class)
+                    .insert(notifications)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            inserted -= e.getErrors().size();
+        }
+        generated.increment(inserted);
+        return inserted;
+    }
+
+    private void markSent(List<Long> appointmentIds) {
+        List<Object> args = new ArrayList<>(appointmentIds.size() + 1);
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(appointmentIds);
+        String sql = appointmentIds.size() == batchSize
+                ? markSentChunk
+                : MARK_SENT + inList(appointmentIds.size());
+        jdbcTemplate.update(sql, args.toArray());
+    }
+
+    private void scheduleNextRun() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        executor.schedule(this::runQuietly, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void runQuietly() {
+        long started = System.nanoTime();
+        try {
+            generate(LocalDate.now().plusDays(1));
+            runTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            // Whatever was flagged stays done; the rest is picked up by the next run
+            runFailures.increment();
+        } finally {
+            scheduleNextRun();
+        }
+    }
+
+    private static String inList(int size) {
+        return "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    interface NotificationWriter {
+        // Inserts the notifications; returns how many did not exist yet.
+        int insert(List<EmailNotification> notifications);
+    }
+
+    interface SentFlagWriter {
+        // Sets reminderSent on the appointments, in one statement.
+        void markSent(List<Long> appointmentIds);
+    }
+
+    // Holds one chunk at a time: once batchSize appointments are added, their notifications
+    // are inserted and then they are flagged.
+    static final class Run {
+
+        private final int batchSize;
+        private final NotificationWriter notifications;
+        private final SentFlagWriter flags;
+        private final List<Long> appointmentIds;
+        private final List<EmailNotification> chunk;
+        private int inserted;
+
+        Run(int batchSize, NotificationWriter notifications, SentFlagWriter flags) {
+            this.batchSize = batchSize;
+            this.notifications = notifications;
+            this.flags = flags;
+            this.appointmentIds = new ArrayList<>(batchSize);
+            this.chunk = new ArrayList<>(batchSize);
+        }
+
+        void add(long appointmentId, EmailNotification notification) {
+            appointmentIds.add(appointmentId);
+            chunk.add(notification);
+            if (appointmentIds.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        // Flushes the last, partial chunk; returns how many notifications were inserted.
+        int finish() {
+            flush();
+            return inserted;
+        }
+
+        private void flush() {
+            if (appointmentIds.isEmpty()) {
+                return;
+            }
+            inserted += notifications.insert(chunk);
+            flags.markSent(appointmentIds);
+            appointmentIds.clear();
+            chunk.clear();
+        }
+    }
+}
@@ -35,11 +35,27 @@ public class AppointmentService {
 //    - This method retrieves a list of appointments for a specific doctor on a particular day, optionally filtered by the patient's name.
 //    - It uses `@Transactional` to ensure that database operations are consistent and handled in a single transaction.
 //    - Instruction: Ensure the correct use of transaction boundaries, especially when querying the database for appointments.
+//    - Read the rows through `AppointmentProjectionRepository.findDashboardRows` (or `findDashboardRowsByPatientName` when a name is given); they return `AppointmentDTO`s from one joined query instead of hydrating entities.
 
 // 8. **Change Status Method**:
 //    - This method updates the status of an appointment by changing its value in the database.
 //    - It should be annotated with `@Transactional` to ensure the operation is executed in a single transaction.
 //    - Instruction: Add `@Transactional` before this method to ensure atomicity when updating appointment status.
 
+// 9. **Keep the Slot Availability Engine in Sync**:
+//    - `SlotAvailabilityEngine` caches free slots per doctor and day, so it has to hear about every change to a booking.
+//    - Call `onBooked` once a `bookAppointment` transaction has committed, `onRescheduled` (with the previous date) after `updateAppointment`, and `onCancelled` after `cancelAppointment` or a status change to `CANCELLED`.
+//    - Instruction: Inject `SlotAvailabilityEngine` through the constructor alongside the repositories.
+
+// 10. **Keep the Conflict Detector in Sync**:
+//    - `AppointmentConflictDetector` holds each doctor's booked [start, end) ranges in an interval tree used by `Service.validateAppointment`.
+//    - Call `onBooked` after `bookAppointment`, `onUpdated` (with the doctor id the appointment had before the update) after `updateAppointment`, and `onCancelled` after `cancelAppointment`.
+//    - Instruction: Only notify the detector once the repository call has succeeded, so a failed save never leaves a phantom booking behind.
+
+// 11. **Serialize Bookings per Doctor and Day**:
+//    - Wrap the availability check and the save of `bookAppointment` in `BookingLockTable.withLock(doctorId, appointmentDate, ...)`; use `withLocks` in `updateAppointment` when the date or doctor changes.
+//    - The lock has to cover the commit as well, so run the transactional work inside the lock (e.g. through a `TransactionTemplate`) rather than taking the lock inside a `@Transactional` method.
+//    - If the lock cannot be acquired in time an `IllegalStateException` is thrown; treat it like any other failed save and return `0`.
+
 
 }
@@ -0,0 +1,181 @@
+package com.project.back_end.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.back_end.config.AuthenticatedUser;
+import com.project.back_end.models.AuditLog;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Entity listener that audits writes to Patient, Doctor and Appointment with only the columns
+// that changed. The column values of each loaded or saved instance are kept as an
+// AuditFields snapshot, held weakly by entity identity so a snapshot lives exactly as long as
+// its persistence context keeps the entity. An update is diffed against that snapshot, so a
+// patient's TEXT columns are only copied into an audit event when they actually changed.
+//
+// Hibernate gets this listener from Spring. The AuditLogWriter is looked up lazily, so the
+// listener stays out of the way of the persistence unit's startup and of test slices that have
+// no writer; without one nothing is audited. Events go through AuditLogWriter.record, which
+// only enqueues.
+//
+// The JPA callbacks run during the flush, before the transaction has committed. Events are held
+// with the transaction and recorded once it commits; a rollback drops them. Writes made without
+// a Spring-managed transaction are recorded straight away.
+@Component
+public class AuditChangeListener {
+
+    private static final String CATEGORY = "data_change";
+
+    private final ObjectProvider<AuditLogWriter> auditLogWriter;
+    private final Cache<Object, Object[]> snapshots = Caffeine.newBuilder().weakKeys().build();
+
+    public AuditChangeListener(ObjectProvider<AuditLogWriter> auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
+    }
+
+    @PostLoad
+    public void loaded(Object entity) {
+        AuditFields<Object> fields = fieldsFor(entity);
+        if (fields != null) {
+            snapshots.put(entity, fields.snapshot(entity));
+        }
+    }
+
+    @PostPersist
+    public void created(Object entity) {
+        AuditFields<Object> fields = fieldsFor(entity);
+        if (fields == null) {
+            return;
+        }
+        Object[] after = fields.snapshot(entity);
+        Map<String, Object> afterState = new HashMap<>();
+        fields.diff(null, after, new HashMap<>(), afterState);
+        snapshots.put(entity, after);
+        record(event(fields, entity, "CREATE", "Created", null, afterState));
+    }
+
+    @PostUpdate
+    public void updated(Object entity) {
+        AuditFields<Object> fields = fieldsFor(entity);
+        if (fields == null) {
+            return;
+        }
+        Object[] before = fields.loadedSince(snapshots.getIfPresent(entity), entity);
+        Object[] after = fields.snapshot(entity);
+        snapshots.put(entity, after);
+        Map<String, Object> beforeState = new HashMap<>();
+        Map<String, Object> afterState = new HashMap<>();
+        // Without a snapshot (never loaded through JPA) every set column is reported
+        if (fields.diff(before, after, beforeState, afterState) == 0) {
+            // Only createdAt or updatedAt moved
+            return;
+        }
+        record(event(fields, entity, "UPDATE", "Updated", before != null ? beforeState : null, afterState));
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        AuditFields<Object> fields = fieldsFor(entity);
+        if (fields == null) {
+            return;
+        }
+        snapshots.invalidate(entity);
+        AuditLog event = event(fields, entity, "DELETE", "Deleted", null, null);
+        event.setHighSeverity();
+        record(event);
+    }
+
+    private AuditFields<Object> fieldsFor(Object entity) {
+        return auditLogWriter.getIfAvailable() != null ? AuditedEntities.forEntity(entity) : null;
+    }
+
+    private void record(AuditLog event) {
+        AuditLogWriter writer = auditLogWriter.getIfAvailable();
+        if (writer == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writer.record(event);
+            return;
+        }
+        pendingEvents(writer).events.add(event);
+    }
+
+    // Looked up among the current synchronizations rather than bound as a resource, so that a
+    // REQUIRES_NEW transaction, which suspends them, gets its own.
+    private PendingEvents pendingEvents(AuditLogWriter writer) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents && ((PendingEvents) synchronization).listener == this) {
+                return (PendingEvents) synchronization;
+            }
+        }
+        PendingEvents pending = new PendingEvents(this, writer);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private static AuditLog event(AuditFields<Object> fields, Object entity, String action, String verb,
+                                  Map<String, Object> beforeState, Map<String, Object> afterState) {
+        AuditLog event = new AuditLog(fields.getEntityType() + " " + verb, performedBy(), action);
+        Long id = fields.idOf(entity);
+        event.setTargetEntity(new AuditLog.TargetEntity(fields.getEntityType(), id != null ? id.intValue() : null,
+                fields.nameOf(entity)));
+        event.setBeforeState(beforeState);
+        event.setAfterState(afterState);
+        if (event.getMetadata() == null) {
+            event.setMetadata(new AuditLog.AuditMetadata());
+            event.getMetadata().setSeverity("LOW");
+        }
+        event.getMetadata().setCategory(CATEGORY);
+        return event;
+    }
+
+    private static final class PendingEvents implements TransactionSynchronization {
+
+        private final AuditChangeListener listener;
+        private final AuditLogWriter writer;
+        private final List<AuditLog> events = new ArrayList<>();
+
+        private PendingEvents(AuditChangeListener listener, AuditLogWriter writer) {
+            this.listener = listener;
+            this.writer = writer;
+        }
+
+        @Override
+        public void afterCommit() {
+            for (AuditLog event : events) {
+                writer.record(event);
+            }
+        }
+    }
+
+    // The authenticated caller of the current request, or System for writes made outside one.
+    private static AuditLog.PerformedBy performedBy() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            AuthenticatedUser user = AuthenticatedUser.from(request);
+            if (user != null) {
+                String role = user.getRole();
+                String userType = Character.toUpperCase(role.charAt(0)) + role.substring(1);
+                return new AuditLog.PerformedBy(null, userType, user.getName(), request.getRemoteAddr());
+            }
+        }
+        return new AuditLog.PerformedBy(null, "System", "system", null);
+    }
+}
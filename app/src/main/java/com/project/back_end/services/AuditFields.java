@@ -0,0 +1,151 @@
+package com.project.back_end.services;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentCollection;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+// The audited columns of one entity type, read through getter method references rather than
+// reflection. A snapshot is the plain array of their values; diffing two snapshots is one
+// equals per column, and only columns that changed make it into beforeState and afterState.
+//
+// Values are stored as audit_logs should show them: enums by name, associations by id,
+// decimals without trailing zeros, collections copied (so a later in-place change still shows
+// up), and masked columns as a placeholder, so a password change is recorded without the hash.
+//
+// Lazy columns are only read when Hibernate has already loaded them, so taking a snapshot never
+// costs a query. A lazy column that was not loaded when the snapshot was taken is compared
+// against the state Hibernate loaded it with, if it was loaded since; one that is still not
+// loaded cannot have changed.
+public final class AuditFields<T> {
+
+    static final String MASK = "[changed]";
+
+    private static final Object NOT_LOADED = new Object();
+
+    private final String entityType;
+    private final Function<T, Long> id;
+    private final Function<T, String> name;
+    private final List<String> names = new ArrayList<>();
+    private final List<Function<T, ?>> getters = new ArrayList<>();
+    private final List<Boolean> masked = new ArrayList<>();
+    private final List<Boolean> lazy = new ArrayList<>();
+
+    private AuditFields(String entityType, Function<T, Long> id, Function<T, String> name) {
+        this.entityType = entityType;
+        this.id = id;
+        this.name = name;
+    }
+
+    public static <T> AuditFields<T> of(String entityType, Function<T, Long> id, Function<T, String> name) {
+        return new AuditFields<>(entityType, id, name);
+    }
+
+    public AuditFields<T> field(String field, Function<T, ?> getter) {
+        names.add(field);
+        getters.add(getter);
+        masked.add(false);
+        lazy.add(false);
+        return this;
+    }
+
+    // Recorded as changed or not, never with its value.
+    public AuditFields<T> masked(String field, Function<T, ?> getter) {
+        field(field, getter);
+        masked.set(masked.size() - 1, true);
+        return this;
+    }
+
+    // For lazily fetched associations and element collections.
+    public AuditFields<T> lazy(String field, Function<T, ?> getter) {
+        field(field, getter);
+        lazy.set(lazy.size() - 1, true);
+        return this;
+    }
+
+    public Object[] snapshot(T entity) {
+        Object[] values = new Object[getters.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = getters.get(i).apply(entity);
+            values[i] = lazy.get(i) && !Hibernate.isInitialized(value) ? NOT_LOADED : normalize(value);
+        }
+        return values;
+    }
+
+    // The before snapshot to diff entity against: lazy columns that were not loaded when it was
+    // taken get the state Hibernate loaded them with since, where Hibernate still has it.
+    public Object[] loadedSince(Object[] before, T entity) {
+        if (before == null) {
+            return null;
+        }
+        Object[] values = before;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != NOT_LOADED) {
+                continue;
+            }
+            Object value = getters.get(i).apply(entity);
+            if (value instanceof PersistentCollection<?> && Hibernate.isInitialized(value)) {
+                Object loaded = ((PersistentCollection<?>) value).getStoredSnapshot();
+                if (values == before) {
+                    values = before.clone();
+                }
+                values[i] = normalize(loaded instanceof Map<?, ?> ? ((Map<?, ?>) loaded).values() : loaded);
+            }
+        }
+        return values;
+    }
+
+    // Adds each column that differs to before and after. Returns how many differed; a null
+    // before snapshot counts every non-null column as changed, as for a newly created row.
+    public int diff(Object[] before, Object[] after, Map<String, Object> beforeState, Map<String, Object> afterState) {
+        int changed = 0;
+        for (int i = 0; i < after.length; i++) {
+            Object old = before != null ? before[i] : null;
+            if (after[i] == NOT_LOADED || Objects.equals(old, after[i])) {
+                continue;
+            }
+            changed++;
+            if (before != null && old != NOT_LOADED) {
+                beforeState.put(names.get(i), masked.get(i) ? MASK : old);
+            }
+            afterState.put(names.get(i), masked.get(i) ? MASK : after[i]);
+        }
+        return changed;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long idOf(T entity) {
+        return id.apply(entity);
+    }
+
+    public String nameOf(T entity) {
+        return name.apply(entity);
+    }
+
+    public List<String> getFieldNames() {
+        return names;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            // 150.0 from a form and 150.00 from the column are the same fee
+            return ((BigDecimal) value).stripTrailingZeros();
+        }
+        if (value instanceof Enum<?>) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Collection<?>) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,265 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Writes audit_logs off the request path. record() only puts the event into an
+// AuditRingBuffer; a single writer thread drains it and inserts what it finds with one
+// unordered bulk insert per batch, as soon as audit.batch-size events are waiting or the oldest has
+// waited audit.linger-ms.
+//
+// When the buffer is full, audit.backpressure decides what happens to the caller:
+// - block: wait for room, up to audit.offer-timeout-ms, then drop the event
+// - drop-low-severity: drop the event unless it is HIGH or CRITICAL, which wait as for block
+// - spill: append the event to the local AuditSpillLog and return
+// Events whose insert fails are spilled whatever the policy, so Mongo outages lose nothing.
+// When Mongo reports which documents of a batch it rejected, only those are spilled and the
+// rest count as written; any other failure spills the whole batch.
+// Whenever the buffer runs dry the writer thread replays the spill log, one batch at a time,
+// backing off for audit.spill.retry-ms after a failure. Events get their _id in record() so
+// that a replayed event can never end up in audit_logs twice.
+//
+// Once events are in audit_logs they are handed, on the writer thread, to the onWritten
+// handler (AuditRollups), each event once however many times its batch was replayed.
+@Service
+public class AuditLogWriter {
+
+    public enum Backpressure {
+        BLOCK,
+        DROP_LOW_SEVERITY,
+        SPILL
+    }
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long OFFER_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Consumer<List<AuditLog>> NO_HANDLER = events -> { };
+
+    private final MongoOperations mongoOperations;
+    private final AuditRingBuffer<AuditLog> buffer;
+    private final AuditSpillLog spillLog;
+    private final AuditSpillReplayer replayer;
+    private final Backpressure backpressure;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutNanos;
+    private final long replayRetryNanos;
+    private final Thread writerThread;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter failedBatches;
+    private final Counter replayed;
+    private final Counter handlerFailures;
+    private final Timer flushLatency;
+    private volatile Consumer<List<AuditLog>> writtenHandler = NO_HANDLER;
+    private volatile boolean running = true;
+
+    public AuditLogWriter(MongoOperations mongoOperations,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${audit.buffer-capacity:8192}") int capacity,
+                          @Value("${audit.batch-size:500}") int batchSize,
+                          @Value("${audit.linger-ms:50}") long lingerMillis,
+                          @Value("${audit.backpressure:block}") String backpressure,
+                          @Value("${audit.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                          @Value("${audit.spill.dir:audit-spill}") String spillDirectory,
+                          @Value("${audit.spill.segment-bytes:67108864}") int segmentBytes,
+                          @Value("${audit.spill.fsync:true}") boolean fsync,
+                          @Value("${audit.spill.retry-ms:5000}") long replayRetryMillis) {
+        this.mongoOperations = mongoOperations;
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.spillLog = new AuditSpillLog(objectMapper, Paths.get(spillDirectory), segmentBytes, fsync);
+        this.replayer = new AuditSpillReplayer(mongoOperations, spillLog);
+        this.backpressure = Backpressure.valueOf(backpressure.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.replayRetryNanos = TimeUnit.MILLISECONDS.toNanos(replayRetryMillis);
+        this.written = meterRegistry.counter("audit.events.written");
+        this.dropped = meterRegistry.counter("audit.events.dropped");
+        this.spilled = meterRegistry.counter("audit.events.spilled");
+        this.failedBatches = meterRegistry.counter("audit.batches.failed");
+        this.replayed = meterRegistry.counter("audit.events.replayed");
+        this.handlerFailures = meterRegistry.counter("audit.written.handler.failures");
+        this.flushLatency = meterRegistry.timer("audit.flush.latency");
+        meterRegistry.gauge("audit.queue.depth", buffer, AuditRingBuffer::size);
+        this.writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // The only cost on the request path. Returns false when the event was dropped.
+    public boolean record(AuditLog event) {
+        if (event.getId() == null) {
+            event.setId(new ObjectId().toHexString());
+        }
+        if (buffer.offer(event)) {
+            return true;
+        }
+        switch (backpressure) {
+            case SPILL:
+                spillLog.append(List.of(event));
+                spilled.increment();
+                return true;
+            case DROP_LOW_SEVERITY:
+                if (!event.isHighRiskEvent()) {
+                    dropped.increment();
+                    return false;
+                }
+                return offerWithin(event, offerTimeoutNanos);
+            default:
+                return offerWithin(event, offerTimeoutNanos);
+        }
+    }
+
+    // Called on the writer thread with each group of events that has just been stored. A handler
+    // that throws loses that call, never the events.
+    public synchronized void onWritten(Consumer<List<AuditLog>> handler) {
+        if (writtenHandler != NO_HANDLER) {
+            throw new IllegalStateException("A handler for written audit events is already registered");
+        }
+        writtenHandler = handler;
+    }
+
+    public int queueDepth() {
+        return buffer.size();
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    // Writes out everything buffered so far; events recorded afterwards are not written.
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spillLog.close();
+    }
+
+    private boolean offerWithin(AuditLog event, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(OFFER_RETRY_NANOS);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long oldest = 0;
+        long nextReplay = System.nanoTime();
+        while (running || !buffer.isEmpty()) {
+            int before = batch.size();
+            buffer.drainTo(batch, batchSize - batch.size());
+            if (before == 0 && !batch.isEmpty()) {
+                oldest = System.nanoTime();
+            }
+            if (batch.size() >= batchSize || (!batch.isEmpty() && System.nanoTime() - oldest >= lingerNanos)) {
+                flush(batch);
+            } else if (batch.size() == before) {
+                if (batch.isEmpty() && running && System.nanoTime() - nextReplay >= 0 && replayer.hasPending()) {
+                    nextReplay = replay();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        long started = System.nanoTime();
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class).insert(batch).execute();
+            written.increment(batch.size());
+            notifyWritten(new ArrayList<>(batch));
+        } catch (BulkOperationException e) {
+            failedBatches.increment();
+            List<AuditLog> inserted = new ArrayList<>(batch);
+            List<AuditLog> failed = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                AuditLog event = batch.get(error.getIndex());
+                inserted.set(error.getIndex(), null);
+                // A duplicate _id means the event is already stored
+                if (error.getCode() != DUPLICATE_KEY) {
+                    failed.add(event);
+                }
+            }
+            inserted.removeIf(event -> event == null);
+            written.increment(inserted.size());
+            notifyWritten(inserted);
+            spill(failed);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            spill(batch);
+        } finally {
+            flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private void spill(List<AuditLog> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            spillLog.append(events);
+            spilled.increment(events.size());
+        } catch (RuntimeException spillFailure) {
+            dropped.increment(events.size());
+        }
+    }
+
+    // Returns when the next replay may run.
+    private long replay() {
+        try {
+            replayed.increment(replayer.replayBatch(batchSize, this::notifyWritten));
+            return System.nanoTime();
+        } catch (RuntimeException e) {
+            return System.nanoTime() + replayRetryNanos;
+        }
+    }
+
+    private void notifyWritten(List<AuditLog> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            writtenHandler.accept(events);
+        } catch (RuntimeException e) {
+            handlerFailures.increment();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.AuditLog;
+import com.project.back_end.models.AuditRollup;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Read side of audit_logs for compliance reviews.
+//
+// "How many of what, between when and when" is answered from AuditRollups: whole days in the
+// range from the daily rollups, the hours before the first and after the last whole day from
+// the hourly ones, so a year costs about 365 small documents per key instead of a scan of
+// every event. Drill-down goes to audit_logs itself through a streamed cursor, newest first,
+// on one of the compound indexes created at startup: each puts the equality fields a review
+// filters on before timestamp, so the range and the sort are both served by the index.
+@Service
+public class AuditQueryService {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private final MongoOperations mongoOperations;
+    private final AuditRollups auditRollups;
+
+    public AuditQueryService(MongoOperations mongoOperations, AuditRollups auditRollups) {
+        this.mongoOperations = mongoOperations;
+        this.auditRollups = auditRollups;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations auditLogs = mongoOperations.indexOps(AuditLog.class);
+        auditLogs.ensureIndex(new Index().named("performedBy_userId_timestamp")
+                .on("performedBy.userId", Sort.Direction.ASC).on("timestamp", Sort.Direction.DESC));
+        auditLogs.ensureIndex(new Index().named("targetEntity_timestamp")
+                .on("targetEntity.entityType", Sort.Direction.ASC).on("targetEntity.entityId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.DESC));
+        auditLogs.ensureIndex(new Index().named("metadata_severity_timestamp")
+                .on("metadata.severity", Sort.Direction.ASC).on("timestamp", Sort.Direction.DESC));
+        auditLogs.ensureIndex(new Index().named("timestamp").on("timestamp", Sort.Direction.DESC));
+        for (AuditRollups.Granularity granularity : AuditRollups.Granularity.values()) {
+            mongoOperations.indexOps(granularity.getCollection())
+                    .ensureIndex(new Index().named("bucket").on("bucket", Sort.Direction.ASC));
+        }
+    }
+
+    // Event counts per event type, category and severity for [from, to), largest first. The
+    // range is widened to whole hours; each result carries the widened start as its bucket.
+    public List<AuditRollup> totals(LocalDateTime from, LocalDateTime to) {
+        Map<String, AuditRollup> totals = new LinkedHashMap<>();
+        List<Span> spans = plan(from, to);
+        LocalDateTime start = spans.isEmpty() ? from : spans.get(0).getFrom();
+        for (Span span : spans) {
+            for (AuditRollup rollup : auditRollups.find(span.getGranularity(), span.getFrom(), span.getTo())) {
+                String key = rollup.getEventType() + "|" + rollup.getCategory() + "|" + rollup.getSeverity();
+                AuditRollup total = totals.computeIfAbsent(key, k ->
+                        new AuditRollup(start, rollup.getEventType(), rollup.getCategory(), rollup.getSeverity(), 0));
+                total.setCount(total.getCount() + rollup.getCount());
+            }
+        }
+        List<AuditRollup> result = new ArrayList<>(totals.values());
+        result.sort(Comparator.comparingLong(AuditRollup::getCount).reversed());
+        return result;
+    }
+
+    // The hourly or daily counts themselves, e.g. for a chart.
+    public List<AuditRollup> series(AuditRollups.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return auditRollups.find(granularity, granularity.bucketOf(from), to);
+    }
+
+    // Matching events, newest first, fetched from Mongo a batch at a time as the stream is
+    // consumed. The caller must close the stream.
+    public Stream<AuditLog> events(Filter filter) {
+        Query query = new Query();
+        if (filter.userId != null) {
+            query.addCriteria(Criteria.where("performedBy.userId").is(filter.userId));
+        }
+        if (filter.entityType != null) {
+            query.addCriteria(Criteria.where("targetEntity.entityType").is(filter.entityType));
+        }
+        if (filter.entityId != null) {
+            query.addCriteria(Criteria.where("targetEntity.entityId").is(filter.entityId));
+        }
+        if (filter.severity != null) {
+            query.addCriteria(Criteria.where("metadata.severity").is(filter.severity));
+        }
+        if (filter.eventType != null) {
+            query.addCriteria(Criteria.where("eventType").is(filter.eventType));
+        }
+        if (filter.from != null || filter.to != null) {
+            Criteria timestamp = Criteria.where("timestamp");
+            if (filter.from != null) {
+                timestamp.gte(filter.from);
+            }
+            if (filter.to != null) {
+                timestamp.lt(filter.to);
+            }
+            query.addCriteria(timestamp);
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "timestamp")).cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoOperations.stream(query, AuditLog.class);
+    }
+
+    // Splits [from, to), widened to whole hours, into the fewest rollup ranges: whole days
+    // from the daily rollups and the ragged ends from the hourly ones.
+    static List<Span> plan(LocalDateTime from, LocalDateTime to) {
+        AuditRollups.Granularity hourly = AuditRollups.Granularity.HOURLY;
+        AuditRollups.Granularity daily = AuditRollups.Granularity.DAILY;
+        LocalDateTime start = hourly.bucketOf(from);
+        LocalDateTime end = hourly.bucketOf(to).equals(to) ? to : hourly.next(hourly.bucketOf(to));
+        List<Span> spans = new ArrayList<>();
+        if (!start.isBefore(end)) {
+            return spans;
+        }
+        LocalDateTime firstDay = daily.bucketOf(start).equals(start) ? start : daily.next(daily.bucketOf(start));
+        LocalDateTime lastDay = daily.bucketOf(end);
+        if (!firstDay.isBefore(lastDay)) {
+            spans.add(new Span(hourly, start, end));
+            return spans;
+        }
+        if (start.isBefore(firstDay)) {
+            spans.add(new Span(hourly, start, firstDay));
+        }
+        spans.add(new Span(daily, firstDay, lastDay));
+        if (lastDay.isBefore(end)) {
+            spans.add(new Span(hourly, lastDay, end));
+        }
+        return spans;
+    }
+
+    // Drill-down criteria; fields left null do not filter.
+    public static class Filter {
+
+        private Integer userId;
+        private String entityType;
+        private Integer entityId;
+        private String severity;
+        private String eventType;
+        private LocalDateTime from;
+        private LocalDateTime to;
+
+        public Filter userId(Integer userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public Filter entity(String entityType, Integer entityId) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+            return this;
+        }
+
+        public Filter severity(String severity) {
+            this.severity = severity;
+            return this;
+        }
+
+        public Filter eventType(String eventType) {
+            this.eventType = eventType;
+            return this;
+        }
+
+        public Filter between(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+    }
+
+    static final class Span {
+
+        private final AuditRollups.Granularity granularity;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        Span(AuditRollups.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+            this.granularity = granularity;
+            this.from = from;
+            this.to = to;
+        }
+
+        AuditRollups.Granularity getGranularity() {
+            return granularity;
+        }
+
+        LocalDateTime getFrom() {
+            return from;
+        }
+
+        LocalDateTime getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return granularity + " " + from + ".." + to;
+        }
+    }
+}
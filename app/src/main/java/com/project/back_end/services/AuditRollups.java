@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.AuditLog;
+import com.project.back_end.models.AuditRollup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Hourly and daily counts of audit_logs events per event type, category and severity, kept in
+// audit_rollups_hourly and audit_rollups_daily. The AuditLogWriter hands over every group of
+// events once it is stored; they are tallied in memory and applied as one unordered bulk of
+// $inc upserts per collection, so a batch of 500 events usually touches a handful of documents.
+//
+// Counts are exact while Mongo is healthy. An insert that fails part way, or a rollup update
+// that fails after its events were stored, can leave a bucket off by the events involved;
+// rebuild() recounts whole days from audit_logs.
+@Service
+public class AuditRollups {
+
+    public enum Granularity {
+        HOURLY("audit_rollups_hourly", ChronoUnit.HOURS),
+        DAILY("audit_rollups_daily", ChronoUnit.DAYS);
+
+        private final String collection;
+        private final ChronoUnit unit;
+
+        Granularity(String collection, ChronoUnit unit) {
+            this.collection = collection;
+            this.unit = unit;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public LocalDateTime bucketOf(LocalDateTime timestamp) {
+            return timestamp.truncatedTo(unit);
+        }
+
+        public LocalDateTime next(LocalDateTime bucket) {
+            return bucket.plus(1, unit);
+        }
+    }
+
+    private static final int REBUILD_CURSOR_BATCH = 1000;
+
+    private final MongoOperations mongoOperations;
+
+    public AuditRollups(MongoOperations mongoOperations, AuditLogWriter auditLogWriter) {
+        this.mongoOperations = mongoOperations;
+        auditLogWriter.onWritten(this::add);
+    }
+
+    // Counts events that have just been stored in audit_logs.
+    public void add(List<AuditLog> events) {
+        for (Granularity granularity : Granularity.values()) {
+            Map<String, AuditRollup> tally = new LinkedHashMap<>();
+            tally(events, granularity, tally);
+            if (tally.isEmpty()) {
+                continue;
+            }
+            BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditRollup.class,
+                    granularity.getCollection());
+            for (AuditRollup rollup : tally.values()) {
+                bulk.upsert(Query.query(Criteria.where("_id").is(rollup.getId())), new Update()
+                        .setOnInsert("bucket", rollup.getBucket())
+                        .setOnInsert("eventType", rollup.getEventType())
+                        .setOnInsert("category", rollup.getCategory())
+                        .setOnInsert("severity", rollup.getSeverity())
+                        .inc("count", rollup.getCount()));
+            }
+            bulk.execute();
+        }
+    }
+
+    // The rollups whose bucket starts in [from, to), oldest first.
+    public List<AuditRollup> find(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        Query query = Query.query(Criteria.where("bucket").gte(from).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "bucket"));
+        return mongoOperations.find(query, AuditRollup.class, granularity.getCollection());
+    }
+
+    // Recounts the days [from, to) from audit_logs and replaces their hourly and daily rollups.
+    // Meant for days that are no longer written to, e.g. after replaying an old spill log;
+    // events stored for those days while it runs may be counted twice or not at all. Returns
+    // the number of events counted.
+    public long rebuild(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+        Query query = Query.query(Criteria.where("timestamp").gte(start).lt(end)).cursorBatchSize(REBUILD_CURSOR_BATCH);
+        query.fields().include("timestamp", "eventType", "metadata.category", "metadata.severity");
+
+        Map<String, AuditRollup> hourly = new LinkedHashMap<>();
+        Map<String, AuditRollup> daily = new LinkedHashMap<>();
+        long counted = 0;
+        try (Stream<AuditLog> events = mongoOperations.stream(query, AuditLog.class)) {
+            for (AuditLog event : (Iterable<AuditLog>) events::iterator) {
+                count(event, Granularity.HOURLY, hourly);
+                count(event, Granularity.DAILY, daily);
+                counted++;
+            }
+        }
+
+        replace(Granularity.HOURLY, start, end, hourly.values());
+        replace(Granularity.DAILY, start, end, daily.values());
+        return counted;
+    }
+
+    // Adds events into tally, keyed as the _id of their rollup document.
+    static void tally(Collection<AuditLog> events, Granularity granularity, Map<String, AuditRollup> tally) {
+        for (AuditLog event : events) {
+            count(event, granularity, tally);
+        }
+    }
+
+    private static void count(AuditLog event, Granularity granularity, Map<String, AuditRollup> tally) {
+        if (event.getTimestamp() == null) {
+            return;
+        }
+        LocalDateTime bucket = granularity.bucketOf(event.getTimestamp());
+        AuditLog.AuditMetadata metadata = event.getMetadata();
+        String category = metadata != null ? metadata.getCategory() : null;
+        String severity = metadata != null ? metadata.getSeverity() : null;
+        String id = bucket + "|" + Objects.toString(event.getEventType(), "") + "|"
+                + Objects.toString(category, "") + "|" + Objects.toString(severity, "");
+        AuditRollup rollup = tally.get(id);
+        if (rollup == null) {
+            rollup = new AuditRollup(bucket, event.getEventType(), category, severity, 0);
+            rollup.setId(id);
+            tally.put(id, rollup);
+        }
+        rollup.setCount(rollup.getCount() + 1);
+    }
+
+    private void replace(Granularity granularity, LocalDateTime start, LocalDateTime end, Collection<AuditRollup> rollups) {
+        mongoOperations.remove(Query.query(Criteria.where("bucket").gte(start).lt(end)), granularity.getCollection());
+        if (!rollups.isEmpty()) {
+            mongoOperations.insert(new ArrayList<>(rollups), granularity.getCollection());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.project.back_end.models.AuditLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Durable append-only log for audit events that could not go to MongoDB straight away. The log
+// is a series of fixed-size, memory-mapped segment files; each record is
+//
+//     int length | int crc32(payload) | payload (the event as JSON)
+//
+// and a zero length marks the end of what was written. The length is stored last, so a process
+// killed mid-append leaves either a whole record or one whose length is still zero or whose
+// checksum fails; opening the log cuts the last segment back to its final whole record. Stores
+// into a mapping survive the process being killed; with fsync on they are forced to disk
+// before append returns, so they also survive the machine going down.
+//
+// Replay position is a (segment, offset) checkpoint in a side file, replaced atomically after
+// each replayed batch. A crash between writing a batch to Mongo and saving the checkpoint
+// replays that batch again, which is why every spilled event carries its _id.
+public class AuditSpillLog implements AutoCloseable {
+
+    private static final String PREFIX = "audit-spill-";
+    private static final String SUFFIX = ".wal";
+    private static final String CHECKPOINT = "audit-spill.checkpoint";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final int segmentBytes;
+    private final boolean fsync;
+    // Everything below is guarded by this
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final Map<Long, MappedByteBuffer> readMappings = new TreeMap<>();
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private int readOffset;
+
+    public AuditSpillLog(ObjectMapper objectMapper, Path directory, int segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.writer = objectMapper.writerFor(AuditLog.class);
+        this.reader = objectMapper.readerFor(AuditLog.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the audit spill log in " + directory, e);
+        }
+    }
+
+    // Events must already have their _id.
+    public synchronized void append(List<AuditLog> events) {
+        try {
+            for (AuditLog event : events) {
+                byte[] payload = writer.writeValueAsBytes(event);
+                int needed = HEADER_BYTES + payload.length;
+                if (writeBuffer.remaining() < needed) {
+                    roll(needed);
+                }
+                int position = writeBuffer.position();
+                writeBuffer.put(position + HEADER_BYTES, payload);
+                writeBuffer.putInt(position + 4, checksum(payload, 0, payload.length));
+                writeBuffer.putInt(position, payload.length);
+                writeBuffer.position(position + needed);
+            }
+            if (fsync) {
+                writeBuffer.force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill audit events to " + directory, e);
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return readSegment < writeSegment || readOffset < writeBuffer.position();
+    }
+
+    // Reads up to max events from the replay position without moving it; pass the result to
+    // commit once the events are safely in Mongo.
+    public synchronized Batch read(int max) {
+        List<AuditLog> events = new ArrayList<>();
+        long segment = readSegment;
+        int offset = readOffset;
+        try {
+            while (events.size() < max) {
+                MappedByteBuffer buffer = mappingFor(segment);
+                int length = buffer.capacity() - offset >= HEADER_BYTES ? buffer.getInt(offset) : 0;
+                if (length <= 0 || length > buffer.capacity() - offset - HEADER_BYTES
+                        || checksum(buffer, offset + HEADER_BYTES, length) != buffer.getInt(offset + 4)) {
+                    // End of this segment; the active one is only ever ended by the write position
+                    Long next = segments.higherKey(segment);
+                    if (segment == writeSegment || next == null) {
+                        break;
+                    }
+                    segment = next;
+                    offset = 0;
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                events.add(reader.readValue(payload));
+                offset += HEADER_BYTES + length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the audit spill log in " + directory, e);
+        }
+        return new Batch(events, segment, offset);
+    }
+
+    // Moves the replay position past a batch and deletes the segments it finished.
+    public synchronized void commit(Batch batch) {
+        if (batch.segment == readSegment && batch.offset == readOffset) {
+            return;
+        }
+        try {
+            Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+            Files.write(temporary, (batch.segment + " " + batch.offset).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            readSegment = batch.segment;
+            readOffset = batch.offset;
+            deleteBefore(readSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the audit spill checkpoint in " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writeBuffer != null && fsync) {
+            writeBuffer.force();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                }
+            });
+        }
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            String[] parts = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim().split(" ");
+            readSegment = Long.parseLong(parts[0]);
+            readOffset = Integer.parseInt(parts[1]);
+        }
+        if (segments.isEmpty() || segments.lastKey() < readSegment) {
+            // Nothing left to replay
+            for (Path file : segments.values()) {
+                Files.deleteIfExists(file);
+            }
+            segments.clear();
+            readOffset = 0;
+            writeSegment = readSegment;
+            writeBuffer = map(createSegment(writeSegment, segmentBytes));
+            return;
+        }
+        if (segments.firstKey() > readSegment) {
+            readSegment = segments.firstKey();
+            readOffset = 0;
+        }
+        writeSegment = segments.lastKey();
+        // Left behind by a crash between saving the checkpoint and deleting
+        deleteBefore(readSegment);
+        writeBuffer = map(segments.get(writeSegment));
+        writeBuffer.position(recover(writeBuffer));
+    }
+
+    // Finds the end of the last whole record and clears whatever a torn append left after it.
+    private int recover(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (buffer.capacity() - offset >= HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_BYTES
+                    || checksum(buffer, offset + HEADER_BYTES, length) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        for (int i = offset; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                for (int j = offset; j < buffer.capacity(); j++) {
+                    buffer.put(j, (byte) 0);
+                }
+                buffer.force();
+                break;
+            }
+        }
+        return offset;
+    }
+
+    private void roll(int needed) throws IOException {
+        if (fsync) {
+            writeBuffer.force();
+        }
+        writeSegment++;
+        writeBuffer = map(createSegment(writeSegment, Math.max(segmentBytes, needed)));
+    }
+
+    private Path createSegment(long segment, int size) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end extends the file with zeros
+            channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segments.put(segment, file);
+        return file;
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+    }
+
+    private MappedByteBuffer mappingFor(long segment) throws IOException {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        MappedByteBuffer mapping = readMappings.get(segment);
+        if (mapping == null) {
+            try (FileChannel channel = FileChannel.open(segments.get(segment), StandardOpenOption.READ)) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            readMappings.put(segment, mapping);
+        }
+        return mapping;
+    }
+
+    private void deleteBefore(long segment) throws IOException {
+        while (!segments.isEmpty() && segments.firstKey() < segment && segments.firstKey() != writeSegment) {
+            Map.Entry<Long, Path> first = segments.pollFirstEntry();
+            readMappings.remove(first.getKey());
+            Files.deleteIfExists(first.getValue());
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    public static final class Batch {
+
+        private final List<AuditLog> events;
+        private final long segment;
+        private final int offset;
+
+        private Batch(List<AuditLog> events, long segment, int offset) {
+            this.events = events;
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        public List<AuditLog> getEvents() {
+            return events;
+        }
+
+        public boolean isEmpty() {
+            return events.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.back_end.services;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.project.back_end.models.AuditLog;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Drains an AuditSpillLog back into audit_logs, oldest first. Each batch is one ordered bulk
+// write of upserts by _id, so replaying a batch a second time (after a crash before its
+// checkpoint was saved) leaves the collection as it was rather than duplicating events. Only
+// the upserts that inserted a document are reported as newly written.
+public class AuditSpillReplayer {
+
+    private final MongoOperations mongoOperations;
+    private final AuditSpillLog spillLog;
+
+    public AuditSpillReplayer(MongoOperations mongoOperations, AuditSpillLog spillLog) {
+        this.mongoOperations = mongoOperations;
+        this.spillLog = spillLog;
+    }
+
+    // Replays up to max events. Returns how many were written; throws if Mongo refused the
+    // batch, in which case the replay position stays where it was.
+    public int replayBatch(int max) {
+        return replayBatch(max, events -> { });
+    }
+
+    // As replayBatch(max), passing the events that were not yet in audit_logs to newlyWritten
+    // once the batch is committed.
+    public int replayBatch(int max, Consumer<List<AuditLog>> newlyWritten) {
+        AuditSpillLog.Batch batch = spillLog.read(max);
+        List<AuditLog> inserted = new ArrayList<>();
+        if (!batch.isEmpty()) {
+            BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.ORDERED, AuditLog.class);
+            for (AuditLog event : batch.getEvents()) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(event.getId())), event,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            BulkWriteResult result = bulk.execute();
+            if (result != null) {
+                for (BulkWriteUpsert upsert : result.getUpserts()) {
+                    inserted.add(batch.getEvents().get(upsert.getIndex()));
+                }
+            }
+        }
+        // Also moves past exhausted segments when the batch is empty
+        spillLog.commit(batch);
+        newlyWritten.accept(inserted);
+        return batch.getEvents().size();
+    }
+
+    public boolean hasPending() {
+        return spillLog.hasPending();
+    }
+}
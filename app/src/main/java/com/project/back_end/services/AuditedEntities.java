@@ -0,0 +1,95 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+
+// The column tables AuditChangeListener diffs, one per audited entity. A new column is only
+// audited once it is listed here. createdAt and updatedAt are left out: they change on every
+// write and the audit event carries its own timestamp.
+public final class AuditedEntities {
+
+    public static final AuditFields<Patient> PATIENT = AuditFields.<Patient>of("Patient", Patient::getId, Patient::getFullName)
+            .field("firstName", Patient::getFirstName)
+            .field("lastName", Patient::getLastName)
+            .field("email", Patient::getEmail)
+            .masked("password", Patient::getPassword)
+            .field("phone", Patient::getPhone)
+            .field("dateOfBirth", Patient::getDateOfBirth)
+            .field("gender", Patient::getGender)
+            .field("address", Patient::getAddress)
+            .field("emergencyContactName", Patient::getEmergencyContactName)
+            .field("emergencyContactPhone", Patient::getEmergencyContactPhone)
+            .field("medicalHistory", Patient::getMedicalHistory)
+            .field("allergies", Patient::getAllergies)
+            .field("insuranceProvider", Patient::getInsuranceProvider)
+            .field("insurancePolicyNumber", Patient::getInsurancePolicyNumber)
+            .field("emailVerified", Patient::getEmailVerified)
+            .field("lastLogin", Patient::getLastLogin)
+            .field("failedLoginAttempts", Patient::getFailedLoginAttempts)
+            .field("accountLockedUntil", Patient::getAccountLockedUntil)
+            .masked("passwordResetToken", Patient::getPasswordResetToken)
+            .field("passwordResetExpires", Patient::getPasswordResetExpires)
+            .field("isActive", Patient::getIsActive);
+
+    public static final AuditFields<Doctor> DOCTOR = AuditFields.<Doctor>of("Doctor", Doctor::getId, Doctor::getFullName)
+            .field("username", Doctor::getUsername)
+            .field("firstName", Doctor::getFirstName)
+            .field("lastName", Doctor::getLastName)
+            .field("email", Doctor::getEmail)
+            .masked("password", Doctor::getPassword)
+            .field("phone", Doctor::getPhone)
+            .field("phonePublic", Doctor::getPhonePublic)
+            .field("specialization", Doctor::getSpecialization)
+            .field("licenseNumber", Doctor::getLicenseNumber)
+            .field("yearsOfExperience", Doctor::getYearsOfExperience)
+            .field("education", Doctor::getEducation)
+            .field("consultationFee", Doctor::getConsultationFee)
+            .field("bio", Doctor::getBio)
+            .field("profileImageUrl", Doctor::getProfileImageUrl)
+            .field("isAvailable", Doctor::getIsAvailable)
+            .field("isPublic", Doctor::getIsPublic)
+            .field("lastLogin", Doctor::getLastLogin)
+            .field("sessionTimeoutMinutes", Doctor::getSessionTimeoutMinutes)
+            .lazy("availableTimes", Doctor::getAvailableTimes)
+            .field("clinicLocationId", d -> d.getClinicLocation() != null ? d.getClinicLocation().getId() : null)
+            .field("createdById", d -> d.getCreatedBy() != null ? d.getCreatedBy().getId() : null);
+
+    public static final AuditFields<Appointment> APPOINTMENT = AuditFields.<Appointment>of("Appointment", Appointment::getId,
+                    a -> a.getAppointmentDate() + " " + a.getAppointmentTime())
+            .field("doctorId", a -> a.getDoctor() != null ? a.getDoctor().getId() : null)
+            .field("patientId", a -> a.getPatient() != null ? a.getPatient().getId() : null)
+            .field("clinicLocationId", a -> a.getClinicLocation() != null ? a.getClinicLocation().getId() : null)
+            .field("appointmentDate", Appointment::getAppointmentDate)
+            .field("appointmentTime", Appointment::getAppointmentTime)
+            .field("durationMinutes", Appointment::getDurationMinutes)
+            .field("status", Appointment::getStatus)
+            .field("appointmentType", Appointment::getAppointmentType)
+            .field("chiefComplaint", Appointment::getChiefComplaint)
+            .field("preparationInstructions", Appointment::getPreparationInstructions)
+            .field("notes", Appointment::getNotes)
+            .field("diagnosis", Appointment::getDiagnosis)
+            .field("bookedBy", Appointment::getBookedBy)
+            .field("confirmationSent", Appointment::getConfirmationSent)
+            .field("reminderSent", Appointment::getReminderSent)
+            .field("cancelledAt", Appointment::getCancelledAt)
+            .field("cancellationReason", Appointment::getCancellationReason);
+
+    private AuditedEntities() {
+    }
+
+    // Null for entities that are not audited.
+    @SuppressWarnings("unchecked")
+    public static <T> AuditFields<T> forEntity(T entity) {
+        if (entity instanceof Patient) {
+            return (AuditFields<T>) PATIENT;
+        }
+        if (entity instanceof Doctor) {
+            return (AuditFields<T>) DOCTOR;
+        }
+        if (entity instanceof Appointment) {
+            return (AuditFields<T>) APPOINTMENT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,176 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Striped locks keyed by (doctor id, appointment date). AppointmentService runs its
+// check-then-insert under the stripe for the booking, so two requests for the same doctor and
+// day are serialized in the application instead of racing into the unique constraint, while
+// bookings that hash to other stripes proceed in parallel.
+@Component
+public class BookingLockTable {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    public BookingLockTable(@Value("${booking.lock.stripes:256}") int stripeCount,
+                            @Value("${booking.lock.timeout-ms:5000}") long timeoutMillis) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public <T> T withLock(Long doctorId, LocalDate date, Supplier<T> action) {
+        Stripe stripe = stripes[indexFor(doctorId, date)];
+        stripe.acquire(timeoutNanos);
+        try {
+            return action.get();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // For updates that move an appointment: both stripes are taken in index order so two
+    // opposite moves cannot deadlock.
+    public <T> T withLocks(Long doctorId, LocalDate date, Long otherDoctorId, LocalDate otherDate, Supplier<T> action) {
+        int first = indexFor(doctorId, date);
+        int second = indexFor(otherDoctorId, otherDate);
+        if (first == second) {
+            return withLock(doctorId, date, action);
+        }
+        Stripe low = stripes[Math.min(first, second)];
+        Stripe high = stripes[Math.max(first, second)];
+        low.acquire(timeoutNanos);
+        try {
+            high.acquire(timeoutNanos);
+            try {
+                return action.get();
+            } finally {
+                high.lock.unlock();
+            }
+        } finally {
+            low.lock.unlock();
+        }
+    }
+
+    public List<StripeStats> stats() {
+        List<StripeStats> stats = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            long acquisitions = stripe.acquisitions.sum();
+            if (acquisitions > 0) {
+                stats.add(new StripeStats(i, acquisitions, stripe.contended.sum(), stripe.timeouts.sum(),
+                        stripe.totalWaitNanos.sum(), stripe.maxWaitNanos.get(),
+                        stripe.waiting.get(), stripe.maxQueueDepth.get()));
+            }
+        }
+        return stats;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    int indexFor(Long doctorId, LocalDate date) {
+        int h = Objects.hash(doctorId, date);
+        // Spread the high bits, as HashMap does, before masking
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void acquire(long timeoutNanos) {
+            if (lock.tryLock()) {
+                acquisitions.increment();
+                return;
+            }
+            int depth = waiting.incrementAndGet();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+            long started = System.nanoTime();
+            boolean acquired = false;
+            try {
+                acquired = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+                long waited = System.nanoTime() - started;
+                totalWaitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                contended.increment();
+            }
+            if (!acquired) {
+                timeouts.increment();
+                throw new IllegalStateException("Timed out waiting for booking lock");
+            }
+            acquisitions.increment();
+        }
+    }
+
+    public static class StripeStats {
+
+        private final int stripe;
+        private final long acquisitions;
+        private final long contended;
+        private final long timeouts;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+
+        public StripeStats(int stripe, long acquisitions, long contended, long timeouts,
+                           long totalWaitNanos, long maxWaitNanos, int queueDepth, int maxQueueDepth) {
+            this.stripe = stripe;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.timeouts = timeouts;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+        }
+
+        public int getStripe() { return stripe; }
+
+        public long getAcquisitions() { return acquisitions; }
+
+        public long getContended() { return contended; }
+
+        public long getTimeouts() { return timeouts; }
+
+        public double getAverageWaitMicros() {
+            return contended == 0 ? 0 : totalWaitNanos / 1000.0 / contended;
+        }
+
+        public double getMaxWaitMicros() { return maxWaitNanos / 1000.0; }
+
+        public int getQueueDepth() { return queueDepth; }
+
+        public int getMaxQueueDepth() { return maxQueueDepth; }
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// A text template with {{name}} placeholders, parsed once into alternating literal segments and
+// placeholder names so rendering is a straight walk that appends into the caller's
+// StringBuilder. Placeholders without a value render as nothing; a "{{" with no closing "}}"
+// is kept as literal text.
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // literals.length == names.length + 1: literal, name, literal, name, ..., literal
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int position = 0;
+        StringBuilder literal = new StringBuilder();
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literal.append(source, position, source.length());
+                break;
+            }
+            literal.append(source, position, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            names.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+        literals.add(literal.toString());
+        return new CompiledTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    // The placeholder names in order of appearance, repeats included.
+    public List<String> getPlaceholders() {
+        return List.of(names);
+    }
+
+    // The rendered length when every placeholder is empty; a sizing hint for the output buffer.
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    public StringBuilder render(StringBuilder out, Map<String, ?> values) {
+        out.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            Object value = values.get(names[i]);
+            if (value != null) {
+                out.append(value);
+            }
+            out.append(literals[i + 1]);
+        }
+        return out;
+    }
+
+    public String render(Map<String, ?> values) {
+        return render(new StringBuilder(literalLength + 16 * names.length), values).toString();
+    }
+}
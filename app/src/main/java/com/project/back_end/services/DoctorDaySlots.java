@@ -0,0 +1,172 @@
+package com.project.back_end.services;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Slot bitmap for one doctor on one date. Each availability window keeps a
+// BitSet with one bit per slot; a set bit means the slot can still be booked.
+public class DoctorDaySlots {
+
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final List<Window> windows = new ArrayList<>();
+    private final Map<Long, int[]> bookings = new HashMap<>();
+
+    public synchronized void addWindow(int startMinute, int endMinute, int slotMinutes) {
+        if (slotMinutes <= 0 || endMinute - startMinute < slotMinutes) {
+            return;
+        }
+        windows.add(new Window(startMinute, slotMinutes, (endMinute - startMinute) / slotMinutes));
+    }
+
+    // Masks out slots overlapping [fromMinute, toMinute), e.g. a DoctorUnavailability range.
+    public synchronized void block(int fromMinute, int toMinute) {
+        for (Window window : windows) {
+            window.block(fromMinute, toMinute);
+        }
+    }
+
+    // Idempotent per appointment id, so replaying a booking that is already loaded is harmless.
+    public synchronized boolean book(Long appointmentId, int fromMinute, int toMinute) {
+        if (appointmentId != null && bookings.putIfAbsent(appointmentId, new int[]{fromMinute, toMinute}) != null) {
+            return false;
+        }
+        for (Window window : windows) {
+            window.book(fromMinute, toMinute);
+        }
+        return true;
+    }
+
+    public synchronized boolean release(Long appointmentId) {
+        int[] range = bookings.remove(appointmentId);
+        if (range == null) {
+            return false;
+        }
+        for (Window window : windows) {
+            window.release(range[0], range[1]);
+        }
+        return true;
+    }
+
+    // True when all of [fromMinute, toMinute) lies in windows, crossing from one window to the
+    // next only where they meet, and every slot it touches is free.
+    public synchronized boolean isFree(int fromMinute, int toMinute) {
+        if (fromMinute >= toMinute) {
+            return false;
+        }
+        int minute = fromMinute;
+        while (minute < toMinute) {
+            Window window = windowAt(minute);
+            if (window == null) {
+                return false;
+            }
+            int first = window.firstSlot(minute);
+            int last = window.lastSlot(Math.min(toMinute, window.endMinute()));
+            if (window.free.nextClearBit(first) < last) {
+                return false;
+            }
+            minute = window.endMinute();
+        }
+        return true;
+    }
+
+    public synchronized List<String> freeSlots() {
+        List<String> slots = new ArrayList<>();
+        for (Window window : windows) {
+            for (int i = window.free.nextSetBit(0); i >= 0; i = window.free.nextSetBit(i + 1)) {
+                int start = window.startMinute + i * window.slotMinutes;
+                slots.add(format(start) + "-" + format(start + window.slotMinutes));
+            }
+        }
+        return slots;
+    }
+
+    public synchronized int freeSlotCount() {
+        int count = 0;
+        for (Window window : windows) {
+            count += window.free.cardinality();
+        }
+        return count;
+    }
+
+    private Window windowAt(int minute) {
+        for (Window window : windows) {
+            if (window.startMinute <= minute && minute < window.endMinute()) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    private static String format(int minuteOfDay) {
+        return LocalTime.of((minuteOfDay / 60) % 24, minuteOfDay % 60).format(SLOT_FORMAT);
+    }
+
+    private static final class Window {
+
+        private final int startMinute;
+        private final int slotMinutes;
+        private final int slotCount;
+        private final BitSet open;
+        private final BitSet free;
+        private final short[] bookedCount;
+
+        private Window(int startMinute, int slotMinutes, int slotCount) {
+            this.startMinute = startMinute;
+            this.slotMinutes = slotMinutes;
+            this.slotCount = slotCount;
+            this.open = new BitSet(slotCount);
+            this.open.set(0, slotCount);
+            this.free = (BitSet) open.clone();
+            this.bookedCount = new short[slotCount];
+        }
+
+        private int endMinute() {
+            return startMinute + slotCount * slotMinutes;
+        }
+
+        private int firstSlot(int fromMinute) {
+            return Math.max(0, Math.min(slotCount, Math.floorDiv(fromMinute - startMinute, slotMinutes)));
+        }
+
+        private int lastSlot(int toMinute) {
+            return Math.max(0, Math.min(slotCount, -Math.floorDiv(startMinute - toMinute, slotMinutes)));
+        }
+
+        private void block(int fromMinute, int toMinute) {
+            int first = firstSlot(fromMinute);
+            int last = lastSlot(toMinute);
+            if (first < last) {
+                open.clear(first, last);
+                free.clear(first, last);
+            }
+        }
+
+        private void book(int fromMinute, int toMinute) {
+            int first = firstSlot(fromMinute);
+            int last = lastSlot(toMinute);
+            if (first >= last) {
+                return;
+            }
+            for (int i = first; i < last; i++) {
+                bookedCount[i]++;
+            }
+            free.clear(first, last);
+        }
+
+        private void release(int fromMinute, int toMinute) {
+            int first = firstSlot(fromMinute);
+            int last = lastSlot(toMinute);
+            for (int i = first; i < last; i++) {
+                if (bookedCount[i] > 0 && --bookedCount[i] == 0 && open.get(i)) {
+                    free.set(i);
+                }
+            }
+        }
+    }
+}
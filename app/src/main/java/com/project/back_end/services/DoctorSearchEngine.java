@@ -0,0 +1,124 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Doctor;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps a DoctorSearchIndex in step with the doctors table and answers Service.filterDoctor
+// without the leading-wildcard LIKE queries MySQL cannot serve from an index.
+//
+// rebuild() fills a new index while searches keep using the current one, then swaps it in with
+// one volatile write. Saves and deletes during a rebuild go to both indexes, and the rebuild
+// leaves the doctors they touched alone, since it may have read them before the change.
+@Service
+public class DoctorSearchEngine {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final Object writes = new Object();
+    private volatile DoctorSearchIndex index = new DoctorSearchIndex();
+    private Rebuild rebuilding; // Guarded by writes
+
+    public DoctorSearchEngine(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        Rebuild rebuild = new Rebuild();
+        synchronized (writes) {
+            rebuilding = rebuild;
+        }
+        try {
+            List<Long> ids = entityManager.createQuery("select d.id from Doctor d order by d.id", Long.class)
+                    .getResultList();
+            for (int from = 0; from < ids.size(); from += PAGE_SIZE) {
+                for (Doctor doctor : loadDoctors(ids.subList(from, Math.min(ids.size(), from + PAGE_SIZE)))) {
+                    synchronized (writes) {
+                        if (!rebuild.touched.contains(doctor.getId())) {
+                            put(rebuild.index, doctor);
+                        }
+                    }
+                }
+                entityManager.clear();
+            }
+            synchronized (writes) {
+                index = rebuild.index;
+            }
+        } finally {
+            synchronized (writes) {
+                rebuilding = null;
+            }
+        }
+    }
+
+    // Matching doctors, in the same order as the ids the index returns. Every filter is optional.
+    @Transactional(readOnly = true)
+    public List<Doctor> filterDoctors(String name, String specialty, String city, String time) {
+        List<Long> ids = index.search(name, specialty, city, time);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Doctor> byId = loadDoctors(ids).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    public List<Long> searchIds(String name, String specialty, String city, String time) {
+        return index.search(name, specialty, city, time);
+    }
+
+    // The doctor must have availableTimes and clinicLocation initialised.
+    public void onDoctorSaved(Doctor doctor) {
+        synchronized (writes) {
+            put(index, doctor);
+            if (rebuilding != null) {
+                rebuilding.touched.add(doctor.getId());
+                put(rebuilding.index, doctor);
+            }
+        }
+    }
+
+    public void onDoctorDeleted(Long doctorId) {
+        synchronized (writes) {
+            index.remove(doctorId);
+            if (rebuilding != null) {
+                rebuilding.touched.add(doctorId);
+                rebuilding.index.remove(doctorId);
+            }
+        }
+    }
+
+    private static void put(DoctorSearchIndex target, Doctor doctor) {
+        target.put(doctor.getId(), doctor.getFirstName(), doctor.getLastName(), doctor.getSpecialization(),
+                doctor.getClinicLocation() != null ? doctor.getClinicLocation().getCity() : null,
+                doctor.getAvailableTimes());
+    }
+
+    private List<Doctor> loadDoctors(List<Long> ids) {
+        return entityManager.createQuery(
+                        "select distinct d from Doctor d left join fetch d.availableTimes " +
+                        "left join fetch d.clinicLocation where d.id in :ids", Doctor.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    private static final class Rebuild {
+
+        private final DoctorSearchIndex index = new DoctorSearchIndex();
+        private final Set<Long> touched = new HashSet<>();
+    }
+}
@@ -0,0 +1,299 @@
+package com.project.back_end.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Trigram inverted index over doctor name, specialization and clinic city.
+//
+// Every indexed doctor gets an ordinal that only ever grows; an update tombstones the old
+// ordinal and appends a new one. Posting lists are therefore append-only and stay sorted, so
+// they can be intersected with a linear merge. Trigram hits are a superset of the real matches
+// and are verified against the folded field before being returned, which keeps the
+// LIKE '%term%' semantics of the repository queries this replaces.
+public class DoctorSearchIndex {
+
+    public static final String AM = "AM";
+    public static final String PM = "PM";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalByDoctor = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final BitSet morning = new BitSet();
+    private final BitSet afternoon = new BitSet();
+    private final Map<String, IntList> nameGrams = new HashMap<>();
+    private final Map<String, IntList> cityGrams = new HashMap<>();
+    private final Map<String, BitSet> bySpecialty = new HashMap<>();
+
+    public void put(Long doctorId, String firstName, String lastName, String specialization,
+                    String city, List<String> availableTimes) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(doctorId);
+            int ordinal = entries.size();
+            Entry entry = new Entry(doctorId, fold(join(firstName, lastName)), fold(specialization), fold(city));
+            entries.add(entry);
+            ordinalByDoctor.put(doctorId, ordinal);
+            live.set(ordinal);
+            addGrams(nameGrams, entry.name, ordinal);
+            addGrams(cityGrams, entry.city, ordinal);
+            if (!entry.specialty.isEmpty()) {
+                bySpecialty.computeIfAbsent(entry.specialty, k -> new BitSet()).set(ordinal);
+            }
+            if (availableTimes != null) {
+                for (String slot : availableTimes) {
+                    if (isMorning(slot)) {
+                        morning.set(ordinal);
+                    } else {
+                        afternoon.set(ordinal);
+                    }
+                }
+            }
+            if (entries.size() > 1024 && live.cardinality() < entries.size() / 2) {
+                compactLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long doctorId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(doctorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Any filter may be null or blank. time is "AM" or "PM" and keeps doctors with at least
+    // one available slot starting in that half of the day. Ids are returned in index order.
+    public List<Long> search(String name, String specialty, String city, String time) {
+        String foldedName = fold(name);
+        String foldedSpecialty = fold(specialty);
+        String foldedCity = fold(city);
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+            if (!foldedSpecialty.isEmpty()) {
+                BitSet specialtyMatches = bySpecialty.get(foldedSpecialty);
+                if (specialtyMatches == null) {
+                    return List.of();
+                }
+                candidates.and(specialtyMatches);
+            }
+            if (!narrow(candidates, nameGrams, foldedName) || !narrow(candidates, cityGrams, foldedCity)) {
+                return List.of();
+            }
+            if (AM.equalsIgnoreCase(time)) {
+                candidates.and(morning);
+            } else if (PM.equalsIgnoreCase(time)) {
+                candidates.and(afternoon);
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                Entry entry = entries.get(i);
+                if (entry.name.contains(foldedName) && entry.city.contains(foldedCity)) {
+                    ids.add(entry.doctorId);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalByDoctor.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Intersects the posting lists of every trigram in the term; terms shorter than a trigram
+    // are left to the verification pass.
+    private boolean narrow(BitSet candidates, Map<String, IntList> index, String term) {
+        if (term.length() < GRAM) {
+            return true;
+        }
+        List<IntList> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            IntList list = index.get(term.substring(i, i + GRAM));
+            if (list == null) {
+                return false;
+            }
+            postings.add(list);
+        }
+        postings.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] acc = Arrays.copyOf(postings.get(0).values, postings.get(0).size);
+        int accSize = acc.length;
+        for (int p = 1; p < postings.size() && accSize > 0; p++) {
+            accSize = intersect(acc, accSize, postings.get(p));
+        }
+        BitSet matched = new BitSet();
+        for (int i = 0; i < accSize; i++) {
+            matched.set(acc[i]);
+        }
+        candidates.and(matched);
+        return !candidates.isEmpty();
+    }
+
+    // In-place merge of two sorted ordinal lists; returns the new size of acc.
+    private static int intersect(int[] acc, int accSize, IntList other) {
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < accSize && j < other.size) {
+            int a = acc[i];
+            int b = other.values[j];
+            if (a == b) {
+                acc[out++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private void removeLocked(Long doctorId) {
+        Integer ordinal = ordinalByDoctor.remove(doctorId);
+        if (ordinal != null) {
+            live.clear(ordinal);
+        }
+    }
+
+    // Rebuilds postings without tombstoned ordinals once more than half of them are dead.
+    private void compactLocked() {
+        List<Entry> survivors = new ArrayList<>();
+        BitSet wasMorning = new BitSet();
+        BitSet wasAfternoon = new BitSet();
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            if (morning.get(i)) {
+                wasMorning.set(survivors.size());
+            }
+            if (afternoon.get(i)) {
+                wasAfternoon.set(survivors.size());
+            }
+            survivors.add(entries.get(i));
+        }
+        clearLocked();
+        morning.or(wasMorning);
+        afternoon.or(wasAfternoon);
+        for (Entry entry : survivors) {
+            int ordinal = entries.size();
+            entries.add(entry);
+            ordinalByDoctor.put(entry.doctorId, ordinal);
+            live.set(ordinal);
+            addGrams(nameGrams, entry.name, ordinal);
+            addGrams(cityGrams, entry.city, ordinal);
+            if (!entry.specialty.isEmpty()) {
+                bySpecialty.computeIfAbsent(entry.specialty, k -> new BitSet()).set(ordinal);
+            }
+        }
+    }
+
+    private void clearLocked() {
+        ordinalByDoctor.clear();
+        entries.clear();
+        live.clear();
+        morning.clear();
+        afternoon.clear();
+        nameGrams.clear();
+        cityGrams.clear();
+        bySpecialty.clear();
+    }
+
+    private static void addGrams(Map<String, IntList> index, String text, int ordinal) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            IntList postings = index.computeIfAbsent(text.substring(i, i + GRAM), k -> new IntList());
+            // A gram can repeat inside one field; ordinals arrive in order, so check the tail only
+            if (postings.size == 0 || postings.values[postings.size - 1] != ordinal) {
+                postings.add(ordinal);
+            }
+        }
+    }
+
+    static boolean isMorning(String slot) {
+        if (slot == null || slot.length() < 2) {
+            return false;
+        }
+        int colon = slot.indexOf(':');
+        String hour = colon > 0 ? slot.substring(0, colon) : slot.substring(0, 2);
+        try {
+            return Integer.parseInt(hour.trim()) < 12;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static String fold(String value) {
+        if (value == null || value.isBlank()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static String join(String first, String last) {
+        if (first == null) {
+            return last;
+        }
+        return last == null ? first : first + " " + last;
+    }
+
+    private static final class Entry {
+
+        private final Long doctorId;
+        private final String name;
+        private final String specialty;
+        private final String city;
+
+        private Entry(Long doctorId, String name, String specialty, String city) {
+            this.doctorId = doctorId;
+            this.name = name;
+            this.specialty = specialty;
+            this.city = city;
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -21,24 +21,29 @@ public class DoctorService {
 //    - Retrieves the available time slots for a specific doctor on a particular date and filters out already booked slots.
 //    - The method fetches all appointments for the doctor on the given date and calculates the availability by comparing against booked slots.
 //    - Instruction: Ensure that the time slots are properly formatted and the available slots are correctly filtered.
+//    - Instruction: Serve the result from `SlotAvailabilityEngine.getAvailableSlots(doctorId, date)`, which keeps a slot bitmap per doctor and day instead of loading the day's appointments on every request.
 
 // 5. **saveDoctor Method**:
 //    - Used to save a new doctor record in the database after checking if a doctor with the same email already exists.
 //    - If a doctor with the same email is found, it returns `-1` to indicate conflict; `1` for success, and `0` for internal errors.
 //    - Instruction: Ensure that the method correctly handles conflicts and exceptions when saving a doctor.
+//    - Instruction: After a successful save, call `DoctorSummaryCache.onDoctorSaved(doctorId)` so the cached doctor list is rebuilt, and `DoctorSearchEngine.onDoctorSaved(doctor)` so the doctor becomes searchable.
 
 // 6. **updateDoctor Method**:
 //    - Updates an existing doctor's details in the database. If the doctor doesn't exist, it returns `-1`.
 //    - Instruction: Make sure that the doctor exists before attempting to save the updated record and handle any errors properly.
+//    - Instruction: After a successful update, call `DoctorSummaryCache.evictDoctor(doctorId)` so only that doctor's cached summary is re-serialized, and `DoctorSearchEngine.onDoctorSaved(doctor)` to re-index it.
 
 // 7. **getDoctors Method**:
 //    - Fetches all doctors from the database. It is marked with `@Transactional` to ensure that the collection is properly loaded.
 //    - Instruction: Ensure that the collection is eagerly loaded, especially if dealing with lazy-loaded relationships (e.g., available times). 
+//    - Instruction: For the public listing, prefer `DoctorSummaryCache.getDoctors()`, which loads missing doctors with their available times in a single fetch-join query and caches the serialized result.
 
 // 8. **deleteDoctor Method**:
 //    - Deletes a doctor from the system along with all appointments associated with that doctor.
 //    - It first checks if the doctor exists. If not, it returns `-1`; otherwise, it deletes the doctor and their appointments.
 //    - Instruction: Ensure the doctor and their appointments are deleted properly, with error handling for internal issues.
+//    - Instruction: After a successful delete, call `DoctorSummaryCache.evictDoctor(doctorId)` and `DoctorSearchEngine.onDoctorDeleted(doctorId)`.
 
 // 9. **validateDoctor Method**:
 //    - Validates a doctor's login by checking if the email and password match an existing doctor record.
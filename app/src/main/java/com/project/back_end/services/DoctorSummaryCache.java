@@ -0,0 +1,210 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.back_end.DTO.CachedJson;
+import com.project.back_end.DTO.DoctorSummaryDTO;
+import com.project.back_end.models.Doctor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Read-through cache of doctor summaries, kept as pre-serialized JSON so DoctorController can
+// write the bytes straight to the response. Each doctor is cached as its own fragment and the
+// list bodies are assembled by concatenating fragments, so a write to one doctor only
+// re-serializes that doctor. Every body carries a strong ETag for conditional requests.
+//
+// Misses are loaded in their own read-only transaction, so a hit never touches the database.
+// Every invalidation bumps a generation; a load that overlapped one still returns what it read
+// but does not keep it cached, since it may have read the doctor before the write. Invalidations
+// made inside a transaction are repeated after it commits, for loads that started in between.
+@Service
+public class DoctorSummaryCache {
+
+    private static final String ALL_DOCTORS = "all";
+    private static final String PUBLIC_DOCTORS = "public";
+    private static final byte[] LIST_PREFIX = "{\"doctors\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIST_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final ObjectWriter summaryWriter;
+    private final Cache<Long, CachedJson> fragments;
+    private final Cache<String, CachedJson> lists;
+    private final AtomicLong generation = new AtomicLong();
+
+    public DoctorSummaryCache(EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${doctor.cache.max-size:10000}") long maxSize,
+                              @Value("${doctor.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.summaryWriter = objectMapper.writerFor(DoctorSummaryDTO.class);
+        this.fragments = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.lists = Caffeine.newBuilder()
+                .maximumSize(16)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "doctorSummaries");
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, "doctorLists");
+    }
+
+    // {"doctors":[...]} as UTF-8 JSON, matching the body DoctorController#getDoctor returns.
+    public CachedJson getDoctors() {
+        return list(ALL_DOCTORS, () ->
+                entityManager.createQuery("select d.id from Doctor d order by d.id", Long.class).getResultList());
+    }
+
+    // Same shape, limited to doctors with isPublic = true, for the unauthenticated landing page.
+    public CachedJson getPublicDoctors() {
+        return list(PUBLIC_DOCTORS, () ->
+                entityManager.createQuery("select d.id from Doctor d where d.isPublic = true order by d.id", Long.class)
+                        .getResultList());
+    }
+
+    public CachedJson getDoctor(Long doctorId) {
+        return fragmentsFor(List.of(doctorId)).get(doctorId);
+    }
+
+    // A new doctor has no fragment yet, so only the assembled list goes stale.
+    public void onDoctorSaved(Long doctorId) {
+        invalidateNowAndAfterCommit(() -> lists.invalidateAll());
+    }
+
+    // Called by DoctorService.updateDoctor and deleteDoctor.
+    public void evictDoctor(Long doctorId) {
+        invalidateNowAndAfterCommit(() -> {
+            fragments.invalidate(doctorId);
+            lists.invalidateAll();
+        });
+    }
+
+    public void clear() {
+        invalidateNowAndAfterCommit(() -> {
+            fragments.invalidateAll();
+            lists.invalidateAll();
+        });
+    }
+
+    private void invalidateNowAndAfterCommit(Runnable invalidation) {
+        generation.incrementAndGet();
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private CachedJson list(String key, Supplier<List<Long>> ids) {
+        CachedJson cached = lists.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        CachedJson assembled = readOnly.execute(status -> assemble(ids.get()));
+        lists.put(key, assembled);
+        if (generation.get() != loadedAt) {
+            lists.asMap().remove(key, assembled);
+        }
+        return assembled;
+    }
+
+    private CachedJson assemble(List<Long> ids) {
+        Map<Long, CachedJson> loaded = fragmentsFor(ids);
+        int size = LIST_PREFIX.length + LIST_SUFFIX.length + ids.size();
+        for (CachedJson fragment : loaded.values()) {
+            size += fragment.length();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.writeBytes(LIST_PREFIX);
+        boolean first = true;
+        for (Long id : ids) {
+            CachedJson fragment = loaded.get(id);
+            if (fragment == null) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(fragment.getBody());
+            first = false;
+        }
+        out.writeBytes(LIST_SUFFIX);
+        return CachedJson.of(out.toByteArray());
+    }
+
+    // Cached fragments are reused; the rest are fetched together with their available times
+    // and clinic in one query instead of one lazy load per doctor.
+    private Map<Long, CachedJson> fragmentsFor(Collection<Long> ids) {
+        Map<Long, CachedJson> found = new HashMap<>(fragments.getAllPresent(ids));
+        if (found.size() == ids.size()) {
+            return found;
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        long loadedAt = generation.get();
+        Map<Long, CachedJson> loaded = readOnly.execute(status -> {
+            List<Doctor> doctors = entityManager.createQuery(
+                            "select distinct d from Doctor d left join fetch d.availableTimes " +
+                            "left join fetch d.clinicLocation where d.id in :ids", Doctor.class)
+                    .setParameter("ids", missing)
+                    .getResultList();
+            Map<Long, CachedJson> serialized = new HashMap<>();
+            for (Doctor doctor : doctors) {
+                serialized.put(doctor.getId(), serialize(doctor));
+            }
+            return serialized;
+        });
+        fragments.putAll(loaded);
+        if (generation.get() != loadedAt) {
+            loaded.forEach((id, fragment) -> fragments.asMap().remove(id, fragment));
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    private CachedJson serialize(Doctor doctor) {
+        try {
+            return CachedJson.of(summaryWriter.writeValueAsBytes(new DoctorSummaryDTO(doctor)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize doctor " + doctor.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Fills Prescription.interactions when a prescription is saved, from the DrugInteractionIndex
+// built at startup out of the classpath dataset <prescriptions.interactions.location>/
+// interactions.csv and classes.csv. A missing or malformed dataset fails startup rather than
+// letting prescriptions be saved unchecked.
+@Service
+public class DrugInteractionEngine {
+
+    private final DrugInteractionIndex index;
+    private final Timer checkTime;
+    private final Counter conflicts;
+
+    public DrugInteractionEngine(MeterRegistry meterRegistry,
+                                 @Value("${prescriptions.interactions.location:drug-interactions}") String location) {
+        this.index = load(location);
+        this.checkTime = meterRegistry.timer("prescriptions.interactions.check");
+        this.conflicts = meterRegistry.counter("prescriptions.interactions.conflicts");
+    }
+
+    // Replaces the prescription's interactions with the conflicts between its medications and
+    // with the patient's allergies (Patient.allergies, may be null), and returns them.
+    public List<String> annotate(Prescription prescription, String patientAllergies) {
+        List<String> names = new ArrayList<>(prescription.getMedications().size());
+        for (Prescription.Medication medication : prescription.getMedications()) {
+            if (medication.getName() != null) {
+                names.add(medication.getName());
+            }
+        }
+        long start = System.nanoTime();
+        List<String> found = index.check(names, patientAllergies);
+        checkTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        conflicts.increment(found.size());
+        prescription.setInteractions(found);
+        return found;
+    }
+
+    public DrugInteractionIndex getIndex() {
+        return index;
+    }
+
+    private static DrugInteractionIndex load(String location) {
+        ClassLoader classLoader = DrugInteractionEngine.class.getClassLoader();
+        try (Reader interactions = open(classLoader, location + "/interactions.csv");
+             Reader classes = open(classLoader, location + "/classes.csv")) {
+            return DrugInteractionIndex.load(interactions, classes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the drug interaction dataset in " + location, e);
+        }
+    }
+
+    private static Reader open(ClassLoader classLoader, String resource) throws IOException {
+        InputStream in = classLoader.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException(resource + " is not on the classpath");
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,383 @@
+package com.project.back_end.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Drug-drug interactions and allergy conflicts between a prescription's medications and a
+// patient's allergies, from a dataset of interacting pairs and medication classes.
+//
+// Every medication and class name in the dataset is folded (lower case, accents dropped, runs
+// of anything but letters and digits turned into one space) and given an integer code, so each
+// name is stored once and compared as an int. Interacting pairs are keyed by their two codes in
+// an open-addressing table, which makes a prescription of n medications n^2 probes instead of a
+// pass over the dataset per pair. Names are found in text with one Aho-Corasick automaton over
+// all of them: "Amoxicillin 500 mg capsule" resolves to amoxicillin and the patient's free-text
+// "Penicillin (rash), sulfa drugs" to penicillin and sulfa, each in a single pass. A match must
+// start on a word boundary and end on one or before a plural s ("NSAIDs", "opioids").
+//
+// A class stands for all its medications: an interaction listed for nsaid applies to ibuprofen,
+// and an allergy to penicillin flags amoxicillin. Instances are immutable and thread-safe.
+public final class DrugInteractionIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int ALPHABET = 37;
+    private static final byte SEPARATOR = 0;
+    private static final byte PLURAL = 's' - 'a' + 1;
+
+    private final String[] names;
+    private final int[][] classes;
+    private final PairTable pairs;
+    private final String[] severities;
+    private final String[] descriptions;
+    private final int[] delta;
+    private final int[] terms;
+    private final int[] depths;
+    private final int[] outputs;
+
+    private DrugInteractionIndex(Builder builder) {
+        this.names = builder.names.toArray(new String[0]);
+        this.classes = new int[names.length][];
+        for (int code = 0; code < names.length; code++) {
+            classes[code] = builder.classes.get(code).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.severities = builder.severities.toArray(new String[0]);
+        this.descriptions = builder.descriptions.toArray(new String[0]);
+        this.pairs = new PairTable(severities.length);
+        for (int i = 0; i < builder.pairs.size(); i++) {
+            long pair = builder.pairs.get(i);
+            pairs.putIfAbsent((int) (pair >>> 32), (int) pair, i);
+        }
+
+        Automaton automaton = new Automaton(names);
+        this.delta = automaton.delta;
+        this.terms = automaton.terms;
+        this.depths = automaton.depths;
+        this.outputs = automaton.outputs;
+    }
+
+    // interactions: "medication_a,medication_b,severity,description" lines; the description runs
+    // to the end of the line. classes: "medication,class" lines. Blank lines and lines starting
+    // with # are skipped. Either side of an interaction may be a class. When a pair is listed
+    // twice the first line wins.
+    public static DrugInteractionIndex load(Reader interactions, Reader classes) throws IOException {
+        Builder builder = new Builder();
+        forEachLine(classes, "classes", 2, fields -> builder.addClass(fields[0], fields[1]));
+        forEachLine(interactions, "interactions", 4,
+                fields -> builder.addInteraction(fields[0], fields[1], fields[2].trim(), fields[3].trim()));
+        return new DrugInteractionIndex(builder);
+    }
+
+    // One message per conflict, interactions first, in medication order:
+    //   "Warfarin 5 mg + Ibuprofen: major - Increased risk of bleeding"
+    //   "Amoxicillin 500 mg: allergy - patient is allergic to penicillin"
+    // Medications the dataset does not know are skipped; allergies may be null.
+    public List<String> check(List<String> medications, String allergies) {
+        int[][] direct = new int[medications.size()][];
+        int[][] expanded = new int[medications.size()][];
+        for (int i = 0; i < medications.size(); i++) {
+            BitSet found = find(medications.get(i));
+            direct[i] = found.stream().toArray();
+            for (int code : direct[i]) {
+                for (int classCode : classes[code]) {
+                    found.set(classCode);
+                }
+            }
+            expanded[i] = found.stream().toArray();
+        }
+
+        List<String> conflicts = new ArrayList<>();
+        for (int i = 0; i < medications.size(); i++) {
+            for (int j = i + 1; j < medications.size(); j++) {
+                int interaction = firstInteraction(direct[i], direct[j]);
+                if (interaction < 0) {
+                    interaction = firstInteraction(expanded[i], expanded[j]);
+                }
+                if (interaction >= 0) {
+                    conflicts.add(medications.get(i) + " + " + medications.get(j) + ": "
+                            + severities[interaction] + " - " + descriptions[interaction]);
+                }
+            }
+        }
+        if (allergies != null && !allergies.isBlank()) {
+            BitSet allergens = find(allergies);
+            for (int i = 0; i < medications.size(); i++) {
+                for (int code : expanded[i]) {
+                    if (allergens.get(code)) {
+                        conflicts.add(medications.get(i) + ": allergy - patient is allergic to " + names[code]);
+                        break;
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    public int getNameCount() {
+        return names.length;
+    }
+
+    public int getInteractionCount() {
+        return pairs.size;
+    }
+
+    // Codes of the dataset names that occur in text as whole words.
+    BitSet find(String text) {
+        BitSet found = new BitSet(names.length);
+        if (text == null) {
+            return found;
+        }
+        byte[] symbols = symbols(fold(text));
+        int state = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            state = delta[state * ALPHABET + symbols[i]];
+            if (!endsWord(symbols, i + 1) && !(symbols[i + 1] == PLURAL && endsWord(symbols, i + 2))) {
+                continue;
+            }
+            for (int node = terms[state] >= 0 ? state : outputs[state]; node != 0; node = outputs[node]) {
+                int start = i - depths[node] + 1;
+                if (start == 0 || symbols[start - 1] == SEPARATOR) {
+                    found.set(terms[node]);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean endsWord(byte[] symbols, int next) {
+        return next >= symbols.length || symbols[next] == SEPARATOR;
+    }
+
+    private int firstInteraction(int[] a, int[] b) {
+        for (int x : a) {
+            for (int y : b) {
+                int interaction = pairs.get(x, y);
+                if (interaction >= 0) {
+                    return interaction;
+                }
+            }
+        }
+        return -1;
+    }
+
+    static String fold(String text) {
+        String plain = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        StringBuilder out = new StringBuilder(plain.length());
+        boolean space = false;
+        for (int i = 0; i < plain.length(); i++) {
+            char c = plain.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) {
+                    out.append(' ');
+                }
+                space = false;
+                out.append(Character.toLowerCase(c));
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    // a-z are 1-26 and 0-9 are 27-36; anything else, including letters outside ASCII, is a
+    // separator.
+    private static byte[] symbols(String folded) {
+        byte[] symbols = new byte[folded.length()];
+        for (int i = 0; i < symbols.length; i++) {
+            char c = folded.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                symbols[i] = (byte) (c - 'a' + 1);
+            } else if (c >= '0' && c <= '9') {
+                symbols[i] = (byte) (c - '0' + 27);
+            }
+        }
+        return symbols;
+    }
+
+    private interface LineHandler {
+        void accept(String[] fields);
+    }
+
+    private static void forEachLine(Reader reader, String file, int fields, LineHandler handler) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        int number = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            number++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",", fields);
+            if (parts.length != fields || fold(parts[0]).isEmpty() || fold(parts[1]).isEmpty()) {
+                throw new IllegalArgumentException("Line " + number + " of " + file + " needs " + fields
+                        + " comma-separated fields: " + line);
+            }
+            handler.accept(parts);
+        }
+    }
+
+    private static final class Builder {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<List<Integer>> classes = new ArrayList<>();
+        private final List<Long> pairs = new ArrayList<>();
+        private final List<String> severities = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+
+        void addClass(String medication, String className) {
+            int medicationCode = code(medication);
+            int classCode = code(className);
+            if (medicationCode != classCode && !classes.get(medicationCode).contains(classCode)) {
+                classes.get(medicationCode).add(classCode);
+            }
+        }
+
+        void addInteraction(String a, String b, String severity, String description) {
+            pairs.add(PairTable.key(code(a), code(b)));
+            severities.add(severity);
+            descriptions.add(description);
+        }
+
+        private int code(String name) {
+            String folded = fold(name);
+            Integer code = codes.get(folded);
+            if (code == null) {
+                code = names.size();
+                codes.put(folded, code);
+                names.add(folded);
+                classes.add(new ArrayList<>(2));
+            }
+            return code;
+        }
+    }
+
+    // Interacting pairs: key (min code << 32 | max code), value the interaction's index.
+    private static final class PairTable {
+
+        private static final long EMPTY = -1;
+
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+
+        PairTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(2, expected * 2) - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        static long key(int a, int b) {
+            return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        }
+
+        int get(int a, int b) {
+            long key = key(a, b);
+            for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void putIfAbsent(int a, int b, int value) {
+            long key = key(a, b);
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        }
+    }
+
+    // A complete transition table (delta[state * ALPHABET + symbol]) built from the trie of the
+    // folded names and its failure links, so scanning never backtracks. terms[state] is the code
+    // of the name ending at state or -1, depths[state] its length in symbols, and outputs[state]
+    // the next state on the failure chain where a shorter name ends, 0 for none.
+    private static final class Automaton {
+
+        private final int[] delta;
+        private final int[] terms;
+        private final int[] depths;
+        private final int[] outputs;
+
+        Automaton(String[] names) {
+            List<int[]> next = new ArrayList<>();
+            List<Integer> termList = new ArrayList<>();
+            List<Integer> depthList = new ArrayList<>();
+            next.add(newRow());
+            termList.add(-1);
+            depthList.add(0);
+            for (int code = 0; code < names.length; code++) {
+                byte[] symbols = symbols(names[code]);
+                int state = 0;
+                for (byte symbol : symbols) {
+                    if (next.get(state)[symbol] < 0) {
+                        next.get(state)[symbol] = next.size();
+                        next.add(newRow());
+                        termList.add(-1);
+                        depthList.add(depthList.get(state) + 1);
+                    }
+                    state = next.get(state)[symbol];
+                }
+                termList.set(state, code);
+            }
+
+            int states = next.size();
+            this.delta = new int[states * ALPHABET];
+            this.terms = termList.stream().mapToInt(Integer::intValue).toArray();
+            this.depths = depthList.stream().mapToInt(Integer::intValue).toArray();
+            this.outputs = new int[states];
+            int[] fail = new int[states];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                    int child = next.get(state)[symbol];
+                    if (child < 0) {
+                        delta[state * ALPHABET + symbol] = state == 0 ? 0 : delta[fail[state] * ALPHABET + symbol];
+                        continue;
+                    }
+                    delta[state * ALPHABET + symbol] = child;
+                    fail[child] = state == 0 ? 0 : delta[fail[state] * ALPHABET + symbol];
+                    outputs[child] = terms[fail[child]] >= 0 ? fail[child] : outputs[fail[child]];
+                    queue.add(child);
+                }
+            }
+        }
+
+        private static int[] newRow() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// The in-memory half of EmailDispatcher: one bounded queue per priority, served by a fixed
+// set of worker threads. The number of workers is the global limit on sends in flight; each
+// worker takes from the most urgent non-empty queue, so an Urgent notification claimed behind
+// thousands of Low ones is the next to go out.
+//
+// Every notification handed to offer() comes back through the completed callback exactly
+// once, updated the way EmailNotification's helpers do it:
+// - Sent, with sentAt
+// - Pending again with retryCount and errorMessage set and scheduledFor pushed back, after a
+//   temporary failure while canRetry() holds; the wait doubles with every attempt
+// - Failed, after a permanent failure or the last retry
+public class EmailDispatchQueue {
+
+    public enum Priority {
+        URGENT("Urgent"),
+        HIGH("High"),
+        NORMAL("Normal"),
+        LOW("Low");
+
+        private final String label;
+
+        Priority(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        // Notifications without one of the four priorities are Normal.
+        public static Priority of(EmailNotification notification) {
+            EmailNotification.EmailMetadata metadata = notification.getMetadata();
+            if (metadata != null && metadata.getPriority() != null) {
+                for (Priority priority : values()) {
+                    if (priority.label.equals(metadata.getPriority())) {
+                        return priority;
+                    }
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    private final EmailTransport transport;
+    private final Consumer<EmailNotification> completed;
+    private final Runnable lowWater;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final int capacity;
+    private final ArrayBlockingQueue<EmailNotification>[] queues;
+    private final Semaphore queued = new Semaphore(0);
+    private final Thread[] workers;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer sendLatency;
+    private volatile boolean running = true;
+
+    // lowWater runs on a worker thread whenever it takes from a queue at most half full, as a hint
+    // that there is room to claim more.
+    @SuppressWarnings("unchecked")
+    public EmailDispatchQueue(EmailTransport transport, MeterRegistry meterRegistry, int concurrency,
+                              int capacityPerPriority, long backoffMillis, long maxBackoffMillis,
+                              Consumer<EmailNotification> completed, Runnable lowWater) {
+        this.transport = transport;
+        this.completed = completed;
+        this.lowWater = lowWater;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.capacity = capacityPerPriority;
+        this.queues = new ArrayBlockingQueue[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayBlockingQueue<>(capacityPerPriority);
+        }
+        this.sent = meterRegistry.counter("email.sent");
+        this.retried = meterRegistry.counter("email.retried");
+        this.failed = meterRegistry.counter("email.failed");
+        this.sendLatency = meterRegistry.timer("email.send.latency");
+        meterRegistry.gauge("email.queue.depth", queued, Semaphore::availablePermits);
+        this.workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(this::work, "email-dispatch-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    // False when that priority's queue is full or the queue is shutting down.
+    public boolean offer(EmailNotification notification) {
+        if (!running || !queues[Priority.of(notification).ordinal()].offer(notification)) {
+            return false;
+        }
+        queued.release();
+        return true;
+    }
+
+    // How many more notifications of this priority offer() would take.
+    public int remainingCapacity(Priority priority) {
+        return queues[priority.ordinal()].remainingCapacity();
+    }
+
+    public int size() {
+        int size = 0;
+        for (ArrayBlockingQueue<EmailNotification> queue : queues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    // Lets sends in progress finish and returns the notifications that were still queued;
+    // they have not been through the completed callback.
+    public List<EmailNotification> shutdown() {
+        running = false;
+        // One wake-up per worker; a worker that takes one stops instead of sending
+        queued.release(workers.length);
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<EmailNotification> unsent = new ArrayList<>();
+        for (ArrayBlockingQueue<EmailNotification> queue : queues) {
+            queue.drainTo(unsent);
+        }
+        return unsent;
+    }
+
+    private void work() {
+        while (true) {
+            try {
+                queued.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            EmailNotification notification = next();
+            if (notification != null) {
+                deliver(notification);
+            }
+        }
+    }
+
+    private EmailNotification next() {
+        for (ArrayBlockingQueue<EmailNotification> queue : queues) {
+            EmailNotification notification = queue.poll();
+            if (notification != null) {
+                if (queue.size() <= capacity / 2) {
+                    lowWater.run();
+                }
+                return notification;
+            }
+        }
+        return null;
+    }
+
+    private void deliver(EmailNotification notification) {
+        long started = System.nanoTime();
+        try {
+            transport.send(notification);
+            notification.markAsSent();
+            notification.setErrorMessage(null);
+            sent.increment();
+        } catch (EmailTransport.DeliveryException e) {
+            failedAttempt(notification, e.getMessage(), e.isPermanent());
+        } catch (RuntimeException e) {
+            failedAttempt(notification, e.toString(), false);
+        } finally {
+            sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        completed.accept(notification);
+    }
+
+    private void failedAttempt(EmailNotification notification, String error, boolean permanent) {
+        notification.markAsFailed(error);
+        if (!permanent && notification.canRetry()) {
+            notification.setEmailStatus("Pending");
+            notification.setScheduledFor(LocalDateTime.now().plus(backoff(notification.getRetryCount()), ChronoUnit.MILLIS));
+            retried.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    // backoff-ms after the first failure, doubling up to max-backoff-ms, with the upper half
+    // randomised so notifications that failed together do not all retry together.
+    long backoff(int failures) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(failures - 1, 30));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
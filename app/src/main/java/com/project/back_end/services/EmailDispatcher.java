@@ -0,0 +1,235 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+// Sends the Pending email_notifications whose scheduledFor has come, through the
+// EmailTransport bean.
+//
+// A single poller thread claims due notifications per priority, oldest scheduledFor first, up
+// to email.dispatch.batch-size at a time and as many as that priority's queue has room for.
+// It uses the (emailStatus, metadata.priority, scheduledFor) index: equality on both status
+// and priority leaves the range and the sort on scheduledFor to the index, so a backlog of Low
+// notifications never delays the claim of an Urgent one. A claim moves the documents to
+// Sending under a fresh claimToken, so two application instances never send the same one.
+// The claimed notifications go to an EmailDispatchQueue, whose email.dispatch.concurrency
+// workers do the sending.
+//
+// Outcomes are written back in one unordered bulk per poll. The poller runs every
+// email.dispatch.poll-ms, or sooner when a queue is half empty. Claims older than
+// email.dispatch.claim-timeout-ms go back to Pending; that happens for an instance that
+// stopped without writing its outcomes back, and its last sends may then go out twice.
+@Service
+public class EmailDispatcher {
+
+    static final String PENDING = "Pending";
+    static final String SENDING = "Sending";
+
+    private final MongoOperations mongoOperations;
+    private final EmailDispatchQueue queue;
+    private final ConcurrentLinkedQueue<EmailNotification> completed = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final long pollNanos;
+    private final long claimTimeoutMillis;
+    private final Counter pollFailures;
+    private final Thread poller;
+    private volatile boolean running = true;
+
+    public EmailDispatcher(MongoOperations mongoOperations,
+                           EmailTransport transport,
+                           MeterRegistry meterRegistry,
+                           @Value("${email.dispatch.concurrency:16}") int concurrency,
+                           @Value("${email.dispatch.batch-size:500}") int batchSize,
+                           @Value("${email.dispatch.poll-ms:1000}") long pollMillis,
+                           @Value("${email.dispatch.backoff-ms:30000}") long backoffMillis,
+                           @Value("${email.dispatch.max-backoff-ms:3600000}") long maxBackoffMillis,
+                           @Value("${email.dispatch.claim-timeout-ms:600000}") long claimTimeoutMillis) {
+        this.mongoOperations = mongoOperations;
+        this.batchSize = batchSize;
+        this.pollNanos = TimeUnit.MILLISECONDS.toNanos(pollMillis);
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.pollFailures = meterRegistry.counter("email.dispatch.poll.failures");
+        this.poller = new Thread(this::pollLoop, "email-dispatch-poller");
+        poller.setDaemon(true);
+        this.queue = new EmailDispatchQueue(transport, meterRegistry, concurrency, batchSize * 2,
+                backoffMillis, maxBackoffMillis, completed::add, () -> LockSupport.unpark(poller));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        IndexOperations indexes = mongoOperations.indexOps(EmailNotification.class);
+        indexes.ensureIndex(new Index().named("emailStatus_priority_scheduledFor")
+                .on("emailStatus", Sort.Direction.ASC).on("metadata.priority", Sort.Direction.ASC)
+                .on("scheduledFor", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index().named("claimToken").on("claimToken", Sort.Direction.ASC).sparse());
+        poller.start();
+    }
+
+    // One round of the poller: writes back finished sends, returns expired claims to Pending
+    // and claims what is due into the room left in the queues. Returns how many were claimed.
+    public int poll() {
+        flushCompleted();
+        LocalDateTime expired = LocalDateTime.now().minus(claimTimeoutMillis, ChronoUnit.MILLIS);
+        mongoOperations.updateMulti(Query.query(Criteria.where("emailStatus").is(SENDING).and("claimedAt").lt(expired)),
+                unclaim(), EmailNotification.class);
+        int claimed = 0;
+        List<EmailNotification> refused = new ArrayList<>();
+        for (EmailDispatchQueue.Priority priority : EmailDispatchQueue.Priority.values()) {
+            int room = Math.min(queue.remainingCapacity(priority), batchSize);
+            if (room == 0) {
+                continue;
+            }
+            for (EmailNotification notification : claim(priority, room)) {
+                if (queue.offer(notification)) {
+                    claimed++;
+                } else {
+                    refused.add(notification);
+                }
+            }
+        }
+        release(refused);
+        return claimed;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // Finishes the sends in progress, records their outcomes and puts whatever was still
+    // queued back to Pending.
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(poller);
+        try {
+            poller.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<EmailNotification> unsent = queue.shutdown();
+        try {
+            flushCompleted();
+            release(unsent);
+        } catch (RuntimeException e) {
+            // Left Sending; they go back to Pending once their claims time out
+            pollFailures.increment();
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int claimed;
+            try {
+                claimed = poll();
+            } catch (RuntimeException e) {
+                pollFailures.increment();
+                claimed = 0;
+            }
+            if (claimed > 0) {
+                // More may be due; come back early when the workers make room
+                LockSupport.parkNanos(this, pollNanos);
+                continue;
+            }
+            long deadline = System.nanoTime() + pollNanos;
+            long left;
+            while (running && (left = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, left);
+            }
+        }
+    }
+
+    private List<EmailNotification> claim(EmailDispatchQueue.Priority priority, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria priorityCriteria = priority == EmailDispatchQueue.Priority.NORMAL
+                // Also everything without a recognised priority
+                ? Criteria.where("metadata.priority").nin(EmailDispatchQueue.Priority.URGENT.getLabel(),
+                        EmailDispatchQueue.Priority.HIGH.getLabel(), EmailDispatchQueue.Priority.LOW.getLabel())
+                : Criteria.where("metadata.priority").is(priority.getLabel());
+        Query due = Query.query(Criteria.where("emailStatus").is(PENDING))
+                .addCriteria(priorityCriteria)
+                .addCriteria(new Criteria().orOperator(Criteria.where("scheduledFor").lte(now),
+                        Criteria.where("scheduledFor").is(null)))
+                .with(Sort.by(Sort.Direction.ASC, "scheduledFor"))
+                .limit(limit);
+        due.fields().include("_id");
+        List<String> ids = mongoOperations.find(due, EmailNotification.class).stream()
+                .map(EmailNotification::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String token = UUID.randomUUID().toString();
+        mongoOperations.updateMulti(Query.query(Criteria.where("_id").in(ids).and("emailStatus").is(PENDING)),
+                new Update().set("emailStatus", SENDING).set("claimToken", token).set("claimedAt", now),
+                EmailNotification.class);
+        // Only what this instance won; another may have claimed some of ids in between
+        return mongoOperations.find(Query.query(Criteria.where("claimToken").is(token)), EmailNotification.class);
+    }
+
+    private void flushCompleted() {
+        List<EmailNotification> done = new ArrayList<>();
+        EmailNotification notification;
+        while ((notification = completed.poll()) != null) {
+            done.add(notification);
+        }
+        if (done.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailNotification.class);
+        for (EmailNotification outcome : done) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(outcome.getId()).and("claimToken").is(outcome.getClaimToken())),
+                    new Update()
+                            .set("emailStatus", outcome.getEmailStatus())
+                            .set("sentAt", outcome.getSentAt())
+                            .set("retryCount", outcome.getRetryCount())
+                            .set("errorMessage", outcome.getErrorMessage())
+                            .set("scheduledFor", outcome.getScheduledFor())
+                            .unset("claimToken")
+                            .unset("claimedAt"));
+        }
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            // Written again next round; updates that did apply no longer match their claim
+            completed.addAll(done);
+            throw e;
+        }
+    }
+
+    private void release(List<EmailNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<String> ids = notifications.stream().map(EmailNotification::getId).collect(Collectors.toList());
+        mongoOperations.updateMulti(Query.query(Criteria.where("_id").in(ids).and("emailStatus").is(SENDING)),
+                unclaim(), EmailNotification.class);
+    }
+
+    private static Update unclaim() {
+        return new Update().set("emailStatus", PENDING).unset("claimToken").unset("claimedAt");
+    }
+}
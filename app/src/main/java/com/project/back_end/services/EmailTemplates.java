@@ -0,0 +1,111 @@
+package com.project.back_end.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+// The templates EmailNotification.content.templateName refers to, compiled once per name and
+// version and kept in a bounded cache. A template is the classpath resource
+// <email.templates.location>/<name>/v<version>.txt: a "Subject: " line, a blank line, and the
+// body, with {{name}} placeholders (see CompiledTemplate) filled from the notification's
+// personalizedData. A notification without templateVersion gets version 1.
+//
+// Versions are never edited in place: a changed template is a new file, so notifications
+// queued before the change still render the way they were written, and a cached version never
+// goes stale. Missing templates are cached too, as empty, so a notification naming one does
+// not cost a classpath lookup per send.
+@Service
+public class EmailTemplates {
+
+    public static final int DEFAULT_VERSION = 1;
+
+    private static final String SUBJECT = "Subject:";
+
+    private final String location;
+    private final ClassLoader classLoader;
+    private final Cache<String, Optional<Template>> compiled;
+
+    public EmailTemplates(MeterRegistry meterRegistry,
+                          @Value("${email.templates.location:email-templates}") String location,
+                          @Value("${email.templates.cache-size:1000}") long cacheSize) {
+        this.location = location;
+        this.classLoader = EmailTemplates.class.getClassLoader();
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, compiled, "emailTemplates");
+    }
+
+    // The compiled template, or null if there is no such template.
+    public Template get(String name, Integer version) {
+        if (name == null || name.isEmpty() || name.contains("/") || name.contains("..")) {
+            return null;
+        }
+        int resolved = version != null ? version : DEFAULT_VERSION;
+        return compiled.get(name + "/v" + resolved, this::load).orElse(null);
+    }
+
+    public static Template parse(String source) {
+        String text = source.replace("\r\n", "\n");
+        int endOfSubject = text.indexOf('\n');
+        if (!text.startsWith(SUBJECT) || endOfSubject < 0) {
+            throw new IllegalArgumentException("An email template starts with a \"Subject:\" line");
+        }
+        String subject = text.substring(SUBJECT.length(), endOfSubject).trim();
+        String body = text.substring(endOfSubject + 1);
+        if (body.startsWith("\n")) {
+            body = body.substring(1);
+        }
+        return new Template(CompiledTemplate.compile(subject), CompiledTemplate.compile(body));
+    }
+
+    private Optional<Template> load(String key) {
+        try (InputStream in = classLoader.getResourceAsStream(location + "/" + key + ".txt")) {
+            if (in == null) {
+                return Optional.empty();
+            }
+            return Optional.of(parse(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read email template " + key, e);
+        }
+    }
+
+    public static final class Template {
+
+        private final CompiledTemplate subject;
+        private final CompiledTemplate body;
+
+        private Template(CompiledTemplate subject, CompiledTemplate body) {
+            this.subject = subject;
+            this.body = body;
+        }
+
+        public String renderSubject(Map<String, ?> values) {
+            return subject.render(values);
+        }
+
+        // Appends the body to out, which callers clear and reuse between messages.
+        public StringBuilder renderBody(StringBuilder out, Map<String, ?> values) {
+            return body.render(out, values);
+        }
+
+        public CompiledTemplate getSubject() {
+            return subject;
+        }
+
+        public CompiledTemplate getBody() {
+            return body;
+        }
+    }
+}
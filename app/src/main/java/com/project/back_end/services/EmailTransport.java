@@ -0,0 +1,34 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+
+// How an EmailNotification leaves the application. EmailDispatcher calls send from up to
+// email.dispatch.concurrency threads at once, so implementations must be thread-safe.
+// SmtpEmailTransport is the default; declare another EmailTransport bean as @Primary to
+// replace it.
+public interface EmailTransport {
+
+    // Returns once the message was accepted for delivery.
+    void send(EmailNotification notification) throws DeliveryException;
+
+    // A failed send. Permanent failures (the mail server rejected the recipient or the
+    // message) are not retried.
+    class DeliveryException extends Exception {
+
+        private final boolean permanent;
+
+        public DeliveryException(String message, boolean permanent) {
+            super(message);
+            this.permanent = permanent;
+        }
+
+        public DeliveryException(String message, Throwable cause) {
+            super(message, cause);
+            this.permanent = false;
+        }
+
+        public boolean isPermanent() {
+            return permanent;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.project.back_end.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Every timed invalidation in the application runs off one HierarchicalTimingWheel and one
+// ticker thread: user sessions, password reset tokens and account lockouts. Owners schedule
+// a deadline under their kind and an id, and get the ids back in a batch once the deadline
+// has passed, instead of scanning their table for expired rows. Scheduling, rescheduling and
+// cancelling are O(1).
+//
+// Nothing here is persisted. Each owner reschedules its pending deadlines from MySQL at
+// startup, and must treat a callback as "probably expired": check the row before acting.
+//
+// A batch whose handler throws is counted under expiry.failures and scheduled again
+// expiry.retry-ms later, so an expiry is not lost to a database that was briefly down; ids
+// the handler rescheduled itself keep their new deadline.
+@Service
+public class ExpiryScheduler {
+
+    public enum Kind {
+        SESSION,
+        PASSWORD_RESET,
+        ACCOUNT_LOCK
+    }
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final HierarchicalTimingWheel<Entry> wheel;
+    // Guarded by lock
+    private final Map<Kind, Map<String, HierarchicalTimingWheel.Timer<Entry>>> pending = new EnumMap<>(Kind.class);
+    // Written by owners' constructors, read on the ticker thread, which is already running
+    private final Map<Kind, Consumer<List<String>>> handlers = new ConcurrentHashMap<>();
+    private final Map<Kind, Counter> fired = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> failures = new EnumMap<>(Kind.class);
+    private final Counter tickFailures;
+    private final long retryMillis;
+    private final ScheduledExecutorService ticker;
+
+    public ExpiryScheduler(MeterRegistry meterRegistry,
+                           @Value("${expiry.tick-ms:1000}") long tickMillis,
+                           @Value("${expiry.retry-ms:5000}") long retryMillis) {
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, System.currentTimeMillis());
+        this.retryMillis = retryMillis;
+        for (Kind kind : Kind.values()) {
+            pending.put(kind, new HashMap<>());
+            fired.put(kind, meterRegistry.counter("expiry.fired", "kind", kind.name().toLowerCase()));
+            failures.put(kind, meterRegistry.counter("expiry.failures", "kind", kind.name().toLowerCase()));
+        }
+        this.tickFailures = meterRegistry.counter("expiry.tick.failures");
+        meterRegistry.gauge("expiry.pending", this, ExpiryScheduler::size);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tickQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Registered once per kind, by its owner's constructor. The handler runs on the ticker
+    // thread outside the wheel's lock, so it may schedule and cancel, but should not block long.
+    public void onExpiry(Kind kind, Consumer<List<String>> handler) {
+        if (handlers.putIfAbsent(kind, handler) != null) {
+            throw new IllegalStateException("An expiry handler is already registered for " + kind);
+        }
+    }
+
+    // Replaces any deadline already pending for the same kind and id.
+    public void schedule(Kind kind, String id, long deadlineMillis) {
+        synchronized (lock) {
+            HierarchicalTimingWheel.Timer<Entry> previous =
+                    pending.get(kind).put(id, wheel.schedule(new Entry(kind, id), deadlineMillis));
+            wheel.cancel(previous);
+        }
+    }
+
+    // False when nothing was pending, e.g. the deadline already fired.
+    public boolean cancel(Kind kind, String id) {
+        synchronized (lock) {
+            return wheel.cancel(pending.get(kind).remove(id));
+        }
+    }
+
+    public boolean isPending(Kind kind, String id) {
+        synchronized (lock) {
+            return pending.get(kind).containsKey(id);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    // Fires everything due at or before nowMillis. Called by the ticker; tests drive it directly.
+    void tick(long nowMillis) {
+        Map<Kind, List<String>> due = new EnumMap<>(Kind.class);
+        synchronized (lock) {
+            wheel.advanceTo(nowMillis, entry -> {
+                pending.get(entry.kind).remove(entry.id);
+                due.computeIfAbsent(entry.kind, kind -> new ArrayList<>()).add(entry.id);
+            });
+        }
+        for (Map.Entry<Kind, List<String>> batch : due.entrySet()) {
+            fired.get(batch.getKey()).increment(batch.getValue().size());
+            Consumer<List<String>> handler = handlers.get(batch.getKey());
+            if (handler == null) {
+                continue;
+            }
+            try {
+                handler.accept(batch.getValue());
+            } catch (RuntimeException e) {
+                // One owner failing must not stop the others
+                failures.get(batch.getKey()).increment();
+                retry(batch.getKey(), batch.getValue(), nowMillis + retryMillis);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void tickQuietly() {
+        try {
+            tick(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next tick covers the same range
+            tickFailures.increment();
+        }
+    }
+
+    private void retry(Kind kind, List<String> ids, long deadlineMillis) {
+        synchronized (lock) {
+            Map<String, HierarchicalTimingWheel.Timer<Entry>> timers = pending.get(kind);
+            for (String id : ids) {
+                if (!timers.containsKey(id)) {
+                    timers.put(id, wheel.schedule(new Entry(kind, id), deadlineMillis));
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Kind kind;
+        private final String id;
+
+        private Entry(Kind kind, String id) {
+            this.kind = kind;
+            this.id = id;
+        }
+    }
+}
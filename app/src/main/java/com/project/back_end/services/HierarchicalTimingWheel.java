@@ -0,0 +1,196 @@
+package com.project.back_end.services;
+
+import java.util.function.Consumer;
+
+// Hierarchical hashed timing wheel. Four levels of 256, 64, 64 and 64 buckets cover 2^26 ticks
+// (about 776 days at one-second ticks); deadlines further out are parked in the top level and
+// re-placed each time they cascade. Scheduling and cancelling are O(1): every bucket is an
+// intrusive doubly linked list and each timer knows its bucket. Advancing the wheel costs one
+// step per elapsed tick plus, every 256 ticks, re-placing the timers of one higher-level bucket.
+//
+// Timers go into a level by how far away they are and into a bucket by the bits of their
+// absolute deadline tick for that level, as in the classic kernel timer wheel. A bucket is
+// cascaded into the level below when the lower levels wrap around, which is never later
+// than any of its deadlines.
+//
+// Not thread-safe; callers serialize access.
+public class HierarchicalTimingWheel<T> {
+
+    private static final int[] BITS = {8, 6, 6, 6};
+    private static final int LEVELS = BITS.length;
+    private static final long SPAN = 1L << 26;
+
+    private final long tickMillis;
+    private final long originMillis;
+    private final Bucket<T>[][] levels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.originMillis = nowMillis;
+        this.levels = new Bucket[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            levels[level] = new Bucket[1 << BITS[level]];
+            for (int i = 0; i < levels[level].length; i++) {
+                levels[level][i] = new Bucket<>();
+            }
+        }
+    }
+
+    // Deadlines in the past fire on the next advance.
+    public Timer<T> schedule(T payload, long deadlineMillis) {
+        Timer<T> timer = new Timer<>(payload, ticksFor(deadlineMillis));
+        place(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    // False when the timer already fired or was cancelled.
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.bucket == null) {
+            return false;
+        }
+        timer.bucket.unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Fires every timer due at or before nowMillis, tick by tick.
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long target = (nowMillis - originMillis) / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            Bucket<T> due = levels[0][(int) (currentTick & mask(0))];
+            Timer<T> timer;
+            while ((timer = due.poll()) != null) {
+                size--;
+                expired.accept(timer.payload);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private long ticksFor(long deadlineMillis) {
+        long delta = deadlineMillis - originMillis;
+        // Round up so a timer never fires before its deadline
+        return delta <= 0 ? 0 : (delta + tickMillis - 1) / tickMillis;
+    }
+
+    // earliest is the next tick for new timers, and the current one for cascaded timers, whose
+    // bucket in level 0 is processed straight after the cascade.
+    private void place(Timer<T> timer, long earliest) {
+        long deadline = Math.max(timer.deadlineTick, earliest);
+        long delta = deadline - currentTick;
+        if (delta >= SPAN) {
+            deadline = currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int shift = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (shift + BITS[level]) || level == LEVELS - 1) {
+                levels[level][(int) ((deadline >>> shift) & mask(level))].add(timer);
+                return;
+            }
+            shift += BITS[level];
+        }
+    }
+
+    // When level L wraps to bucket 0, level L + 1 moves on by one bucket; that bucket's timers
+    // are now close enough to be re-placed lower down. Higher levels go first so their timers
+    // can land in the bucket cascaded next.
+    private void cascade() {
+        int wrapped = 0;
+        int shift = 0;
+        while (wrapped < LEVELS - 1 && ((currentTick >>> shift) & mask(wrapped)) == 0) {
+            shift += BITS[wrapped];
+            wrapped++;
+        }
+        for (int level = wrapped; level >= 1; level--) {
+            int levelShift = 0;
+            for (int i = 0; i < level; i++) {
+                levelShift += BITS[i];
+            }
+            Bucket<T> bucket = levels[level][(int) ((currentTick >>> levelShift) & mask(level))];
+            Timer<T> timer;
+            while ((timer = bucket.poll()) != null) {
+                place(timer, currentTick);
+            }
+        }
+    }
+
+    private static long mask(int level) {
+        return (1L << BITS[level]) - 1;
+    }
+
+    public static final class Timer<T> {
+
+        private final T payload;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        private Timer<T> head;
+
+        private void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = null;
+            timer.next = head;
+            if (head != null) {
+                head.prev = timer;
+            }
+            head = timer;
+        }
+
+        private void unlink(Timer<T> timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+            timer.bucket = null;
+            timer.prev = null;
+            timer.next = null;
+        }
+
+        private Timer<T> poll() {
+            Timer<T> timer = head;
+            if (timer != null) {
+                unlink(timer);
+            }
+            return timer;
+        }
+    }
+}
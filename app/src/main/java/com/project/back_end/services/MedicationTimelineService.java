@@ -0,0 +1,314 @@
+package com.project.back_end.services;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.MedicationTimeline;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Keeps medication_timelines (see MedicationTimeline) in step with the prescriptions
+// collection, so a patient's active medications are one read by _id instead of loading every
+// prescription and working out durations and refills per request.
+//
+// PrescriptionService calls onPrescriptionSaved after every save and status change, and
+// PrescriptionImportService after every batch. Each prescription is written as its own entry
+// with a conditional $set upsert: the write only applies if the stored entry is older than the
+// prescription's updatedAt, so two saves of the same prescription that reach Mongo out of order
+// keep the newer one. A write that loses fails the upsert with a duplicate key and is dropped.
+//
+// rebuild() recomputes every timeline from prescriptions, e.g. after the computation changes or
+// writes went to the collection without going through here.
+@Service
+public class MedicationTimelineService {
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int REBUILD_CURSOR_BATCH = 1000;
+    private static final Pattern DURATION = Pattern.compile("(\\d{1,4})\\s*(day|week|month|year)s?\\b");
+
+    private final MongoOperations mongoOperations;
+    private final int partitions;
+    private final int batchSize;
+    private final Counter staleWrites;
+    private final Counter rebuildSkipped;
+
+    public MedicationTimelineService(MongoOperations mongoOperations,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${prescriptions.timeline.rebuild-partitions:4}") int partitions,
+                                     @Value("${prescriptions.timeline.rebuild-batch-size:500}") int batchSize) {
+        this.mongoOperations = mongoOperations;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.staleWrites = meterRegistry.counter("prescriptions.timeline.stale-writes");
+        this.rebuildSkipped = meterRegistry.counter("prescriptions.timeline.rebuild.skipped");
+    }
+
+    // Call after a prescription was saved or its status changed. The prescription must have an
+    // id. A prescription moved to another patient must also be removed from the old one with
+    // onPrescriptionDeleted.
+    public void onPrescriptionSaved(Prescription prescription) {
+        onPrescriptionsSaved(List.of(prescription));
+    }
+
+    public void onPrescriptionsSaved(Collection<Prescription> prescriptions) {
+        if (prescriptions.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationTimeline.class);
+        for (Prescription prescription : prescriptions) {
+            MedicationTimeline.Entry entry = entry(prescription);
+            String key = "prescriptions." + entry.getPrescriptionId();
+            bulk.upsert(Query.query(Criteria.where("_id").is(prescription.getPatientId()).orOperator(
+                            Criteria.where(key + ".version").lt(entry.getVersion()),
+                            Criteria.where(key).exists(false))),
+                    new Update().set(key, entry).set("updatedAt", now));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            rethrowUnlessDuplicates(e, staleWrites);
+        }
+    }
+
+    public void onPrescriptionDeleted(Long patientId, String prescriptionId) {
+        mongoOperations.updateFirst(Query.query(Criteria.where("_id").is(patientId)),
+                new Update().unset("prescriptions." + prescriptionId).set("updatedAt", LocalDateTime.now()),
+                MedicationTimeline.class);
+    }
+
+    // The patient's timeline; an empty one if they have no prescriptions.
+    public MedicationTimeline getTimeline(Long patientId) {
+        MedicationTimeline timeline = mongoOperations.findById(patientId, MedicationTimeline.class);
+        return timeline != null ? timeline : new MedicationTimeline(patientId);
+    }
+
+    // The patient's active prescriptions at time, newest first, each with only the medications
+    // whose course is still running.
+    public List<MedicationTimeline.Entry> getActiveMedications(Long patientId, LocalDateTime time) {
+        List<MedicationTimeline.Entry> active = new ArrayList<>();
+        for (MedicationTimeline.Entry entry : getTimeline(patientId).getPrescriptions().values()) {
+            if (entry.getStatus() != Prescription.PrescriptionStatus.ACTIVE) {
+                continue;
+            }
+            List<MedicationTimeline.Course> running = new ArrayList<>();
+            for (MedicationTimeline.Course course : entry.getMedications()) {
+                if (course.isActiveAt(time)) {
+                    running.add(course);
+                }
+            }
+            if (!running.isEmpty()) {
+                entry.setMedications(running);
+                active.add(entry);
+            }
+        }
+        active.sort(Comparator.comparing(MedicationTimeline.Entry::getPrescriptionDate,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return active;
+    }
+
+    // Rebuilds every timeline from prescriptions. The patient id range is split into
+    // prescriptions.timeline.rebuild-partitions slices streamed in parallel, each in patient
+    // order straight off the (patientId, prescriptionDate desc) index that PrescriptionCache
+    // creates, with no in-memory sort on the server, so a thread holds one patient's
+    // prescriptions and one batch of timelines at a time. A timeline written by
+    // onPrescriptionSaved after the rebuild started is left alone, counted as skipped, and
+    // keeps whatever else it held before; running the rebuild again brings it up to date.
+    // Timelines of patients who no longer have prescriptions are removed. Returns the number
+    // of prescriptions read.
+    public long rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Long first = boundaryPatientId(Sort.Direction.ASC);
+        Long last = boundaryPatientId(Sort.Direction.DESC);
+        if (first == null) {
+            mongoOperations.remove(new Query(), MedicationTimeline.class);
+            return 0;
+        }
+
+        long span = last - first + 1;
+        int slices = (int) Math.max(1, Math.min(partitions, span));
+        long step = span / slices + (span % slices == 0 ? 0 : 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(slices, runnable -> {
+            Thread thread = new Thread(runnable, "medication-timeline-rebuild-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                long from = first + step * slice;
+                long to = slice == slices - 1 ? last + 1 : Math.min(last + 1, from + step);
+                results.add(executor.submit(() -> rebuildRange(from, to, startedAt)));
+            }
+            long read = 0;
+            for (Future<Long> result : results) {
+                read += result.get();
+            }
+            mongoOperations.remove(Query.query(Criteria.where("updatedAt").lt(startedAt)), MedicationTimeline.class);
+            return read;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding medication timelines", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not rebuild medication timelines", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Prescriptions of patients in [from, to), in patient order.
+    private long rebuildRange(long from, long to, LocalDateTime startedAt) {
+        Query query = Query.query(Criteria.where("patientId").gte(from).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "patientId").and(Sort.by(Sort.Direction.DESC, "prescriptionDate")))
+                .cursorBatchSize(REBUILD_CURSOR_BATCH);
+        query.fields().include("patientId", "appointmentId", "doctorId", "doctorName", "prescriptionDate",
+                "status", "updatedAt", "medications");
+
+        List<MedicationTimeline> batch = new ArrayList<>(batchSize);
+        MedicationTimeline current = null;
+        long read = 0;
+        try (Stream<Prescription> prescriptions = mongoOperations.stream(query, Prescription.class)) {
+            for (Prescription prescription : (Iterable<Prescription>) prescriptions::iterator) {
+                if (current == null || !current.getPatientId().equals(prescription.getPatientId())) {
+                    if (current != null) {
+                        batch.add(current);
+                    }
+                    if (batch.size() >= batchSize) {
+                        replace(batch, startedAt);
+                    }
+                    current = new MedicationTimeline(prescription.getPatientId());
+                }
+                MedicationTimeline.Entry entry = entry(prescription);
+                current.getPrescriptions().put(entry.getPrescriptionId(), entry);
+                read++;
+            }
+        }
+        if (current != null) {
+            batch.add(current);
+        }
+        replace(batch, startedAt);
+        return read;
+    }
+
+    // Replaces whole timelines, except those updated since the rebuild started.
+    private void replace(List<MedicationTimeline> timelines, LocalDateTime startedAt) {
+        if (timelines.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationTimeline.class);
+        for (MedicationTimeline timeline : timelines) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(timeline.getPatientId()).orOperator(
+                            Criteria.where("updatedAt").lt(startedAt),
+                            Criteria.where("updatedAt").exists(false))),
+                    new Update().set("prescriptions", timeline.getPrescriptions()).set("updatedAt", startedAt));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            rethrowUnlessDuplicates(e, rebuildSkipped);
+        }
+        timelines.clear();
+    }
+
+    private Long boundaryPatientId(Sort.Direction direction) {
+        Query query = new Query().with(Sort.by(direction, "patientId")).limit(1);
+        query.fields().include("patientId");
+        List<Prescription> found = mongoOperations.find(query, Prescription.class);
+        return found.isEmpty() ? null : found.get(0).getPatientId();
+    }
+
+    // Conditional upserts that lost to a newer write fail with a duplicate _id; anything else
+    // is a real failure.
+    private static void rethrowUnlessDuplicates(BulkOperationException e, Counter duplicates) {
+        for (BulkWriteError error : e.getErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+        }
+        duplicates.increment(e.getErrors().size());
+    }
+
+    static MedicationTimeline.Entry entry(Prescription prescription) {
+        if (prescription.getId() == null) {
+            throw new IllegalArgumentException("Only saved prescriptions can be added to a timeline");
+        }
+        MedicationTimeline.Entry entry = new MedicationTimeline.Entry();
+        entry.setPrescriptionId(prescription.getId());
+        entry.setAppointmentId(prescription.getAppointmentId());
+        entry.setDoctorId(prescription.getDoctorId());
+        entry.setDoctorName(prescription.getDoctorName());
+        entry.setPrescriptionDate(prescription.getPrescriptionDate());
+        entry.setStatus(prescription.getStatus());
+        entry.setVersion(prescription.getUpdatedAt() != null ? prescription.getUpdatedAt() : LocalDateTime.now());
+        if (prescription.getMedications() != null) {
+            for (Prescription.Medication medication : prescription.getMedications()) {
+                entry.getMedications().add(course(medication, prescription.getPrescriptionDate()));
+            }
+        }
+        return entry;
+    }
+
+    static MedicationTimeline.Course course(Prescription.Medication medication, LocalDateTime prescribedAt) {
+        int refillsAllowed = medication.getRefillsAllowed() != null ? medication.getRefillsAllowed() : 0;
+        int refillsUsed = medication.getRefillsUsed() != null ? Math.min(medication.getRefillsUsed(), refillsAllowed) : 0;
+        MedicationTimeline.Course course = new MedicationTimeline.Course();
+        course.setName(medication.getName());
+        course.setDosage(medication.getDosage());
+        course.setFrequency(medication.getFrequency());
+        course.setInstructions(medication.getInstructions());
+        course.setStartsAt(prescribedAt);
+        course.setRefillsRemaining(refillsAllowed - refillsUsed);
+        Period fill = parseDuration(medication.getDuration());
+        if (fill != null && prescribedAt != null) {
+            course.setSupplyEndsAt(prescribedAt.plus(fill.multipliedBy(1 + refillsUsed)));
+            course.setEndsAt(prescribedAt.plus(fill.multipliedBy(1 + refillsAllowed)));
+        }
+        return course;
+    }
+
+    // "30 days", "2 weeks", "3 Months", "1 year", also "1 month 2 weeks"; null for durations
+    // without a fixed length ("ongoing", "as needed") or that cannot be read.
+    static Period parseDuration(String duration) {
+        if (duration == null) {
+            return null;
+        }
+        Matcher matcher = DURATION.matcher(duration.toLowerCase(Locale.ROOT));
+        Period period = null;
+        while (matcher.find()) {
+            int amount = Integer.parseInt(matcher.group(1));
+            Period part = switch (matcher.group(2)) {
+                case "day" -> Period.ofDays(amount);
+                case "week" -> Period.ofWeeks(amount);
+                case "month" -> Period.ofMonths(amount);
+                default -> Period.ofYears(amount);
+            };
+            period = period == null ? part : period.plus(part);
+        }
+        return period;
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.back_end.services;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Clears a patient's password reset token and account lockout at the moment they run out,
+// through ExpiryScheduler, so neither lingers in the patients table until someone next reads
+// the row. Callers still compare passwordResetExpires and accountLockedUntil with the clock
+// when they use them; this class only does the cleanup.
+//
+// Each clearing UPDATE re-checks the deadline column, so a reset that was re-issued or a lock
+// that was extended after the callback was scheduled is left alone.
+@Service
+public class PatientExpiryService {
+
+    private static final String LOAD_RESETS =
+            "select id, password_reset_expires from patients where password_reset_expires > ?";
+    private static final String LOAD_LOCKS =
+            "select id, account_locked_until from patients where account_locked_until > ?";
+    private static final String CLEAR_RESET = "update patients set password_reset_token = null, password_reset_expires = null " +
+            "where id = ? and password_reset_expires <= ?";
+    private static final String CLEAR_LOCK = "update patients set account_locked_until = null, failed_login_attempts = 0 " +
+            "where id = ? and account_locked_until <= ?";
+    private static final String CLEAR_STALE_RESETS = "update patients set password_reset_token = null, password_reset_expires = null " +
+            "where password_reset_expires <= ?";
+    private static final String CLEAR_STALE_LOCKS = "update patients set account_locked_until = null, failed_login_attempts = 0 " +
+            "where account_locked_until <= ?";
+
+    // DATETIME columns round to whole seconds, so a stored deadline can sit up to half a second
+    // after the one that was scheduled
+    private static final long ROUNDING_SLACK_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpiryScheduler expiryScheduler;
+
+    public PatientExpiryService(JdbcTemplate jdbcTemplate, ExpiryScheduler expiryScheduler) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expiryScheduler = expiryScheduler;
+        expiryScheduler.onExpiry(ExpiryScheduler.Kind.PASSWORD_RESET, ids -> clear(CLEAR_RESET, ids));
+        expiryScheduler.onExpiry(ExpiryScheduler.Kind.ACCOUNT_LOCK, ids -> clear(CLEAR_LOCK, ids));
+    }
+
+    // Schedules what is still pending, and clears what ran out while the application was down.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(CLEAR_STALE_RESETS, now);
+        jdbcTemplate.update(CLEAR_STALE_LOCKS, now);
+        jdbcTemplate.query(LOAD_RESETS, rs -> {
+            expiryScheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, rs.getString("id"),
+                    rs.getTimestamp("password_reset_expires").getTime());
+        }, now);
+        jdbcTemplate.query(LOAD_LOCKS, rs -> {
+            expiryScheduler.schedule(ExpiryScheduler.Kind.ACCOUNT_LOCK, rs.getString("id"),
+                    rs.getTimestamp("account_locked_until").getTime());
+        }, now);
+    }
+
+    // Call after saving a new reset token; replaces the deadline of any earlier token.
+    public void passwordResetIssued(Long patientId, LocalDateTime expires) {
+        expiryScheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, patientId.toString(), toMillis(expires));
+    }
+
+    // Call once the token has been used or withdrawn.
+    public void passwordResetCleared(Long patientId) {
+        expiryScheduler.cancel(ExpiryScheduler.Kind.PASSWORD_RESET, patientId.toString());
+    }
+
+    public void accountLocked(Long patientId, LocalDateTime until) {
+        expiryScheduler.schedule(ExpiryScheduler.Kind.ACCOUNT_LOCK, patientId.toString(), toMillis(until));
+    }
+
+    // Call when an admin unlocks the account early.
+    public void accountUnlocked(Long patientId) {
+        expiryScheduler.cancel(ExpiryScheduler.Kind.ACCOUNT_LOCK, patientId.toString());
+    }
+
+    private void clear(String sql, List<String> patientIds) {
+        Timestamp now = new Timestamp(System.currentTimeMillis() + ROUNDING_SLACK_MILLIS);
+        List<Object[]> args = new ArrayList<>(patientIds.size());
+        for (String id : patientIds) {
+            args.add(new Object[]{Long.valueOf(id), now});
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
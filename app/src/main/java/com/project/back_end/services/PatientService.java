@@ -53,6 +53,11 @@ public class PatientService {
 //    - The service uses `AppointmentDTO` to transfer appointment-related data between layers. This ensures that sensitive or unnecessary data (e.g., password or private patient information) is not exposed in the response.
 //    - Instruction: Ensure that DTOs are used appropriately to limit the exposure of internal data and only send the relevant fields to the client.
 
+// 11. **Password Reset**:
+//    - Store the SHA-256 of the emailed reset token in `passwordResetToken` with `passwordResetExpires`, then call
+//      `patientExpiryService.passwordResetIssued(id, expires)`. Once the token is used, clear both columns and call `passwordResetCleared(id)`.
+//    - Expired tokens are cleared by `PatientExpiryService`; still compare `passwordResetExpires` with the clock when a token is redeemed.
+
 
 
 }
@@ -0,0 +1,350 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Reconciles the payments table against a payment provider's settlement file (see
+// SettlementFile) for a range of payment dates.
+//
+// The settlement file is memory-mapped and indexed by transaction id; the payments of the
+// range are then read in one forward-only, streaming result set and each is looked up in that
+// index, a hash join that holds neither side in memory. Each payment that matches a settled
+// row has its amount and status compared:
+//   - a different amount is reported and nothing is changed, so it can be looked into;
+//   - a PENDING payment takes the provider's final status (settled, failed or refunded), and a
+//     COMPLETED one becomes REFUNDED when the provider refunded it;
+//   - any other difference in status is reported and left alone.
+// Status changes are written in batches of payments.reconciliation.batch-size, each UPDATE
+// conditional on the status the payment was read with, so a payment changed meanwhile is not
+// overwritten. They are written with JDBC, past AuditChangeListener.
+//
+// The report is NDJSON, one line per discrepancy or status change, written as the payments are
+// read and followed by a summary line:
+//   {"type":"status_change","paymentId":7,"transactionId":"tx-7","from":"PENDING","to":"COMPLETED","applied":true}
+//   {"type":"amount_mismatch","paymentId":8,"transactionId":"tx-8","expected":"120.00","settled":"100.00"}
+//   {"type":"status_mismatch","paymentId":9,"transactionId":"tx-9","paymentStatus":"FAILED","settlementStatus":"settled"}
+//   {"type":"missing_settlement","paymentId":10,"transactionId":"tx-10","paymentStatus":"COMPLETED"}
+//   {"type":"unknown_settlement","line":42,"transactionId":"tx-99","amount":"15.00","status":"settled"}
+//   {"type":"duplicate_settlement","line":43,"transactionId":"tx-7"}
+//   {"type":"malformed_settlement","line":44,"error":"..."}
+//   {"summary":{"payments":4,"settlements":4,"matched":3,"statusChanges":1,"discrepancies":6}}
+// A transaction id on more than one row is one settlement, matched against its first row; the
+// later rows are reported as duplicates only.
+// Settlement rows for payments outside the date range are reported as unknown, so the range
+// should cover the period the file settles.
+@Service
+public class PaymentReconciliationService {
+
+    private static final String PAYMENTS = "select id, transaction_id, amount, payment_status from payments " +
+            "where payment_date >= ? and payment_date < ? and transaction_id is not null";
+    private static final String SET_STATUS =
+            "update payments set payment_status = ?, updated_at = ? where id = ? and payment_status = ?";
+
+    private static final Map<String, Payment.PaymentStatus> SETTLEMENT_STATUSES = Map.ofEntries(
+            Map.entry("pending", Payment.PaymentStatus.PENDING),
+            Map.entry("settled", Payment.PaymentStatus.COMPLETED),
+            Map.entry("completed", Payment.PaymentStatus.COMPLETED),
+            Map.entry("paid", Payment.PaymentStatus.COMPLETED),
+            Map.entry("failed", Payment.PaymentStatus.FAILED),
+            Map.entry("declined", Payment.PaymentStatus.FAILED),
+            Map.entry("rejected", Payment.PaymentStatus.FAILED),
+            Map.entry("refunded", Payment.PaymentStatus.REFUNDED),
+            Map.entry("reversed", Payment.PaymentStatus.REFUNDED),
+            Map.entry("chargeback", Payment.PaymentStatus.REFUNDED));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Counter discrepancies;
+    private final Counter statusChanges;
+    private final Timer runTime;
+
+    public PaymentReconciliationService(JdbcTemplate jdbcTemplate,
+                                        ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${payments.reconciliation.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.discrepancies = meterRegistry.counter("payments.reconciliation.discrepancies");
+        this.statusChanges = meterRegistry.counter("payments.reconciliation.status-changes");
+        this.runTime = meterRegistry.timer("payments.reconciliation.run");
+    }
+
+    // Reconciles the payments dated [from, to) and writes the report to out, which is flushed
+    // but not closed. The settlement file is closed before this returns, though the JVM may
+    // keep it mapped until the buffer is collected. With apply false nothing is written to the database and the report shows
+    // the status changes that would be made.
+    public Summary reconcile(LocalDate from, LocalDate to, Path settlementFile, OutputStream out, boolean apply)
+            throws IOException {
+        long start = System.nanoTime();
+        Summary summary;
+        try (SettlementFile settlements = SettlementFile.open(settlementFile)) {
+            JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+            json.setRootValueSeparator(null);
+            Run run = new Run(settlements, json, batchSize, apply ? this::writeStatuses : null);
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(PAYMENTS,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    // MySQL Connector/J streams the result row by row only for this fetch size
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    statement.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                    statement.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+                    return statement;
+                }, rs -> {
+                    try {
+                        run.payment(rs.getInt("id"), rs.getString("transaction_id"), rs.getBigDecimal("amount"),
+                                rs.getString("payment_status"));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            summary = run.finish();
+        }
+        discrepancies.increment(summary.discrepancies);
+        statusChanges.increment(summary.statusChanges);
+        runTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return summary;
+    }
+
+    private int writeStatuses(List<Object[]> changes) {
+        int written = 0;
+        for (int count : jdbcTemplate.batchUpdate(SET_STATUS, changes)) {
+            written += Math.max(count, 0);
+        }
+        return written;
+    }
+
+    // The status a payment should move to given the provider's status, or null to leave it.
+    static Payment.PaymentStatus transition(Payment.PaymentStatus current, Payment.PaymentStatus settled) {
+        if (current == Payment.PaymentStatus.PENDING && settled != Payment.PaymentStatus.PENDING) {
+            return settled;
+        }
+        if (current == Payment.PaymentStatus.COMPLETED && settled == Payment.PaymentStatus.REFUNDED) {
+            return settled;
+        }
+        return null;
+    }
+
+    interface StatusWriter {
+        // Writes (status, updatedAt, id, expected status) rows; returns how many were changed.
+        int write(List<Object[]> changes);
+    }
+
+    // One reconciliation: fed the payments one at a time, then finished. Package-private so the
+    // matching can be checked without a database.
+    static final class Run {
+
+        private final SettlementFile settlements;
+        private final JsonGenerator json;
+        private final int batchSize;
+        private final StatusWriter writer;
+        private final BitSet matched;
+        private final List<Object[]> pending;
+        private final Summary summary = new Summary();
+
+        // writer null for a dry run.
+        Run(SettlementFile settlements, JsonGenerator json, int batchSize, StatusWriter writer) {
+            this.settlements = settlements;
+            this.json = json;
+            this.batchSize = batchSize;
+            this.writer = writer;
+            this.matched = new BitSet(settlements.getRowCount());
+            this.pending = new ArrayList<>(batchSize);
+        }
+
+        void payment(int id, String transactionId, BigDecimal amount, String status) throws IOException {
+            summary.payments++;
+            Payment.PaymentStatus current = status != null ? Payment.PaymentStatus.valueOf(status) : Payment.PaymentStatus.PENDING;
+            int row = settlements.find(transactionId);
+            if (row < 0) {
+                discrepancy("missing_settlement", id, transactionId);
+                json.writeStringField("paymentStatus", current.name());
+                end();
+                return;
+            }
+            summary.matched++;
+            matched.set(row);
+
+            BigDecimal settledAmount = settlements.getAmount(row);
+            String settlementStatus = settlements.getStatus(row);
+            Payment.PaymentStatus settled = SETTLEMENT_STATUSES.get(settlementStatus.toLowerCase(Locale.ROOT));
+            if (settledAmount == null || settled == null) {
+                malformed(settlements.getLineNumber(row), settledAmount == null
+                        ? "Amount is not a number for " + transactionId
+                        : "Unknown status \"" + settlementStatus + "\" for " + transactionId);
+                return;
+            }
+            if (amount == null || amount.compareTo(settledAmount) != 0) {
+                discrepancy("amount_mismatch", id, transactionId);
+                json.writeStringField("expected", amount != null ? amount.toPlainString() : null);
+                json.writeStringField("settled", settledAmount.toPlainString());
+                end();
+                return;
+            }
+            if (settled == current) {
+                return;
+            }
+            Payment.PaymentStatus next = transition(current, settled);
+            if (next == null) {
+                discrepancy("status_mismatch", id, transactionId);
+                json.writeStringField("paymentStatus", current.name());
+                json.writeStringField("settlementStatus", settlementStatus);
+                end();
+                return;
+            }
+            summary.statusChanges++;
+            json.writeStartObject();
+            json.writeStringField("type", "status_change");
+            json.writeNumberField("paymentId", id);
+            json.writeStringField("transactionId", transactionId);
+            json.writeStringField("from", current.name());
+            json.writeStringField("to", next.name());
+            json.writeBooleanField("applied", writer != null);
+            end();
+            if (writer != null) {
+                pending.add(new Object[]{next.name(), Timestamp.valueOf(LocalDateTime.now()), id, current.name()});
+                if (pending.size() >= batchSize) {
+                    flush();
+                }
+            }
+        }
+
+        Summary finish() throws IOException {
+            flush();
+            // a duplicate never matches, and is reported as a duplicate rather than as unknown
+            int[] duplicates = settlements.duplicateRows();
+            for (int row : duplicates) {
+                matched.set(row);
+            }
+            summary.settlements = settlements.getRowCount() - duplicates.length;
+            for (int row = matched.nextClearBit(0); row < settlements.getRowCount(); row = matched.nextClearBit(row + 1)) {
+                summary.discrepancies++;
+                json.writeStartObject();
+                json.writeStringField("type", "unknown_settlement");
+                json.writeNumberField("line", settlements.getLineNumber(row));
+                json.writeStringField("transactionId", settlements.getTransactionId(row));
+                BigDecimal amount = settlements.getAmount(row);
+                json.writeStringField("amount", amount != null ? amount.toPlainString() : null);
+                json.writeStringField("status", settlements.getStatus(row));
+                end();
+            }
+            for (int row : duplicates) {
+                summary.discrepancies++;
+                json.writeStartObject();
+                json.writeStringField("type", "duplicate_settlement");
+                json.writeNumberField("line", settlements.getLineNumber(row));
+                json.writeStringField("transactionId", settlements.getTransactionId(row));
+                end();
+            }
+            for (int line : settlements.malformedLines()) {
+                malformed(line, "Missing fields or transaction id");
+            }
+
+            json.writeStartObject();
+            json.writeFieldName("summary");
+            json.writeStartObject();
+            json.writeNumberField("payments", summary.payments);
+            json.writeNumberField("settlements", summary.settlements);
+            json.writeNumberField("matched", summary.matched);
+            json.writeNumberField("statusChanges", summary.statusChanges);
+            json.writeNumberField("discrepancies", summary.discrepancies);
+            json.writeEndObject();
+            end();
+            return summary;
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                summary.statusesWritten += writer.write(pending);
+                pending.clear();
+            }
+        }
+
+        private void discrepancy(String type, int paymentId, String transactionId) throws IOException {
+            summary.discrepancies++;
+            json.writeStartObject();
+            json.writeStringField("type", type);
+            json.writeNumberField("paymentId", paymentId);
+            json.writeStringField("transactionId", transactionId);
+        }
+
+        private void malformed(int line, String error) throws IOException {
+            summary.discrepancies++;
+            json.writeStartObject();
+            json.writeStringField("type", "malformed_settlement");
+            json.writeNumberField("line", line);
+            json.writeStringField("error", error);
+            end();
+        }
+
+        private void end() throws IOException {
+            json.writeEndObject();
+            json.writeRaw("\n");
+        }
+    }
+
+    public static final class Summary {
+
+        private long payments;
+        private long settlements;
+        private long matched;
+        private long statusChanges;
+        private long statusesWritten;
+        private long discrepancies;
+
+        public long getPayments() {
+            return payments;
+        }
+
+        public long getSettlements() {
+            return settlements;
+        }
+
+        public long getMatched() {
+            return matched;
+        }
+
+        // Status changes found; with apply, statusesWritten of them were written (the others
+        // had changed since they were read).
+        public long getStatusChanges() {
+            return statusChanges;
+        }
+
+        public long getStatusesWritten() {
+            return statusesWritten;
+        }
+
+        public long getDiscrepancies() {
+            return discrepancies;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.back_end.DTO.CachedJson;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// The prescriptions of an appointment, which a doctor's patientRecord.html page loads every time
+// a record is opened, kept as pre-serialized {"prescriptions":[...]} JSON per appointment so
+// PrescriptionController can write the bytes straight to the response (see CachedJson).
+// Entries are evicted by PrescriptionService.savePrescription and PrescriptionImportService, and
+// expire after prescription.cache.ttl-seconds for writes that reach the collection some other
+// way.
+//
+// Also creates the prescriptions indexes at startup: appointmentId for this lookup,
+// (patientId, prescriptionDate) for a patient's history, newest first, and (doctorId, status)
+// for a doctor's open prescriptions.
+@Service
+public class PrescriptionCache {
+
+    private final MongoOperations mongoOperations;
+    private final ObjectWriter writer;
+    private final Cache<Long, CachedJson> byAppointment;
+
+    public PrescriptionCache(MongoOperations mongoOperations,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${prescription.cache.max-size:10000}") long maxSize,
+                             @Value("${prescription.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.mongoOperations = mongoOperations;
+        this.writer = objectMapper.writer();
+        this.byAppointment = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byAppointment, "prescriptionsByAppointment");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations indexes = mongoOperations.indexOps(Prescription.class);
+        indexes.ensureIndex(new Index().named("appointmentId").on("appointmentId", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index().named("patientId_prescriptionDate")
+                .on("patientId", Sort.Direction.ASC).on("prescriptionDate", Sort.Direction.DESC));
+        indexes.ensureIndex(new Index().named("doctorId_status")
+                .on("doctorId", Sort.Direction.ASC).on("status", Sort.Direction.ASC));
+    }
+
+    // {"prescriptions":[...]} as UTF-8 JSON, oldest first; an empty list when there are none.
+    public CachedJson getByAppointment(Long appointmentId) {
+        return byAppointment.get(appointmentId, this::load);
+    }
+
+    // Call after a prescription for the appointment was saved, changed or deleted.
+    public void evictAppointment(Long appointmentId) {
+        byAppointment.invalidate(appointmentId);
+    }
+
+    public void evictAppointments(Collection<Long> appointmentIds) {
+        byAppointment.invalidateAll(appointmentIds);
+    }
+
+    private CachedJson load(Long appointmentId) {
+        Query query = Query.query(Criteria.where("appointmentId").is(appointmentId))
+                .with(Sort.by(Sort.Direction.ASC, "prescriptionDate"));
+        List<Prescription> prescriptions = mongoOperations.find(query, Prescription.class);
+        try {
+            return CachedJson.of(writer.writeValueAsBytes(Map.of("prescriptions", prescriptions)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the prescriptions of appointment " + appointmentId, e);
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Loads prescriptions from NDJSON, one Prescription per line, for migrations and EHR syncs
+// that are too large to post one at a time. Reading, validating, writing and reporting all
+// proceed record by record, so neither the upload nor the results are held in memory: at most
+// one batch of prescriptions.import.batch-size records is.
+//
+// Each line is framed on its own and handed to Jackson as a byte range, so a malformed record
+// fails alone and the ones after it still load. Records are validated against the model's
+// constraints (each medication included) and written in unordered bulk inserts: a failing
+// document does not stop the rest of its batch. A prescription for an appointment that already
+// has one, in the collection (which includes earlier batches) or earlier in its batch, is
+// reported as a duplicate, as PrescriptionService does for single saves. As for a single save,
+// DrugInteractionEngine fills in each record's interactions before it is written; the allergies
+// of a batch's patients are read with one query. The appointments of each written batch are
+// evicted from PrescriptionCache and its inserted prescriptions added to the patients'
+// medication timelines; a timeline that fails to update is counted and left for
+// MedicationTimelineService.rebuild(), since the prescriptions themselves are stored.
+//
+// The results go to the output as NDJSON, one line per record in input order, each batch's
+// lines flushed as soon as its write completes, followed by a summary line:
+//   {"line":1,"status":"inserted","id":"..."}
+//   {"line":2,"status":"invalid","errors":["medications[0].dosage: Dosage is required"]}
+//   {"line":3,"status":"duplicate","error":"A prescription already exists for appointment 17"}
+//   {"line":4,"status":"failed","error":"..."}
+//   {"summary":{"records":4,"inserted":1,"invalid":1,"duplicate":1,"failed":1}}
+@Service
+public class PrescriptionImportService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoOperations mongoOperations;
+    private final PrescriptionCache prescriptionCache;
+    private final MedicationTimelineService medicationTimelines;
+    private final DrugInteractionEngine interactionEngine;
+    private final AllergyLoader allergies;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxRecordBytes;
+    private final Counter inserted;
+    private final Counter rejected;
+    private final Counter timelineFailures;
+
+    @Autowired
+    public PrescriptionImportService(MongoOperations mongoOperations,
+                                     PrescriptionCache prescriptionCache,
+                                     MedicationTimelineService medicationTimelines,
+                                     DrugInteractionEngine interactionEngine,
+                                     EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     Validator validator,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${prescriptions.import.batch-size:1000}") int batchSize,
+                                     @Value("${prescriptions.import.max-record-bytes:1048576}") int maxRecordBytes) {
+        this(mongoOperations, prescriptionCache, medicationTimelines, interactionEngine,
+                allergyLoader(entityManager, transactionManager), objectMapper, validator, meterRegistry,
+                batchSize, maxRecordBytes);
+    }
+
+    // For tests, with the patient table replaced by allergies.
+    PrescriptionImportService(MongoOperations mongoOperations,
+                              PrescriptionCache prescriptionCache,
+                              MedicationTimelineService medicationTimelines,
+                              DrugInteractionEngine interactionEngine,
+                              AllergyLoader allergies,
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              MeterRegistry meterRegistry,
+                              int batchSize,
+                              int maxRecordBytes) {
+        this.mongoOperations = mongoOperations;
+        this.prescriptionCache = prescriptionCache;
+        this.medicationTimelines = medicationTimelines;
+        this.interactionEngine = interactionEngine;
+        this.allergies = allergies;
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(Prescription.class);
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxRecordBytes = maxRecordBytes;
+        this.inserted = meterRegistry.counter("prescriptions.import.inserted");
+        this.rejected = meterRegistry.counter("prescriptions.import.rejected");
+        this.timelineFailures = meterRegistry.counter("prescriptions.import.timeline.failures");
+    }
+
+    // Reads the whole input and writes the results as it goes. Only a failure to read the
+    // input or write the output ends the import early; whatever was written by then stays.
+    public Summary importNdjson(InputStream in, OutputStream out) throws IOException {
+        Summary summary = new Summary();
+        List<Result> batch = new ArrayList<>(batchSize);
+        // Flushed but not closed: the output belongs to the caller
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        // Records are separated by the newlines written after each, not Jackson's default space
+        json.setRootValueSeparator(null);
+        LineReader lines = new LineReader(in, maxRecordBytes);
+        while (lines.next()) {
+            if (lines.length == 0 && !lines.tooLong) {
+                // Blank lines are allowed between records and not reported
+                continue;
+            }
+            summary.records++;
+            Result result = new Result(lines.number);
+            batch.add(result);
+            if (lines.tooLong) {
+                result.invalid(List.of("Record exceeds " + maxRecordBytes + " bytes"));
+            } else {
+                parse(lines.buffer, lines.length, result);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch, summary, json);
+            }
+        }
+        write(batch, summary, json);
+        json.writeStartObject();
+        json.writeFieldName("summary");
+        json.writeStartObject();
+        json.writeNumberField("records", summary.records);
+        json.writeNumberField("inserted", summary.inserted);
+        json.writeNumberField("invalid", summary.invalid);
+        json.writeNumberField("duplicate", summary.duplicate);
+        json.writeNumberField("failed", summary.failed);
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeRaw("\n");
+        json.flush();
+        return summary;
+    }
+
+    private void parse(byte[] buffer, int length, Result result) {
+        Prescription prescription;
+        try {
+            prescription = reader.readValue(buffer, 0, length);
+        } catch (JsonProcessingException e) {
+            result.invalid(List.of("Malformed record: " + e.getOriginalMessage()));
+            return;
+        } catch (IOException e) {
+            result.invalid(List.of("Unreadable record: " + e.getMessage()));
+            return;
+        }
+        if (prescription == null) {
+            result.invalid(List.of("Empty record"));
+            return;
+        }
+        List<String> errors = validate(prescription);
+        if (!errors.isEmpty()) {
+            result.invalid(errors);
+            return;
+        }
+        if (prescription.getId() == null) {
+            prescription.setId(new ObjectId().toHexString());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (prescription.getCreatedAt() == null) {
+            prescription.setCreatedAt(now);
+        }
+        prescription.setUpdatedAt(now);
+        result.prescription = prescription;
+    }
+
+    private List<String> validate(Prescription prescription) {
+        // Sorted so the same record always reports the same way
+        Set<String> errors = new TreeSet<>();
+        for (ConstraintViolation<Prescription> violation : validator.validate(prescription)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        List<Prescription.Medication> medications = prescription.getMedications();
+        if (medications != null) {
+            for (int i = 0; i < medications.size(); i++) {
+                if (medications.get(i) == null) {
+                    errors.add("medications[" + i + "]: Medication is required");
+                    continue;
+                }
+                for (ConstraintViolation<Prescription.Medication> violation : validator.validate(medications.get(i))) {
+                    errors.add("medications[" + i + "]." + violation.getPropertyPath() + ": " + violation.getMessage());
+                }
+            }
+        }
+        if (prescription.getPharmacy() != null) {
+            for (ConstraintViolation<Prescription.Pharmacy> violation : validator.validate(prescription.getPharmacy())) {
+                errors.add("pharmacy." + violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+        }
+        return new ArrayList<>(errors);
+    }
+
+    // Writes the batch's valid records, then reports every record of the batch in order.
+    private void write(List<Result> batch, Summary summary, JsonGenerator json) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        rejectDuplicates(batch);
+        List<Result> writes = new ArrayList<>();
+        List<Prescription> documents = new ArrayList<>();
+        for (Result result : batch) {
+            if (result.prescription != null) {
+                writes.add(result);
+                documents.add(result.prescription);
+            }
+        }
+        if (!documents.isEmpty()) {
+            annotate(documents);
+            try {
+                mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)
+                        .insert(documents)
+                        .execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    Result result = writes.get(error.getIndex());
+                    result.failed(error.getCode() == DUPLICATE_KEY
+                            ? "A prescription with id " + result.prescription.getId() + " already exists"
+                            : error.getMessage(), error.getCode() == DUPLICATE_KEY);
+                }
+            } catch (RuntimeException e) {
+                for (Result result : writes) {
+                    result.failed(e.getMessage(), false);
+                }
+            }
+            prescriptionCache.evictAppointments(documents.stream().map(Prescription::getAppointmentId).toList());
+            updateTimelines(writes);
+        }
+        int insertedInBatch = 0;
+        for (Result result : batch) {
+            if (result.report(json, summary)) {
+                insertedInBatch++;
+            }
+        }
+        json.flush();
+        inserted.increment(insertedInBatch);
+        rejected.increment(batch.size() - insertedInBatch);
+        batch.clear();
+    }
+
+    private void updateTimelines(List<Result> writes) {
+        List<Prescription> inserted = new ArrayList<>(writes.size());
+        for (Result result : writes) {
+            if (Result.INSERTED.equals(result.status)) {
+                inserted.add(result.prescription);
+            }
+        }
+        try {
+            medicationTimelines.onPrescriptionsSaved(inserted);
+        } catch (RuntimeException e) {
+            timelineFailures.increment();
+        }
+    }
+
+    // One query per batch for the allergies of the patients the batch prescribes for.
+    private void annotate(List<Prescription> documents) {
+        Set<Long> patientIds = new HashSet<>();
+        for (Prescription prescription : documents) {
+            if (prescription.getPatientId() != null) {
+                patientIds.add(prescription.getPatientId());
+            }
+        }
+        Map<Long, String> allergiesByPatient = patientIds.isEmpty() ? Map.of() : allergies.load(patientIds);
+        for (Prescription prescription : documents) {
+            interactionEngine.annotate(prescription, allergiesByPatient.get(prescription.getPatientId()));
+        }
+    }
+
+    private static AllergyLoader allergyLoader(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return patientIds -> readOnly.execute(status -> {
+            Map<Long, String> allergies = new HashMap<>();
+            for (Object[] row : entityManager.createQuery(
+                    "select p.id, p.allergies from Patient p where p.id in :ids and p.allergies is not null", Object[].class)
+                    .setParameter("ids", patientIds)
+                    .getResultList()) {
+                allergies.put((Long) row[0], (String) row[1]);
+            }
+            return allergies;
+        });
+    }
+
+    // One query per batch for the appointments that already have a prescription.
+    private void rejectDuplicates(List<Result> batch) {
+        Set<Long> candidates = new HashSet<>();
+        for (Result result : batch) {
+            if (result.prescription != null) {
+                candidates.add(result.prescription.getAppointmentId());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<Long> taken = new HashSet<>();
+        Query query = Query.query(Criteria.where("appointmentId").in(candidates));
+        query.fields().include("appointmentId");
+        for (Prescription existing : mongoOperations.find(query, Prescription.class)) {
+            taken.add(existing.getAppointmentId());
+        }
+        Set<Long> inBatch = new HashSet<>();
+        for (Result result : batch) {
+            if (result.prescription == null) {
+                continue;
+            }
+            Long appointmentId = result.prescription.getAppointmentId();
+            if (taken.contains(appointmentId) || !inBatch.add(appointmentId)) {
+                result.duplicate("A prescription already exists for appointment " + appointmentId);
+            }
+        }
+    }
+
+    interface AllergyLoader {
+        // Patient.allergies by patient id; patients without allergies may be left out.
+        Map<Long, String> load(Set<Long> patientIds);
+    }
+
+    public static final class Summary {
+
+        private long records;
+        private long inserted;
+        private long invalid;
+        private long duplicate;
+        private long failed;
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getDuplicate() {
+            return duplicate;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+    }
+
+    private static final class Result {
+
+        private static final String INSERTED = "inserted";
+
+        private final long line;
+        private Prescription prescription;
+        private String status = INSERTED;
+        private List<String> errors;
+        private String error;
+
+        private Result(long line) {
+            this.line = line;
+        }
+
+        private void invalid(List<String> errors) {
+            this.status = "invalid";
+            this.errors = errors;
+        }
+
+        private void duplicate(String error) {
+            this.status = "duplicate";
+            this.error = error;
+            this.prescription = null;
+        }
+
+        private void failed(String error, boolean duplicate) {
+            this.status = duplicate ? "duplicate" : "failed";
+            this.error = error;
+        }
+
+        // Writes the result line; true if the record was inserted.
+        private boolean report(JsonGenerator json, Summary summary) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("line", line);
+            json.writeStringField("status", status);
+            switch (status) {
+                case INSERTED -> {
+                    json.writeStringField("id", prescription.getId());
+                    summary.inserted++;
+                }
+                case "invalid" -> {
+                    json.writeFieldName("errors");
+                    json.writeStartArray();
+                    for (String message : errors) {
+                        json.writeString(message);
+                    }
+                    json.writeEndArray();
+                    summary.invalid++;
+                }
+                case "duplicate" -> {
+                    json.writeStringField("error", error);
+                    summary.duplicate++;
+                }
+                default -> {
+                    json.writeStringField("error", error);
+                    summary.failed++;
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw("\n");
+            return INSERTED.equals(status);
+        }
+    }
+
+    // Splits the input on '\n' (a preceding '\r' is dropped) into a buffer reused for every
+    // line. A line longer than the limit is skipped to its end and flagged rather than read.
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final int maxLength;
+        private final byte[] chunk = new byte[64 * 1024];
+        private int chunkPosition;
+        private int chunkLimit;
+        private byte[] buffer;
+        private int length;
+        private boolean tooLong;
+        private long number;
+
+        private LineReader(InputStream in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+            this.buffer = new byte[Math.min(8 * 1024, maxLength)];
+        }
+
+        private boolean next() throws IOException {
+            length = 0;
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (chunkPosition == chunkLimit) {
+                    chunkLimit = in.read(chunk);
+                    chunkPosition = 0;
+                    if (chunkLimit <= 0) {
+                        chunkLimit = 0;
+                        if (any) {
+                            number++;
+                        }
+                        return any;
+                    }
+                }
+                any = true;
+                byte b = chunk[chunkPosition++];
+                if (b == '\n') {
+                    if (length > 0 && buffer[length - 1] == '\r') {
+                        length--;
+                    }
+                    number++;
+                    return true;
+                }
+                if (tooLong) {
+                    continue;
+                }
+                if (length == maxLength) {
+                    tooLong = true;
+                    continue;
+                }
+                if (length == buffer.length) {
+                    byte[] grown = new byte[Math.min(maxLength, buffer.length * 2)];
+                    System.arraycopy(buffer, 0, grown, 0, length);
+                    buffer = grown;
+                }
+                buffer[length++] = b;
+            }
+        }
+    }
+}
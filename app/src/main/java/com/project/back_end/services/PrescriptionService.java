@@ -18,12 +18,19 @@ public class PrescriptionService {
 //    - If a prescription exists, it returns a `400 Bad Request` with a message stating the prescription already exists.
 //    - If no prescription exists, it saves the new prescription and returns a `201 Created` status with a success message.
 //    - Instruction: Handle errors by providing appropriate status codes and messages, ensuring that multiple prescriptions for the same appointment are not saved.
+//    - Instruction: Before saving, load the patient's `allergies` text (`PatientRepository.findById(prescription.getPatientId())`) and call
+//      `DrugInteractionEngine.annotate(prescription, allergies)`; it replaces `prescription.interactions` with the drug-drug and allergy
+//      conflicts it finds, so the saved document carries them. Return them in the `201` response so the doctor sees them.
+//    - Instruction: After a successful save, call `PrescriptionCache.evictAppointment(appointmentId)` so the next read sees the new prescription.
+//    - Instruction: Also call `MedicationTimelineService.onPrescriptionSaved(saved)` with the saved prescription (it needs the id), and do the
+//      same after any status change or refill update, so the patient's medication timeline stays current.
 
 // 4. **getPrescription Method**:
 //    - Retrieves a prescription associated with a specific appointment based on the `appointmentId`.
 //    - If a prescription is found, it returns it within a map wrapped in a `200 OK` status.
 //    - If there is an error while fetching the prescription, it logs the error and returns a `500 Internal Server Error` status with an error message.
 //    - Instruction: Ensure that this method handles edge cases, such as no prescriptions found for the given appointment, by returning meaningful responses.
+//    - Instruction: Read through `PrescriptionCache.getByAppointment(appointmentId)`, which queries the `appointmentId` index once and keeps the serialized `{"prescriptions":[...]}`; an appointment without prescriptions gets an empty list.
 
 // 5. **Exception Handling and Error Responses**:
 //    - Both methods (`savePrescription` and `getPrescription`) contain try-catch blocks to handle exceptions that may occur during database interaction.
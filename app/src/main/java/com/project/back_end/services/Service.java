@@ -13,6 +13,9 @@ public class Service {
 // This method checks if the provided JWT token is valid for a specific user. It uses the TokenService to perform the validation.
 // If the token is invalid or expired, it returns a 401 Unauthorized response with an appropriate error message. This ensures security by preventing
 // unauthorized access to protected resources.
+// Requests are now authenticated once by `TokenAuthenticationFilter` (from the `Authorization: Bearer` header, or from the
+// legacy token path segment via `LegacyTokenPathFilter`). Controllers should read `AuthenticatedUser.from(request)` and check
+// its role rather than calling this method again; it remains for callers outside the request pipeline.
 
 // 4. **validateAdmin Method**
 // This method validates the login credentials for an admin user.
@@ -28,6 +31,8 @@ public class Service {
 // This method provides filtering functionality for doctors based on name, specialty, and available time slots.
 // - It supports various combinations of the three filters.
 // - If none of the filters are provided, it returns all available doctors.
+// - Resolve the filters through `DoctorSearchEngine.filterDoctors(name, specialty, city, time)` rather than the `findByNameLike` style repository
+//   methods: it intersects trigram posting lists for the name and the specialty/AM-PM sets in memory, so no leading-wildcard LIKE reaches MySQL.
 // This flexible filtering mechanism allows the frontend or consumers of the API to search and narrow down doctors based on user criteria.
 
 // 6. **validateAppointment Method**
@@ -38,6 +43,9 @@ public class Service {
 // - If a match is found, it returns 1 (valid appointment time).
 // - If no matching time slot is found, it returns 0 (invalid).
 // - If the doctor doesn’t exist, it returns -1.
+// - Before returning 1, ask `AppointmentConflictDetector.hasConflict(doctorId, start, durationMinutes, appointmentId)` whether the requested
+//   [start, start + durationMinutes) range overlaps another booking. It answers from a per-doctor interval tree instead of scanning the
+//   doctor's appointments, and catches overlaps of different lengths that the (doctor_id, appointment_date, appointment_time) constraint misses.
 // This logic prevents overlapping or invalid appointment bookings.
 
 // 7. **validatePatient Method**
@@ -54,6 +62,11 @@ public class Service {
 // - If the password is incorrect or the patient doesn't exist, it returns a 401 Unauthorized with a relevant error.
 // - If an exception occurs, it returns a 500 Internal Server Error.
 // This method ensures only legitimate patients can log in and access their data securely.
+// - Reject the login while `accountLockedUntil` is in the future. When failed attempts reach the limit, set
+//   `accountLockedUntil` and call `patientExpiryService.accountLocked(id, until)`; the lock and the attempt count are
+//   cleared when it runs out, without a scheduled table scan.
+// - Record LOGIN (and failed logins as HIGH severity) with `auditLogWriter.record(auditLog)`; it only enqueues, the
+//   insert into audit_logs happens in batches on the writer thread.
 
 // 9. **filterPatient Method**
 // This method filters a patient's appointment history based on condition and doctor name.
@@ -0,0 +1,368 @@
+package com.project.back_end.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+// A payment provider's settlement file, memory-mapped and indexed by transaction id: the build
+// side of the reconciliation hash join in PaymentReconciliationService.
+//
+// The file is CSV with a header row naming at least transaction_id, amount and status, in any
+// order and case; other columns are ignored and fields may be double-quoted. Only the index is
+// on the heap, about 28 bytes a row: where each row and its transaction id start, the id's
+// hash and line number, and an open-addressing table over the rows. A row's other fields are
+// read from the mapping when it is matched, so the file is never copied into Strings as a
+// whole. A transaction id that appears on more than one row matches its first row; the others
+// are reported by duplicateRows().
+//
+// close() drops the mapping, which the JVM releases once the buffer is collected; the file
+// cannot be read after that. Files are limited to 2 GB, the size of one mapping. Not
+// thread-safe.
+public final class SettlementFile implements Closeable {
+
+    public static final String TRANSACTION_ID = "transaction_id";
+    public static final String AMOUNT = "amount";
+    public static final String STATUS = "status";
+
+    private MappedByteBuffer buffer;
+    private final int transactionColumn;
+    private final int amountColumn;
+    private final int statusColumn;
+    private final Line line;
+
+    private int rows;
+    private int[] offsets = new int[1024];
+    private int[] lineNumbers = new int[1024];
+    private int[] idStarts = new int[1024];
+    private int[] idLengths = new int[1024];
+    private int[] hashes = new int[1024];
+    private int[] table;
+    private int mask;
+    private int[] duplicates = new int[16];
+    private int duplicateCount;
+    private int[] malformed = new int[16];
+    private int malformedCount;
+
+    private SettlementFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        int offset = skipBlankLines(0);
+        if (offset >= buffer.limit()) {
+            throw new IllegalArgumentException("The settlement file is empty");
+        }
+        Line header = new Line(64);
+        int dataStart = header.scan(buffer, offset);
+        int transaction = -1;
+        int amount = -1;
+        int status = -1;
+        for (int i = 0; i < Math.min(header.count, header.starts.length); i++) {
+            switch (header.text(buffer, i).trim().toLowerCase(Locale.ROOT)) {
+                case TRANSACTION_ID -> transaction = i;
+                case AMOUNT -> amount = i;
+                case STATUS -> status = i;
+                default -> {
+                }
+            }
+        }
+        if (transaction < 0 || amount < 0 || status < 0) {
+            throw new IllegalArgumentException("The settlement file header needs " + TRANSACTION_ID + ", " + AMOUNT
+                    + " and " + STATUS + " columns");
+        }
+        this.transactionColumn = transaction;
+        this.amountColumn = amount;
+        this.statusColumn = status;
+        this.line = new Line(Math.max(transaction, Math.max(amount, status)) + 1);
+        index(dataStart, lineNumberOf(offset) + 1);
+    }
+
+    public static SettlementFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Settlement files over 2 GB are not supported; split " + path);
+            }
+            return new SettlementFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Rows with a transaction id, including duplicateRows().
+    public int getRowCount() {
+        return rows;
+    }
+
+    // The row with this transaction id, or -1.
+    public int find(String transactionId) {
+        ensureOpen();
+        byte[] id = transactionId.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int row = table[slot] - 1;
+            if (hashes[row] == hash && idEquals(row, id)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public String getTransactionId(int row) {
+        return field(row, transactionColumn);
+    }
+
+    // Null if the amount is not a number.
+    public BigDecimal getAmount(int row) {
+        try {
+            return new BigDecimal(field(row, amountColumn).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String getStatus(int row) {
+        return field(row, statusColumn).trim();
+    }
+
+    public int getLineNumber(int row) {
+        return lineNumbers[row];
+    }
+
+    // Rows whose transaction id was already on an earlier row.
+    public int[] duplicateRows() {
+        return Arrays.copyOf(duplicates, duplicateCount);
+    }
+
+    // Line numbers of rows with too few fields or no transaction id.
+    public int[] malformedLines() {
+        return Arrays.copyOf(malformed, malformedCount);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private void index(int offset, int lineNumber) {
+        int limit = buffer.limit();
+        while (offset < limit) {
+            int next = line.scan(buffer, offset);
+            if (!line.isBlank()) {
+                if (line.count < line.starts.length || line.ends[transactionColumn] == line.starts[transactionColumn]) {
+                    malformed = add(malformed, malformedCount++, lineNumber);
+                } else {
+                    addRow(offset, lineNumber);
+                }
+            }
+            offset = next;
+            lineNumber++;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, rows * 2) - 1) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int row = 0; row < rows; row++) {
+            int slot = hashes[row] & mask;
+            boolean duplicate = false;
+            while (table[slot] != 0) {
+                int other = table[slot] - 1;
+                if (hashes[other] == hashes[row] && sameId(other, row)) {
+                    duplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (duplicate) {
+                duplicates = add(duplicates, duplicateCount++, row);
+            } else {
+                table[slot] = row + 1;
+            }
+        }
+    }
+
+    private void addRow(int offset, int lineNumber) {
+        if (rows == offsets.length) {
+            int size = rows * 2;
+            offsets = Arrays.copyOf(offsets, size);
+            lineNumbers = Arrays.copyOf(lineNumbers, size);
+            idStarts = Arrays.copyOf(idStarts, size);
+            idLengths = Arrays.copyOf(idLengths, size);
+            hashes = Arrays.copyOf(hashes, size);
+        }
+        int start = line.starts[transactionColumn];
+        int length = line.ends[transactionColumn] - start;
+        offsets[rows] = offset;
+        lineNumbers[rows] = lineNumber;
+        idStarts[rows] = start;
+        idLengths[rows] = length;
+        hashes[rows] = hash(start, length);
+        rows++;
+    }
+
+    private String field(int row, int column) {
+        ensureOpen();
+        line.scan(buffer, offsets[row]);
+        return line.text(buffer, column);
+    }
+
+    private boolean idEquals(int row, byte[] id) {
+        if (idLengths[row] != id.length) {
+            return false;
+        }
+        int start = idStarts[row];
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(start + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameId(int a, int b) {
+        if (idLengths[a] != idLengths[b]) {
+            return false;
+        }
+        for (int i = 0; i < idLengths[a]; i++) {
+            if (buffer.get(idStarts[a] + i) != buffer.get(idStarts[b] + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("The settlement file is closed");
+        }
+    }
+
+    private int skipBlankLines(int offset) {
+        int limit = buffer.limit();
+        while (offset < limit) {
+            byte b = buffer.get(offset);
+            if (b != '\n' && b != '\r' && b != ' ' && b != '\t') {
+                break;
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    private int lineNumberOf(int offset) {
+        int number = 1;
+        for (int i = 0; i < offset; i++) {
+            if (buffer.get(i) == '\n') {
+                number++;
+            }
+        }
+        return number;
+    }
+
+    // FNV-1a, over the same bytes for ids in the file and ids looked up.
+    private int hash(int start, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (buffer.get(start + i) & 0xFF)) * 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    private static int hash(byte[] id) {
+        int hash = 0x811C9DC5;
+        for (byte b : id) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] add(int[] values, int index, int value) {
+        int[] target = index == values.length ? Arrays.copyOf(values, index * 2) : values;
+        target[index] = value;
+        return target;
+    }
+
+    // The fields of one line, as [start, end) ranges of the mapping for the first starts.length
+    // fields; count is the number of fields on the line. Quoted fields exclude the quotes, and
+    // unquoted ones surrounding spaces.
+    private static final class Line {
+
+        private final int[] starts;
+        private final int[] ends;
+        private final boolean[] quoted;
+        private int count;
+
+        Line(int fields) {
+            this.starts = new int[fields];
+            this.ends = new int[fields];
+            this.quoted = new boolean[fields];
+        }
+
+        // Returns the offset of the next line.
+        int scan(MappedByteBuffer buffer, int offset) {
+            int limit = buffer.limit();
+            int pos = offset;
+            count = 0;
+            while (true) {
+                int start;
+                int end;
+                boolean isQuoted = pos < limit && buffer.get(pos) == '"';
+                if (isQuoted) {
+                    start = ++pos;
+                    while (pos < limit && !(buffer.get(pos) == '"' && (pos + 1 >= limit || buffer.get(pos + 1) != '"'))) {
+                        pos += buffer.get(pos) == '"' ? 2 : 1;
+                    }
+                    end = pos;
+                    while (pos < limit && buffer.get(pos) != ',' && buffer.get(pos) != '\n') {
+                        pos++;
+                    }
+                } else {
+                    while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t')) {
+                        pos++;
+                    }
+                    start = pos;
+                    while (pos < limit && buffer.get(pos) != ',' && buffer.get(pos) != '\n') {
+                        pos++;
+                    }
+                    end = pos;
+                    while (end > start && isSpace(buffer.get(end - 1))) {
+                        end--;
+                    }
+                }
+                if (count < starts.length) {
+                    starts[count] = start;
+                    ends[count] = end;
+                    quoted[count] = isQuoted;
+                }
+                count++;
+                if (pos >= limit || buffer.get(pos) == '\n') {
+                    return pos + 1;
+                }
+                pos++;
+            }
+        }
+
+        boolean isBlank() {
+            return count == 1 && ends[0] == starts[0] && !quoted[0];
+        }
+
+        String text(MappedByteBuffer buffer, int field) {
+            if (field >= count) {
+                return "";
+            }
+            byte[] bytes = new byte[ends[field] - starts[field]];
+            buffer.get(starts[field], bytes);
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            return quoted[field] ? text.replace("\"\"", "\"") : text;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.DoctorAvailability;
+import com.project.back_end.models.DoctorUnavailability;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Days are loaded in their own read-only transaction, so a cached read never touches the
+// database. Booking changes are applied with computeIfPresent: ConcurrentHashMap holds the key
+// while computeIfAbsent loads a day, so a change arriving mid-load waits for the load and is then
+// applied to its result, instead of finding nothing cached and being lost to a load that read
+// the day before the change committed.
+@Service
+public class SlotAvailabilityEngine {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final DayLoader loader;
+    private final int maxCachedDays;
+    private final ConcurrentMap<DoctorDay, DoctorDaySlots> days = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SlotAvailabilityEngine(EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${availability.cache.max-days:100000}") int maxCachedDays) {
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.loader = (doctorId, date) -> readOnly.execute(status -> load(doctorId, date));
+        this.maxCachedDays = maxCachedDays;
+    }
+
+    // For tests, with the database replaced by loader.
+    SlotAvailabilityEngine(DayLoader loader, int maxCachedDays) {
+        this.entityManager = null;
+        this.readOnly = null;
+        this.loader = loader;
+        this.maxCachedDays = maxCachedDays;
+    }
+
+    // Free slots formatted like Doctor.availableTimes ("09:00-09:30").
+    public List<String> getAvailableSlots(Long doctorId, LocalDate date) {
+        return slotsFor(doctorId, date).freeSlots();
+    }
+
+    public boolean isAvailable(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        int from = minuteOfDay(time);
+        return slotsFor(doctorId, date).isFree(from, from + durationMinutes);
+    }
+
+    // Called after AppointmentService has committed a booking. Days that are not cached yet are
+    // left alone; they will pick the appointment up from the database when first loaded.
+    public void onBooked(Appointment appointment) {
+        if (!isTracked(appointment)) {
+            return;
+        }
+        days.computeIfPresent(new DoctorDay(appointment.getDoctor().getId(), appointment.getAppointmentDate()),
+                (day, slots) -> {
+                    int from = minuteOfDay(appointment.getAppointmentTime());
+                    slots.book(appointment.getId(), from, from + appointment.getDurationMinutes());
+                    return slots;
+                });
+    }
+
+    public void onCancelled(Appointment appointment) {
+        if (appointment.getDoctor() == null || appointment.getAppointmentDate() == null) {
+            return;
+        }
+        release(appointment.getDoctor().getId(), appointment.getAppointmentDate(), appointment.getId());
+    }
+
+    // An update may move the appointment to another day, so release by the previous date first.
+    public void onRescheduled(Long doctorId, LocalDate previousDate, Appointment appointment) {
+        release(doctorId, previousDate, appointment.getId());
+        onBooked(appointment);
+    }
+
+    // Availability or unavailability rows changed; rebuild lazily on the next read.
+    public void invalidateDoctor(Long doctorId) {
+        days.keySet().removeIf(day -> day.doctorId.equals(doctorId));
+    }
+
+    public void invalidate(Long doctorId, LocalDate date) {
+        days.remove(new DoctorDay(doctorId, date));
+    }
+
+    private DoctorDaySlots slotsFor(Long doctorId, LocalDate date) {
+        DoctorDay key = new DoctorDay(doctorId, date);
+        DoctorDaySlots slots = days.get(key);
+        if (slots != null) {
+            return slots;
+        }
+        if (days.size() >= maxCachedDays) {
+            LocalDate today = LocalDate.now();
+            days.keySet().removeIf(day -> day.date.isBefore(today));
+        }
+        return days.computeIfAbsent(key, k -> loader.load(k.doctorId, k.date));
+    }
+
+    private void release(Long doctorId, LocalDate date, Long appointmentId) {
+        days.computeIfPresent(new DoctorDay(doctorId, date), (day, slots) -> {
+            slots.release(appointmentId);
+            return slots;
+        });
+    }
+
+    private DoctorDaySlots load(Long doctorId, LocalDate date) {
+        DoctorDaySlots slots = new DoctorDaySlots();
+        DoctorAvailability.DayOfWeek dayOfWeek = DoctorAvailability.DayOfWeek.valueOf(date.getDayOfWeek().name());
+
+        List<DoctorAvailability> availabilities = entityManager.createQuery(
+                        "select a from DoctorAvailability a where a.doctor.id = :doctorId " +
+                        "and a.dayOfWeek = :dayOfWeek order by a.startTime", DoctorAvailability.class)
+                .setParameter("doctorId", doctorId)
+                .setParameter("dayOfWeek", dayOfWeek)
+                .getResultList();
+        for (DoctorAvailability availability : availabilities) {
+            if (availability.isEffectiveOn(date)) {
+                slots.addWindow(minuteOfDay(availability.getStartTime()), minuteOfDay(availability.getEndTime()),
+                        availability.getSlotDurationMinutes());
+            }
+        }
+
+        List<DoctorUnavailability> unavailabilities = entityManager.createQuery(
+                        "select u from DoctorUnavailability u where u.doctor.id = :doctorId " +
+                        "and (u.unavailableDate = :date or (u.isRecurring = true and u.unavailableDate <= :date))",
+                        DoctorUnavailability.class)
+                .setParameter("doctorId", doctorId)
+                .setParameter("date", java.sql.Date.valueOf(date))
+                .getResultList();
+        for (DoctorUnavailability unavailability : unavailabilities) {
+            if (unavailability.occursOn(date)) {
+                slots.block(minuteOfDay(unavailability.getStartTime()), minuteOfDay(unavailability.getEndTime()));
+            }
+        }
+
+        List<Object[]> booked = entityManager.createQuery(
+                        "select a.id, a.appointmentTime, a.durationMinutes from Appointment a " +
+                        "where a.doctor.id = :doctorId and a.appointmentDate = :date and a.status <> :cancelled",
+                        Object[].class)
+                .setParameter("doctorId", doctorId)
+                .setParameter("date", date)
+                .setParameter("cancelled", Appointment.AppointmentStatus.CANCELLED)
+                .getResultList();
+        for (Object[] row : booked) {
+            int from = minuteOfDay((LocalTime) row[1]);
+            slots.book((Long) row[0], from, from + (Integer) row[2]);
+        }
+        return slots;
+    }
+
+    private boolean isTracked(Appointment appointment) {
+        return appointment.getDoctor() != null && appointment.getAppointmentDate() != null
+                && appointment.getAppointmentTime() != null && appointment.getDurationMinutes() != null
+                && appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int minuteOfDay(Time time) {
+        return minuteOfDay(time.toLocalTime());
+    }
+
+    interface DayLoader {
+        DoctorDaySlots load(Long doctorId, LocalDate date);
+    }
+
+    private static final class DoctorDay {
+
+        private final Long doctorId;
+        private final LocalDate date;
+
+        private DoctorDay(Long doctorId, LocalDate date) {
+            this.doctorId = doctorId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DoctorDay)) return false;
+            DoctorDay other = (DoctorDay) o;
+            return doctorId.equals(other.doctorId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(doctorId, date);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Sends notifications as plain-text mail to an SMTP relay (email.smtp.host), one message per
+// transaction. Connections are kept open between sends, up to email.smtp.max-idle-connections,
+// so a busy dispatcher pays the TCP and EHLO round trips once per connection rather than once
+// per message. The relay is expected to be trusted: there is no AUTH and no STARTTLS.
+//
+// The envelope (MAIL, RCPT, DATA) goes out in a single write when the relay offers
+// PIPELINING. 5xx replies are permanent failures, 4xx replies and broken connections temporary
+// ones. A pooled connection the server has since closed is replaced before the message is sent.
+//
+// The body comes from the notification's template (EmailTemplates) and is rendered, together
+// with the headers, into buffers that belong to the connection and are reused for every message
+// sent over it.
+@Component
+public class SmtpEmailTransport implements EmailTransport {
+
+    private static final String CRLF = "\r\n";
+
+    private final String host;
+    private final int port;
+    private final String from;
+    private final int timeoutMillis;
+    private final String heloName;
+    private final EmailTemplates templates;
+    private final BlockingQueue<Connection> idle;
+
+    public SmtpEmailTransport(EmailTemplates templates,
+                              @Value("${email.smtp.host:localhost}") String host,
+                              @Value("${email.smtp.port:25}") int port,
+                              @Value("${email.from:no-reply@clinic.local}") String from,
+                              @Value("${email.smtp.timeout-ms:10000}") int timeoutMillis,
+                              @Value("${email.smtp.max-idle-connections:16}") int maxIdleConnections) {
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.timeoutMillis = timeoutMillis;
+        this.heloName = localHostName();
+        this.templates = templates;
+        this.idle = new ArrayBlockingQueue<>(maxIdleConnections);
+    }
+
+    @Override
+    public void send(EmailNotification notification) throws DeliveryException {
+        String to = notification.getRecipientEmail();
+        if (to == null || to.isBlank() || to.chars().anyMatch(c -> c == '\r' || c == '\n' || c == '<' || c == '>')) {
+            throw new DeliveryException("Invalid recipient address: " + to, true);
+        }
+        Connection connection = null;
+        try {
+            Reply[] envelope = null;
+            while (envelope == null) {
+                Connection pooled = idle.poll();
+                connection = pooled != null ? pooled : open();
+                try {
+                    envelope = connection.envelope(from, to);
+                } catch (IOException e) {
+                    // Nothing has been accepted before the message itself, so a fresh
+                    // connection can start over
+                    connection.close();
+                    if (pooled == null) {
+                        throw e;
+                    }
+                }
+            }
+            for (int i = 0; i < envelope.length; i++) {
+                if (envelope[i].code / 100 != (i < 2 ? 2 : 3)) {
+                    if (envelope.length == 3 && envelope[2].code == 354) {
+                        // A pipelined DATA the server took despite the failure before it
+                        connection.data("." + CRLF);
+                    }
+                    reject(connection, envelope[i]);
+                }
+            }
+            Reply accepted = connection.data(message(notification, to, connection));
+            if (accepted.code / 100 != 2) {
+                reject(connection, accepted);
+            }
+            release(connection);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            throw new DeliveryException("SMTP connection to " + host + ":" + port + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.quit();
+        }
+    }
+
+    // The message text: the rendered template, else a "body" entry of the personalized data,
+    // else the data as one line per entry.
+    void appendBody(StringBuilder out, EmailNotification notification) {
+        EmailNotification.EmailContent content = notification.getContent();
+        if (content == null) {
+            return;
+        }
+        Map<String, Object> data = content.getPersonalizedData() != null ? content.getPersonalizedData() : Map.of();
+        EmailTemplates.Template template = templates.get(content.getTemplateName(), content.getTemplateVersion());
+        if (template != null) {
+            template.renderBody(out, data);
+        } else if (data.get("body") != null) {
+            out.append(data.get("body"));
+        } else {
+            data.forEach((key, value) -> out.append(key).append(": ").append(value).append('\n'));
+        }
+    }
+
+    private CharSequence message(EmailNotification notification, String to, Connection connection) {
+        StringBuilder message = connection.message;
+        message.setLength(0);
+        header(message, "Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()));
+        header(message, "From", from);
+        header(message, "To", to);
+        header(message, "Subject", encodeHeader(notification.getSubject()));
+        if (notification.getId() != null) {
+            header(message, "Message-ID", "<" + notification.getId() + "@" + heloName + ">");
+        }
+        header(message, "MIME-Version", "1.0");
+        header(message, "Content-Type", "text/plain; charset=UTF-8");
+        header(message, "Content-Transfer-Encoding", "8bit");
+        message.append(CRLF);
+        StringBuilder body = connection.body;
+        body.setLength(0);
+        appendBody(body, notification);
+        appendLines(message, body);
+        return message.append('.').append(CRLF);
+    }
+
+    // Copies text with every line ending as CRLF and dot-stuffed, so a line of its own "."
+    // does not end the message early. Always ends with a line break.
+    static void appendLines(StringBuilder message, CharSequence text) {
+        boolean lineStart = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\n') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                message.append(CRLF);
+                lineStart = true;
+                continue;
+            }
+            if (lineStart && c == '.') {
+                message.append('.');
+            }
+            message.append(c);
+            lineStart = false;
+        }
+        if (!lineStart || text.length() == 0) {
+            message.append(CRLF);
+        }
+    }
+
+    private static void header(StringBuilder message, String name, String value) {
+        message.append(name).append(": ").append(value).append(CRLF);
+    }
+
+    // RFC 2047 encoded-word for anything beyond printable ASCII; also keeps CR and LF out of
+    // the header.
+    private static String encodeHeader(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean plain = value.chars().allMatch(c -> c >= 0x20 && c < 0x7f);
+        if (plain) {
+            return value;
+        }
+        String clean = value.replace('\r', ' ').replace('\n', ' ');
+        return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(clean.getBytes(StandardCharsets.UTF_8)) + "?=";
+    }
+
+    // Throws for a failed transaction, leaving the connection ready for the next one when the
+    // server agrees to reset it.
+    private void reject(Connection connection, Reply reply) throws DeliveryException {
+        boolean reset;
+        try {
+            reset = connection.command("RSET").code / 100 == 2;
+        } catch (IOException e) {
+            reset = false;
+        }
+        if (reset) {
+            release(connection);
+        } else {
+            connection.close();
+        }
+        throw new DeliveryException("SMTP " + reply.code + " " + reply.text, reply.code >= 500);
+    }
+
+    private Connection open() throws IOException, DeliveryException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        socket.setTcpNoDelay(true);
+        Connection connection = new Connection(socket);
+        Reply greeting = connection.read();
+        if (greeting.code != 220) {
+            connection.close();
+            throw new DeliveryException("SMTP " + greeting.code + " " + greeting.text, false);
+        }
+        Reply hello = connection.command("EHLO " + heloName);
+        if (hello.code == 250) {
+            connection.pipelining = (" " + hello.text + " ").contains(" PIPELINING ");
+        } else {
+            hello = connection.command("HELO " + heloName);
+        }
+        if (hello.code != 250) {
+            connection.close();
+            throw new DeliveryException("SMTP " + hello.code + " " + hello.text, false);
+        }
+        return connection;
+    }
+
+    private void release(Connection connection) {
+        if (!idle.offer(connection)) {
+            connection.quit();
+        }
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+
+    private static final class Reply {
+
+        private final int code;
+        private final String text;
+
+        private Reply(int code, String text) {
+            this.code = code;
+            this.text = text;
+        }
+    }
+
+    private static final class Connection {
+
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+        private final StringBuilder message = new StringBuilder(1024);
+        private final StringBuilder body = new StringBuilder(512);
+        private boolean pipelining;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        private Reply command(String line) throws IOException {
+            out.write(line);
+            out.write(CRLF);
+            out.flush();
+            return read();
+        }
+
+        // MAIL, RCPT and DATA, in one write when the server supports PIPELINING, otherwise one
+        // at a time up to the first refusal. Returns the replies received.
+        private Reply[] envelope(String from, String to) throws IOException {
+            String mail = "MAIL FROM:<" + from + ">";
+            String rcpt = "RCPT TO:<" + to + ">";
+            if (pipelining) {
+                out.write(mail + CRLF + rcpt + CRLF + "DATA" + CRLF);
+                out.flush();
+                return new Reply[]{read(), read(), read()};
+            }
+            Reply mailReply = command(mail);
+            if (mailReply.code / 100 != 2) {
+                return new Reply[]{mailReply};
+            }
+            Reply rcptReply = command(rcpt);
+            if (rcptReply.code / 100 != 2) {
+                return new Reply[]{mailReply, rcptReply};
+            }
+            return new Reply[]{mailReply, rcptReply, command("DATA")};
+        }
+
+        // The message must already end with the "." line.
+        private Reply data(CharSequence message) throws IOException {
+            out.append(message);
+            out.flush();
+            return read();
+        }
+
+        // One reply, joining the lines of a multi-line one.
+        private Reply read() throws IOException {
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                String line = in.readLine();
+                if (line == null) {
+                    throw new IOException("Connection closed by server");
+                }
+                if (line.length() < 3) {
+                    throw new IOException("Malformed SMTP reply: " + line);
+                }
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(line.length() > 4 ? line.substring(4) : "");
+                if (line.length() == 3 || line.charAt(3) != '-') {
+                    try {
+                        return new Reply(Integer.parseInt(line.substring(0, 3)), text.toString());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Malformed SMTP reply: " + line);
+                    }
+                }
+            }
+        }
+
+        private void quit() {
+            try {
+                command("QUIT");
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+            close();
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+}
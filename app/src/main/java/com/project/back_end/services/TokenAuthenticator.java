@@ -0,0 +1,111 @@
+package com.project.back_end.services;
+
+import com.project.back_end.config.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Turns a bearer token into the user it was issued to. The full check (signature and expiry
+// against jwt.secret, then the user lookup) runs once per token; TokenClaimsCache answers
+// every later request until the token expires or is revoked. Only that lookup opens a
+// read-only transaction; a cached token is answered without touching the connection pool.
+//
+// Tokens carry the user's role in the "role" claim. Tokens issued before the claim existed
+// are resolved by looking the subject up as admin, doctor and then patient. A token with a
+// "sid" claim is bound to a UserSessionStore session: it stops working when the session ends,
+// and each request records activity on it without a database write.
+@Service
+public class TokenAuthenticator {
+
+    public static final String ROLE_CLAIM = "role";
+    public static final String SESSION_CLAIM = "sid";
+
+    private static final String ANY_ROLE = "*";
+    private static final List<String> ROLES = List.of(AuthenticatedUser.ADMIN, AuthenticatedUser.DOCTOR, AuthenticatedUser.PATIENT);
+
+    private final EntityManager entityManager;
+    private final TokenClaimsCache claimsCache;
+    private final UserSessionStore sessionStore;
+    private final TransactionTemplate readOnly;
+    private final SecretKey signingKey;
+
+    public TokenAuthenticator(EntityManager entityManager,
+                              TokenClaimsCache claimsCache,
+                              UserSessionStore sessionStore,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${jwt.secret}") String secret) {
+        this.entityManager = entityManager;
+        this.claimsCache = claimsCache;
+        this.sessionStore = sessionStore;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null when the token is malformed, forged, expired, revoked, its user no longer exists or
+    // its session has ended.
+    public AuthenticatedUser authenticate(String token) {
+        TokenClaimsCache.VerifiedToken verified = claimsCache.verify(token, ANY_ROLE, this::verify);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.getSessionId() != null && sessionStore.touch(verified.getSessionId()) == null) {
+            return null;
+        }
+        return new AuthenticatedUser(verified.getEmail(), verified.getRole());
+    }
+
+    private TokenClaimsCache.VerifiedToken verify(String token) {
+        Claims claims = Jwts.parser().verifyWith(signingKey).build().parseSignedClaims(token).getPayload();
+        String subject = claims.getSubject();
+        if (subject == null || claims.getExpiration() == null) {
+            return null;
+        }
+        String claimed = claims.get(ROLE_CLAIM, String.class);
+        String role = readOnly.execute(status -> roleOf(claimed, subject));
+        if (role == null) {
+            return null;
+        }
+        return new TokenClaimsCache.VerifiedToken(subject, role, claims.get(SESSION_CLAIM, String.class),
+                claims.getExpiration().toInstant());
+    }
+
+    private String roleOf(String claimed, String subject) {
+        if (claimed != null) {
+            return exists(claimed, subject) ? claimed : null;
+        }
+        for (String candidate : ROLES) {
+            if (exists(candidate, subject)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean exists(String role, String subject) {
+        String jpql;
+        switch (role) {
+            case AuthenticatedUser.ADMIN:
+                jpql = "select count(a) from Admin a where a.username = :subject";
+                break;
+            case AuthenticatedUser.DOCTOR:
+                jpql = "select count(d) from Doctor d where d.email = :subject";
+                break;
+            case AuthenticatedUser.PATIENT:
+                jpql = "select count(p) from Patient p where p.email = :subject and p.isActive = true";
+                break;
+            default:
+                return false;
+        }
+        return entityManager.createQuery(jpql, Long.class).setParameter("subject", subject).getSingleResult() > 0;
+    }
+}
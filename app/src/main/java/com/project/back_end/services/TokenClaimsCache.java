@@ -0,0 +1,174 @@
+package com.project.back_end.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Fast path for TokenService.validateToken. A token that has been fully verified for a role
+// (signature, expiry and user lookup) is remembered under the SHA-256 digest of the token
+// until the token itself expires, so repeat requests cost a digest and a map lookup instead of
+// HMAC verification, claims parsing and a repository query. Raw tokens are never kept.
+//
+// Revoked tokens go on a deny-list that is consulted before the cache on every call. Entries
+// stay on it only until the token would have expired anyway, so it holds just the revoked,
+// still-live tokens and is never trimmed by size: dropping an entry early would let the token
+// verify again.
+@Component
+public class TokenClaimsCache {
+
+    private final Cache<String, VerifiedToken> verified;
+    private final Map<String, Instant> denied = new ConcurrentHashMap<>();
+
+    public TokenClaimsCache(MeterRegistry meterRegistry,
+                            @Value("${jwt.cache.max-size:50000}") long maxSize) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtClaims");
+        meterRegistry.gauge("jwt.denylist.size", denied, Map::size);
+    }
+
+    // Email of the token's user if the token is valid for role, otherwise null. verifier runs
+    // only on a miss; it must check the signature, expiry and that the user exists for the
+    // role, and return null (or throw) when any of them fails. Failures are not cached.
+    public String verifiedEmail(String token, String role, Function<String, VerifiedToken> verifier) {
+        VerifiedToken result = verify(token, role, verifier);
+        return result != null ? result.getEmail() : null;
+    }
+
+    public VerifiedToken verify(String token, String role, Function<String, VerifiedToken> verifier) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String digest = digest(token);
+        if (denied.containsKey(digest)) {
+            return null;
+        }
+        String key = role + ':' + digest;
+        VerifiedToken hit = verified.getIfPresent(key);
+        if (hit == null) {
+            try {
+                hit = verifier.apply(token);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (hit == null) {
+                return null;
+            }
+            // A revoke may have landed while the verifier was running
+            if (denied.containsKey(digest)) {
+                return null;
+            }
+            verified.put(key, hit);
+        }
+        if (!hit.getExpiresAt().isAfter(Instant.now())) {
+            verified.invalidate(key);
+            return null;
+        }
+        return hit;
+    }
+
+    // Logout or forced sign-out of a single token. expiresAt is the token's exp claim.
+    public void revoke(String token, Instant expiresAt) {
+        Instant now = Instant.now();
+        denied.values().removeIf(exp -> !exp.isAfter(now));
+        if (expiresAt.isAfter(now)) {
+            denied.put(digest(token), expiresAt);
+        }
+    }
+
+    public boolean isRevoked(String token) {
+        return token != null && denied.containsKey(digest(token));
+    }
+
+    // Forgets every verified token of a user, so a deleted or deactivated account fails the
+    // repository check on its next request. Tokens stay valid for a user that still exists;
+    // use revoke for those.
+    public void evictUser(String email) {
+        verified.asMap().values().removeIf(token -> token.getEmail().equalsIgnoreCase(email));
+    }
+
+    public void clear() {
+        verified.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static final class VerifiedToken {
+
+        private final String email;
+        private final String role;
+        private final String sessionId;
+        private final Instant expiresAt;
+
+        public VerifiedToken(String email, Instant expiresAt) {
+            this(email, null, null, expiresAt);
+        }
+
+        public VerifiedToken(String email, String role, String sessionId, Instant expiresAt) {
+            this.email = email;
+            this.role = role;
+            this.sessionId = sessionId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        // The role the user was found under, when the verifier resolved one.
+        public String getRole() {
+            return role;
+        }
+
+        // The user_sessions row the token was issued for, if any.
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class TokenService {
 // - The `expiration` is set to 7 days from the issue date, ensuring the token expires after one week.
 // - The token is signed using the signing key generated by `getSigningKey()`, making it secure and tamper-proof.
 // The method returns the JWT token as a string.
+// - Add a `role` claim (`TokenAuthenticator.ROLE_CLAIM`) holding "admin", "doctor" or "patient", so `TokenAuthenticator` can check
+//   the right table without trying each role in turn.
 
 // 5. **extractEmail Method**
 // This method extracts the user's email (subject) from the provided JWT token.
@@ -39,5 +41,20 @@ public class TokenService {
 // - The method gracefully handles any errors by returning false if the token is invalid or an exception occurs.
 // This ensures secure access control based on the user's role and their existence in the system.
 
+// 7. **Claims Cache Fast Path**
+// Inject `TokenClaimsCache` and route `validateToken` through `claimsCache.verifiedEmail(token, role, verifier)`.
+// - The verifier is the full check described above: verify and parse the token, then look the user up for the role.
+//   It returns `new TokenClaimsCache.VerifiedToken(email, claims.getExpiration().toInstant())`, or null when the user is missing.
+// - Repeat requests with the same token skip signature verification and the repository lookup until the token expires.
+// - On logout call `claimsCache.revoke(token, expiration)`; when an admin deletes a doctor or a patient is deactivated,
+//   call `claimsCache.evictUser(email)` so the next request repeats the repository check.
+
+// 8. **Sessions**
+// On login, create a session with `UserSessionStore.create(userId, userType, ip, userAgent, ttl)` and put its id in the
+// `sid` claim (`TokenAuthenticator.SESSION_CLAIM`), with the token expiring with the session.
+// - Every authenticated request then refreshes the session's lastActivity in memory; the store batches the writes.
+// - On logout call `sessionStore.invalidate(sessionId)` as well as revoking the token; after a password change call
+//   `sessionStore.invalidateUser(userId, userType)` to end the user's other logins.
+
 
 }
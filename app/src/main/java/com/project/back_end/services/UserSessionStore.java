@@ -0,0 +1,289 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.UserSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Live user_sessions kept in memory. The table stays the system of record for logins, logouts
+// and restarts, but an authenticated request only touches memory: lastActivity is recorded in
+// a pending map, and a background flush writes whatever accumulated as one JDBC batch, so a
+// session that made a hundred requests in an interval costs one UPDATE. Expiry runs off the
+// shared ExpiryScheduler rather than scanning expires_at; expired sessions are dropped from
+// memory at once and marked inactive in the next flush.
+//
+// Creating and invalidating a session write through synchronously, because losing either on
+// a crash would resurrect or lose a login after the restart reload.
+//
+// A failed flush puts its rows back for the next one. sessions.flush.failures counts the
+// failures and sessions.flush.requeued shows how many rows the last one put back (0 once a
+// flush succeeds), so a database that stays down shows up as a growing backlog.
+@Service
+public class UserSessionStore {
+
+    private static final String INSERT = "insert into user_sessions " +
+            "(session_id, user_id, user_type, ip_address, user_agent, created_at, last_activity, expires_at, is_active) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, true)";
+    private static final String UPDATE_ACTIVITY =
+            "update user_sessions set last_activity = ? where session_id = ? and is_active = true";
+    private static final String DEACTIVATE = "update user_sessions set is_active = false where session_id = ?";
+    private static final String LOAD_ACTIVE = "select session_id, user_id, user_type, created_at, last_activity, expires_at " +
+            "from user_sessions where is_active = true and expires_at > ?";
+
+    private final SecureRandom random = new SecureRandom();
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentMap<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> pendingActivity = new ConcurrentHashMap<>();
+    private final Queue<String> pendingExpired = new ConcurrentLinkedQueue<>();
+    private final ExpiryScheduler expiryScheduler;
+    private final ScheduledExecutorService executor;
+    private final int batchSize;
+    private final Counter flushedActivity;
+    private final Counter flushFailures;
+    private final AtomicInteger requeued = new AtomicInteger();
+
+    public UserSessionStore(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            ExpiryScheduler expiryScheduler,
+                            @Value("${session.flush-interval-ms:5000}") long flushIntervalMillis,
+                            @Value("${session.flush-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.expiryScheduler = expiryScheduler;
+        this.flushedActivity = meterRegistry.counter("sessions.activity.flushed");
+        this.flushFailures = meterRegistry.counter("sessions.flush.failures");
+        meterRegistry.gauge("sessions.active", sessions, Map::size);
+        meterRegistry.gauge("sessions.flush.requeued", requeued, AtomicInteger::get);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-session-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        expiryScheduler.onExpiry(ExpiryScheduler.Kind.SESSION, this::expire);
+    }
+
+    // Reloads sessions that were live when the application last stopped.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        jdbcTemplate.query(LOAD_ACTIVE, rs -> {
+            Timestamp lastActivity = rs.getTimestamp("last_activity");
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            LiveSession session = new LiveSession(rs.getString("session_id"), rs.getInt("user_id"),
+                    UserSession.UserType.valueOf(rs.getString("user_type")),
+                    createdAt != null ? createdAt.getTime() : 0L,
+                    rs.getTimestamp("expires_at").getTime());
+            session.lastActivity = lastActivity != null ? lastActivity.getTime() : session.createdAt;
+            register(session);
+        }, new Timestamp(System.currentTimeMillis()));
+    }
+
+    public LiveSession create(Integer userId, UserSession.UserType userType, String ipAddress, String userAgent,
+                              Duration ttl) {
+        long now = System.currentTimeMillis();
+        LiveSession session = new LiveSession(newSessionId(), userId, userType, now, now + ttl.toMillis());
+        session.lastActivity = now;
+        jdbcTemplate.update(INSERT, session.sessionId, userId, userType.name(), ipAddress, userAgent,
+                new Timestamp(now), new Timestamp(now), new Timestamp(session.expiresAt));
+        register(session);
+        return session;
+    }
+
+    // The per-request call. Returns null when the session is unknown, invalidated or expired.
+    // Never touches the database.
+    public LiveSession touch(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        LiveSession session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= session.expiresAt) {
+            // The expiry callback lands within a tick; don't hand out a session in that window
+            return null;
+        }
+        session.lastActivity = now;
+        pendingActivity.put(sessionId, now);
+        return session;
+    }
+
+    public LiveSession get(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    public void invalidate(String sessionId) {
+        LiveSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        expiryScheduler.cancel(ExpiryScheduler.Kind.SESSION, sessionId);
+        pendingActivity.remove(sessionId);
+        jdbcTemplate.update(DEACTIVATE, sessionId);
+    }
+
+    // Ends every session of a user, e.g. after a password change or when the account is removed.
+    public int invalidateUser(Integer userId, UserSession.UserType userType) {
+        List<Object[]> ids = new ArrayList<>();
+        for (LiveSession session : sessions.values()) {
+            if (session.userId.equals(userId) && session.userType == userType && sessions.remove(session.sessionId, session)) {
+                expiryScheduler.cancel(ExpiryScheduler.Kind.SESSION, session.sessionId);
+                pendingActivity.remove(session.sessionId);
+                ids.add(new Object[]{session.sessionId});
+            }
+        }
+        if (!ids.isEmpty()) {
+            jdbcTemplate.batchUpdate(DEACTIVATE, ids);
+        }
+        return ids.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Writes accumulated lastActivity values and expiries. Returns the number of statements batched.
+    public int flush() {
+        List<Object[]> activity = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : pendingActivity.entrySet()) {
+            // Only drop the entry if no newer touch replaced it meanwhile
+            if (pendingActivity.remove(entry.getKey(), entry.getValue())) {
+                activity.add(new Object[]{new Timestamp(entry.getValue()), entry.getKey()});
+            }
+        }
+        List<Object[]> deactivations = new ArrayList<>();
+        String sessionId;
+        while ((sessionId = pendingExpired.poll()) != null) {
+            deactivations.add(new Object[]{sessionId});
+        }
+        try {
+            batch(UPDATE_ACTIVITY, activity);
+            batch(DEACTIVATE, deactivations);
+        } catch (RuntimeException e) {
+            // Put everything back for the next flush, keeping any newer touch
+            for (Object[] row : activity) {
+                pendingActivity.merge((String) row[1], ((Timestamp) row[0]).getTime(), Math::max);
+            }
+            for (Object[] row : deactivations) {
+                pendingExpired.add((String) row[0]);
+            }
+            flushFailures.increment();
+            requeued.set(activity.size() + deactivations.size());
+            throw e;
+        }
+        requeued.set(0);
+        flushedActivity.increment(activity.size());
+        return activity.size() + deactivations.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void register(LiveSession session) {
+        sessions.put(session.sessionId, session);
+        expiryScheduler.schedule(ExpiryScheduler.Kind.SESSION, session.sessionId, session.expiresAt);
+    }
+
+    // Runs on the expiry ticker.
+    private void expire(List<String> sessionIds) {
+        for (String sessionId : sessionIds) {
+            if (sessions.remove(sessionId) != null) {
+                pendingActivity.remove(sessionId);
+                pendingExpired.add(sessionId);
+            }
+        }
+    }
+
+    private void batch(String sql, List<Object[]> args) {
+        for (int from = 0; from < args.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, args.subList(from, Math.min(args.size(), from + batchSize)));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // flush has counted the failure and re-queued its rows; the next run retries them
+        }
+    }
+
+    private String newSessionId() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static final class LiveSession {
+
+        private final String sessionId;
+        private final Integer userId;
+        private final UserSession.UserType userType;
+        private final long createdAt;
+        private final long expiresAt;
+        private volatile long lastActivity;
+
+        private LiveSession(String sessionId, Integer userId, UserSession.UserType userType, long createdAt,
+                            long expiresAt) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.userType = userType;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public Integer getUserId() {
+            return userId;
+        }
+
+        public UserSession.UserType getUserType() {
+            return userType;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public long getLastActivity() {
+            return lastActivity;
+        }
+    }
+}
@@ -44,6 +44,10 @@
     - Call createPatientRow to generate a table row for the appointment
     - Append each row to the table body
 
+  Busy days are paged: use getAppointmentsPage instead, keep the returned nextCursor, and
+  fetch the next page with it when the user scrolls to the end of the table. A null
+  nextCursor means every appointment for the day has been loaded.
+
   Step 5: Catch and handle any errors during fetch:
     - Show a message row: "Error loading appointments. Try again later."
 
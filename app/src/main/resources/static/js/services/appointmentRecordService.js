@@ -13,6 +13,22 @@ export async function getAllAppointments(date, patientName, token) {
   return await response.json();
 }
 
+// Fetches one page of the doctor's appointments for a day. Pass the nextCursor of the previous
+// page to continue; it is null once the last page has been returned.
+export async function getAppointmentsPage(date, patientName, token, cursor = null, size = null) {
+  const params = new URLSearchParams();
+  if (cursor) params.set("cursor", cursor);
+  if (size) params.set("size", size);
+  const query = params.toString();
+  const response = await fetch(`${APPOINTMENT_API}/${date}/${patientName}/${token}${query ? `?${query}` : ""}`);
+  if (!response.ok) {
+    throw new Error("Failed to fetch appointments");
+  }
+
+  const data = await response.json();
+  return { appointments: data.appointments || [], nextCursor: data.nextCursor || null };
+}
+
 export async function bookAppointment(appointment, token) {
   try {
     const response = await fetch(`${APPOINTMENT_API}/${token}`, {
@@ -71,6 +71,27 @@ export async function getPatientAppointments(id, token, user) {
   }
 }
 
+// Fetches one page of a patient's appointments, newest first. Pass the nextCursor of the previous
+// page to continue; it is null once the last page has been returned.
+export async function getPatientAppointmentsPage(id, token, user, cursor = null, size = null) {
+  try {
+    const params = new URLSearchParams();
+    if (cursor) params.set("cursor", cursor);
+    if (size) params.set("size", size);
+    const query = params.toString();
+    const response = await fetch(`${PATIENT_API}/${id}/${user}/${token}${query ? `?${query}` : ""}`);
+    const data = await response.json();
+    if (response.ok) {
+      return { appointments: data.appointments || [], nextCursor: data.nextCursor || null };
+    }
+    return null;
+  }
+  catch (error) {
+    console.error("Error fetching patient appointments:", error);
+    return null;
+  }
+}
+
 export async function filterAppointments(condition, name, token) {
   try {
     const response = await fetch(`${PATIENT_API}/filter/${condition}/${name}/${token}`, {
@@ -0,0 +1,27 @@
+package com.project.back_end.DTO;
+
+import com.project.back_end.models.Appointment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AppointmentDTOTest {
+
+    @Test
+    void dashboardRowsCarryTheDocumentedStatusCodes() {
+        assertEquals(0, row(Appointment.AppointmentStatus.SCHEDULED).getStatus());
+        assertEquals(0, row(Appointment.AppointmentStatus.CONFIRMED).getStatus());
+        assertEquals(1, row(Appointment.AppointmentStatus.COMPLETED).getStatus());
+        assertEquals(2, row(Appointment.AppointmentStatus.CANCELLED).getStatus());
+        assertEquals(3, row(Appointment.AppointmentStatus.NO_SHOW).getStatus());
+        assertEquals(0, row(null).getStatus());
+    }
+
+    private static AppointmentDTO row(Appointment.AppointmentStatus status) {
+        return new AppointmentDTO(1L, 2L, "Anna", "Kowalska", 3L, "Jan", "Nowak", "jan@example.com",
+                "555-0100", LocalDate.of(2030, 1, 1), LocalTime.of(9, 0), 30, status);
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.services.AppointmentIntervalTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Overlap check for one doctor: linear scan over the appointment list (what validateAppointment
+// is specified to do) versus the interval tree used by AppointmentConflictDetector.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main AppointmentConflictBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentConflictBenchmark {
+
+    private static final int[] DURATIONS = {15, 30, 45, 60, 90};
+
+    @Param({"10000", "50000"})
+    public int appointmentsPerDoctor;
+
+    private List<Appointment> appointments;
+    private AppointmentIntervalTree tree;
+    private LocalDateTime[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        appointments = new ArrayList<>(appointmentsPerDoctor);
+        tree = new AppointmentIntervalTree();
+        LocalDateTime cursor = LocalDateTime.of(LocalDate.now().plusDays(1), LocalTime.of(8, 0));
+        for (int i = 0; i < appointmentsPerDoctor; i++) {
+            int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i);
+            appointment.setAppointmentDate(cursor.toLocalDate());
+            appointment.setAppointmentTime(cursor.toLocalTime());
+            appointment.setDurationMinutes(duration);
+            appointments.add(appointment);
+
+            long start = cursor.toEpochSecond(ZoneOffset.UTC) / 60;
+            tree.insert(i, start, start + duration);
+            // Leave a random gap so some probes land on free time
+            cursor = cursor.plusMinutes(duration + 15L * random.nextInt(3));
+        }
+        probes = new LocalDateTime[1024];
+        LocalDateTime first = appointments.get(0).getAppointmentDateTime();
+        long span = java.time.Duration.between(first, cursor).toMinutes();
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = first.plusMinutes(5L * random.nextInt((int) (span / 5)));
+        }
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        LocalDateTime start = probes[next++ & (probes.length - 1)];
+        LocalDateTime end = start.plusMinutes(30);
+        for (Appointment appointment : appointments) {
+            if (appointment.getAppointmentDateTime().isBefore(end) && appointment.getEndDateTime().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        LocalDateTime start = probes[next++ & (probes.length - 1)];
+        long from = start.toEpochSecond(ZoneOffset.UTC) / 60;
+        return tree.findOverlap(from, from + 30, null) != null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.BookingLockTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+// Time for `threads` patients to book every slot of `doctors` doctors on one day, each patient
+// taking the first free slot of its doctor, as in BookingLockTableTest:
+//   lockTable:        the whole transaction runs under the doctor's BookingLockTable stripe,
+//                     taken before a connection as AppointmentService does
+//   uniqueConstraint: no lock; an insert that loses the race to the unique constraint rolls
+//                     back and the patient retries, as AppointmentService did before the lock
+// The "database" is modelled in memory with a park of roundTripMicros per statement and a pool
+// of `connections`. A transaction takes a connection, checks for the first free slot (seeing
+// committed rows only), inserts it and commits. As with InnoDB, an insert that collides with
+// another transaction's uncommitted row waits for that commit before failing, and the loser
+// then rolls back. Each call returns the number of rollbacks it took.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main BookingLockBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BookingLockBenchmark {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+    private static final int FULL = 0;
+    private static final int BOOKED = 1;
+    private static final int ROLLED_BACK = 2;
+
+    @Param({"16"})
+    public int threads;
+
+    @Param({"1", "8"})
+    public int doctors;
+
+    @Param({"64"})
+    public int slotsPerDoctor;
+
+    @Param({"200"})
+    public int roundTripMicros;
+
+    @Param({"10"})
+    public int connections;
+
+    private ExecutorService pool;
+    private BookingLockTable locks;
+    private Semaphore connectionPool;
+    // Inserted rows, each with a latch released when its transaction commits
+    private ConcurrentMap<Long, CountDownLatch> rows;
+    private ConcurrentMap<Long, Boolean> committed;
+
+    @Setup(Level.Trial)
+    public void startPool() {
+        pool = Executors.newFixedThreadPool(threads);
+        locks = new BookingLockTable(256, 10_000);
+        connectionPool = new Semaphore(connections);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTable() {
+        rows = new ConcurrentHashMap<>();
+        committed = new ConcurrentHashMap<>();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public int lockTable() throws Exception {
+        return race(doctorId -> locks.withLock(doctorId, DATE, () -> book(doctorId)));
+    }
+
+    @Benchmark
+    public int uniqueConstraint() throws Exception {
+        return race(this::book);
+    }
+
+    // Runs the patients until every slot is booked; returns the rollbacks.
+    private int race(LongFunction<Integer> attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long doctorId = t % doctors + 1;
+            futures.add(pool.submit(() -> {
+                start.await();
+                int rollbacks = 0;
+                while (true) {
+                    int result = attempt.apply(doctorId);
+                    if (result == FULL) {
+                        return rollbacks;
+                    }
+                    if (result == ROLLED_BACK) {
+                        rollbacks++;
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        int rollbacks = 0;
+        for (Future<Integer> future : futures) {
+            rollbacks += future.get(60, TimeUnit.SECONDS);
+        }
+        return rollbacks;
+    }
+
+    private int book(long doctorId) {
+        connectionPool.acquireUninterruptibly();
+        try {
+            roundTrip();
+            int slot = 0;
+            while (slot < slotsPerDoctor && committed.containsKey(key(doctorId, slot))) {
+                slot++;
+            }
+            if (slot == slotsPerDoctor) {
+                return FULL;
+            }
+            long key = key(doctorId, slot);
+            CountDownLatch commit = new CountDownLatch(1);
+            roundTrip();
+            CountDownLatch other = rows.putIfAbsent(key, commit);
+            if (other != null) {
+                awaitUninterruptibly(other);
+                roundTrip();
+                return ROLLED_BACK;
+            }
+            roundTrip();
+            committed.put(key, Boolean.TRUE);
+            commit.countDown();
+            return BOOKED;
+        } finally {
+            connectionPool.release();
+        }
+    }
+
+    private void roundTrip() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long key(long doctorId, int slot) {
+        return doctorId << 32 | slot;
+    }
+}
@@ -0,0 +1,221 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.DoctorSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Doctor filtering over 100k doctors in MySQL: the repository LIKE queries DoctorSearchEngine
+// replaces, versus the engine's path of a DoctorSearchIndex lookup followed by one primary-key
+// fetch of the matching doctors. Both load each match with its available times, and the LIKE
+// path applies the AM/PM filter to them afterwards as DoctorService does:
+//   likeNameAndTime:          findByNameLike
+//   likeNameSpecialtyAndTime: findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase
+//   indexNameAndTime, indexNameSpecialtyAndTime: the same filters through the index
+// Needs a MySQL at -Dbenchmark.jdbc.url (default
+// jdbc:mysql://localhost:3306/doctor_search_benchmark?createDatabaseIfNotExist=true), with
+// -Dbenchmark.jdbc.user and -Dbenchmark.jdbc.password. The doctors and doctor_available_times
+// tables are seeded on the first run and reused while they hold the expected number of doctors.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main DoctorSearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorSearchBenchmark {
+
+    private static final String[] FIRST = {"Alice", "Bruno", "Chen", "Dmitri", "Elena", "Farah", "Gustavo", "Hana",
+            "Ivan", "Julia", "Kwame", "Lucia", "Mateo", "Nadia", "Omar", "Priya", "Quentin", "Rosa", "Samir", "Tara"};
+    private static final String[] LAST = {"Anderson", "Baptiste", "Castillo", "Duarte", "Eriksen", "Fischer",
+            "Gonzalez", "Hoffmann", "Ibrahim", "Jensen", "Kowalski", "Lindqvist", "Moreau", "Nakamura", "Okafor",
+            "Petrov", "Quinn", "Rossi", "Schneider", "Tanaka"};
+    private static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Neurology", "Pediatrics",
+            "Orthopedics", "Oncology", "Psychiatry", "Radiology"};
+    private static final String[] CITIES = {"Boston", "Chicago", "Denver", "Houston", "Seattle", "Phoenix"};
+
+    private static final String DOCTOR_COLUMNS = "select d.id, d.first_name, d.last_name, d.specialization, t.time_slot " +
+            "from doctors d left join doctor_available_times t on t.doctor_id = d.id ";
+    private static final String BY_NAME = DOCTOR_COLUMNS +
+            "where concat(d.first_name, ' ', d.last_name) like concat('%', ?, '%') order by d.id";
+    private static final String BY_NAME_AND_SPECIALTY = DOCTOR_COLUMNS +
+            "where lower(concat(d.first_name, ' ', d.last_name)) like lower(concat('%', ?, '%')) " +
+            "and lower(d.specialization) = lower(?) order by d.id";
+
+    @Param({"100000"})
+    public int doctors;
+
+    private Connection connection;
+    private DoctorSearchIndex index;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url",
+                        "jdbc:mysql://localhost:3306/doctor_search_benchmark?createDatabaseIfNotExist=true"),
+                System.getProperty("benchmark.jdbc.user", "root"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        if (count() != doctors) {
+            seed();
+        }
+        index = new DoctorSearchIndex();
+        // One row per available time, so each doctor is put once with all of its times
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select d.id, d.first_name, d.last_name, d.specialization, " +
+                     "d.city, t.time_slot from doctors d left join doctor_available_times t on t.doctor_id = d.id " +
+                     "order by d.id")) {
+            boolean more = rs.next();
+            while (more) {
+                long id = rs.getLong(1);
+                String firstName = rs.getString(2);
+                String lastName = rs.getString(3);
+                String specialty = rs.getString(4);
+                String city = rs.getString(5);
+                List<String> slots = new ArrayList<>();
+                do {
+                    String slot = rs.getString(6);
+                    if (slot != null) {
+                        slots.add(slot);
+                    }
+                    more = rs.next();
+                } while (more && rs.getLong(1) == id);
+                index.put(id, firstName, lastName, specialty, city, slots);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeNameAndTime() throws SQLException {
+        return withTime(query(BY_NAME, "kowalski"), false);
+    }
+
+    @Benchmark
+    public List<Long> likeNameSpecialtyAndTime() throws SQLException {
+        return withTime(query(BY_NAME_AND_SPECIALTY, "nakamura", "cardiology"), true);
+    }
+
+    @Benchmark
+    public List<Long> indexNameAndTime() throws SQLException {
+        return fetch(index.search("kowalski", null, null, DoctorSearchIndex.PM));
+    }
+
+    @Benchmark
+    public List<Long> indexNameSpecialtyAndTime() throws SQLException {
+        return fetch(index.search("nakamura", "cardiology", null, DoctorSearchIndex.AM));
+    }
+
+    // Loads the matches by primary key, as DoctorSearchEngine.filterDoctors does.
+    private List<Long> fetch(List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return new ArrayList<>(query(DOCTOR_COLUMNS + "where d.id in (" + placeholders + ")", ids.toArray()).keySet());
+    }
+
+    private Map<Long, List<String>> query(String sql, Object... parameters) throws SQLException {
+        Map<Long, List<String>> slotsById = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    slotsById.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(5));
+                }
+            }
+        }
+        return slotsById;
+    }
+
+    private static List<Long> withTime(Map<Long, List<String>> slotsById, boolean morning) {
+        List<Long> ids = new ArrayList<>();
+        slotsById.forEach((id, slots) -> {
+            if (slots.stream().anyMatch(slot -> slot != null && (Integer.parseInt(slot.substring(0, 2)) < 12) == morning)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private int count() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists doctors (id bigint primary key, " +
+                    "first_name varchar(50) not null, last_name varchar(50) not null, " +
+                    "specialization varchar(100) not null, city varchar(50))");
+            statement.execute("create table if not exists doctor_available_times (doctor_id bigint not null, " +
+                    "time_slot varchar(20), index (doctor_id))");
+            try (ResultSet rs = statement.executeQuery("select count(*) from doctors")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("truncate table doctors");
+            statement.execute("truncate table doctor_available_times");
+        }
+        Random random = new Random(7);
+        connection.setAutoCommit(false);
+        try (PreparedStatement doctor = connection.prepareStatement(
+                     "insert into doctors (id, first_name, last_name, specialization, city) values (?, ?, ?, ?, ?)");
+             PreparedStatement slot = connection.prepareStatement(
+                     "insert into doctor_available_times (doctor_id, time_slot) values (?, ?)")) {
+            for (int i = 0; i < doctors; i++) {
+                doctor.setLong(1, i);
+                doctor.setString(2, FIRST[random.nextInt(FIRST.length)] + (char) ('a' + random.nextInt(26)));
+                doctor.setString(3, LAST[random.nextInt(LAST.length)] + (char) ('a' + random.nextInt(26)) + i);
+                doctor.setString(4, SPECIALTIES[random.nextInt(SPECIALTIES.length)]);
+                doctor.setString(5, CITIES[random.nextInt(CITIES.length)]);
+                doctor.addBatch();
+                // None, one or both of a morning and an afternoon slot
+                for (String time : new String[]{"09:00-10:00", "14:00-15:00"}) {
+                    if (random.nextBoolean()) {
+                        slot.setLong(1, i);
+                        slot.setString(2, time);
+                        slot.addBatch();
+                    }
+                }
+                if (i % 1000 == 999) {
+                    doctor.executeBatch();
+                    slot.executeBatch();
+                }
+            }
+            doctor.executeBatch();
+            slot.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
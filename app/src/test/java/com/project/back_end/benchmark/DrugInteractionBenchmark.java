@@ -0,0 +1,108 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.DrugInteractionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Checking one prescription of eight medications, against a patient with a few lines of
+// free-text allergies, with the bundled src/main/resources/drug-interactions dataset:
+//   indexed:  DrugInteractionIndex.check
+//   pairwise: every pair of medications compared against every dataset line by lower-cased
+//             substring match, and every dataset name searched for in the allergies; this also
+//             ignores classes, so it finds less than indexed does
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main DrugInteractionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrugInteractionBenchmark {
+
+    private static final List<String> MEDICATIONS = List.of("Warfarin 5 mg tablet", "Lisinopril 10 mg",
+            "Ibuprofen 400 mg", "Sertraline 50mg", "Amoxicillin 500 mg capsule", "Omeprazole 20 mg",
+            "Simvastatin 40 mg", "Clarithromycin 500 mg");
+    private static final String ALLERGIES = "Penicillin (hives, 2019). Sulfa drugs - rash. Seasonal pollen; "
+            + "latex gloves cause mild irritation. No known reaction to shellfish or eggs.";
+
+    private DrugInteractionIndex index;
+    private List<String[]> interactions;
+    private List<String> names;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStreamReader pairs = resource("interactions.csv"); InputStreamReader classes = resource("classes.csv")) {
+            index = DrugInteractionIndex.load(pairs, classes);
+        }
+        interactions = new ArrayList<>();
+        names = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(resource("interactions.csv"))) {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    String[] fields = line.split(",", 4);
+                    interactions.add(fields);
+                    names.add(fields[0]);
+                    names.add(fields[1]);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> indexed() {
+        return index.check(MEDICATIONS, ALLERGIES);
+    }
+
+    @Benchmark
+    public List<String> pairwise() {
+        List<String> found = new ArrayList<>();
+        for (int i = 0; i < MEDICATIONS.size(); i++) {
+            String a = MEDICATIONS.get(i).toLowerCase(Locale.ROOT);
+            for (int j = i + 1; j < MEDICATIONS.size(); j++) {
+                String b = MEDICATIONS.get(j).toLowerCase(Locale.ROOT);
+                for (String[] interaction : interactions) {
+                    if ((a.contains(interaction[0]) && b.contains(interaction[1]))
+                            || (a.contains(interaction[1]) && b.contains(interaction[0]))) {
+                        found.add(MEDICATIONS.get(i) + " + " + MEDICATIONS.get(j) + ": "
+                                + interaction[2] + " - " + interaction[3]);
+                        break;
+                    }
+                }
+            }
+        }
+        String allergies = ALLERGIES.toLowerCase(Locale.ROOT);
+        for (String medication : MEDICATIONS) {
+            String lower = medication.toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (lower.contains(name) && allergies.contains(name)) {
+                    found.add(medication + ": allergy - patient is allergic to " + name);
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static InputStreamReader resource(String name) {
+        InputStream in = DrugInteractionBenchmark.class.getClassLoader().getResourceAsStream("drug-interactions/" + name);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,106 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.models.EmailNotification;
+import com.project.back_end.services.EmailDispatchQueue;
+import com.project.back_end.services.EmailTemplates;
+import com.project.back_end.services.FakeSmtpServer;
+import com.project.back_end.services.SmtpEmailTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Time to send 100k queued notifications, in mixed priorities, through EmailDispatchQueue and
+// SmtpEmailTransport to a FakeSmtpServer on loopback, for several email.dispatch.concurrency
+// settings. acceptMillis is how long the server takes to accept each message; at 0 the cost is
+// the dispatcher and the SMTP exchange itself, at 1 it is dominated by waiting on the server,
+// which is what the concurrency limit is there to overlap. Mongo is not involved.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main EmailDispatchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class EmailDispatchBenchmark {
+
+    private static final String[] PRIORITIES = {"Low", "Normal", "Normal", "High", "Urgent"};
+
+    @Param({"100000"})
+    public int notifications;
+
+    @Param({"8", "32", "128"})
+    public int concurrency;
+
+    @Param({"0", "1"})
+    public int acceptMillis;
+
+    private FakeSmtpServer server;
+    private SmtpEmailTransport transport;
+    private List<EmailNotification> queued;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        server = new FakeSmtpServer(false, acceptMillis);
+        transport = new SmtpEmailTransport(new EmailTemplates(new SimpleMeterRegistry(), "email-templates", 10), "127.0.0.1", server.getPort(), "no-reply@clinic.test", 10_000, concurrency);
+    }
+
+    // Sending changes the notifications, so every run gets fresh ones
+    @Setup(Level.Invocation)
+    public void queueNotifications() {
+        queued = new ArrayList<>(notifications);
+        for (int i = 0; i < notifications; i++) {
+            EmailNotification notification = new EmailNotification();
+            notification.setId(Integer.toString(i));
+            notification.setRecipientId(i);
+            notification.setRecipientType("Patient");
+            notification.setRecipientEmail("patient" + i + "@clinic.test");
+            notification.setNotificationType("appointment_reminder");
+            notification.setSubject("Your appointment tomorrow");
+            EmailNotification.EmailContent content = new EmailNotification.EmailContent();
+            content.setTemplateName("appointment_reminder");
+            content.setPersonalizedData(Map.of("patientName", "Patient " + i, "doctorName", "Grace Hopper",
+                    "date", "Monday, March 2, 2026", "time", "9:30 AM", "durationMinutes", 30,
+                    "clinicName", "Downtown", "clinicAddress", "1 Main St", "clinicPhone", "555-0100"));
+            notification.setContent(content);
+            notification.setMetadata(new EmailNotification.EmailMetadata());
+            notification.getMetadata().setPriority(PRIORITIES[i % PRIORITIES.length]);
+            queued.add(notification);
+        }
+    }
+
+    @Benchmark
+    public int dispatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(notifications);
+        EmailDispatchQueue queue = new EmailDispatchQueue(transport, new SimpleMeterRegistry(), concurrency,
+                notifications, 30_000, 3_600_000, notification -> done.countDown(), () -> { });
+        for (EmailNotification notification : queued) {
+            queue.offer(notification);
+        }
+        done.await();
+        queue.shutdown();
+        return server.getAcceptedCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws Exception {
+        transport.close();
+        server.close();
+    }
+}
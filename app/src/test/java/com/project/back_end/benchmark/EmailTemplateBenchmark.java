@@ -0,0 +1,115 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.EmailTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Rendering the body of one appointment_reminder notification, with the template from
+// src/main/resources/email-templates, four ways:
+//   precompiled:       EmailTemplates, appending into a StringBuilder reused between messages
+//   precompiledString: EmailTemplates, a new String per message
+//   thymeleafCached:   the same text as a Thymeleaf TEXT template ([(${name})] for {{name}}),
+//                      parsed once and kept in Thymeleaf's template cache
+//   thymeleafUncached: Thymeleaf with its cache off, so the template is parsed per message
+// All four produce the same text.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main EmailTemplateBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final String TEMPLATE = "appointment_reminder";
+
+    private final StringBuilder out = new StringBuilder(1024);
+    private EmailTemplates.Template template;
+    private Map<String, Object> data;
+    private String thymeleafSource;
+    private TemplateEngine cachedEngine;
+    private TemplateEngine uncachedEngine;
+    private Context context;
+
+    @Setup
+    public void setUp() throws IOException {
+        template = new EmailTemplates(new SimpleMeterRegistry(), "email-templates", 10).get(TEMPLATE, 1);
+        data = new HashMap<>();
+        data.put("patientName", "Ada Lovelace");
+        data.put("doctorName", "Grace Hopper");
+        data.put("date", "Monday, March 2, 2026");
+        data.put("time", "9:30 AM");
+        data.put("durationMinutes", 30);
+        data.put("clinicName", "Downtown");
+        data.put("clinicAddress", "1 Main St, Springfield");
+        data.put("clinicPhone", "555-0100");
+        data.put("preparationInstructions", "\nTo prepare: please bring your insurance card.\n");
+
+        String body;
+        try (InputStream in = EmailTemplateBenchmark.class.getClassLoader()
+                .getResourceAsStream("email-templates/" + TEMPLATE + "/v1.txt")) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            body = source.substring(source.indexOf("\n\n") + 2);
+        }
+        thymeleafSource = body.replaceAll("\\{\\{\\s*(\\w+)\\s*}}", "[(\\${$1})]");
+        cachedEngine = engine(true);
+        uncachedEngine = engine(false);
+        context = new Context(Locale.ENGLISH, data);
+
+        String expected = template.getBody().render(data);
+        if (!expected.equals(cachedEngine.process(thymeleafSource, context))) {
+            throw new IllegalStateException("Thymeleaf renders a different text");
+        }
+    }
+
+    @Benchmark
+    public StringBuilder precompiled() {
+        out.setLength(0);
+        return template.renderBody(out, data);
+    }
+
+    @Benchmark
+    public String precompiledString() {
+        return template.getBody().render(data);
+    }
+
+    @Benchmark
+    public String thymeleafCached() {
+        return cachedEngine.process(thymeleafSource, context);
+    }
+
+    @Benchmark
+    public String thymeleafUncached() {
+        return uncachedEngine.process(thymeleafSource, context);
+    }
+
+    private static TemplateEngine engine(boolean cacheable) {
+        StringTemplateResolver resolver = new StringTemplateResolver();
+        resolver.setTemplateMode(TemplateMode.TEXT);
+        resolver.setCacheable(cacheable);
+        TemplateEngine engine = new TemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
@@ -0,0 +1,147 @@
+package com.project.back_end.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.project.back_end.DTO.CachedJson;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.services.PrescriptionCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Loading the prescriptions of one appointment, as patientRecord.html does when a doctor opens
+// a record, from a collection of 5M prescriptions:
+//   indexed:        find on appointmentId, served by the appointmentId index
+//   collectionScan: the same find hinted to {$natural: 1}, i.e. without the index
+//   cached:         PrescriptionCache.getByAppointment over a working set of hotAppointments
+//                   appointments, which fits in the cache after warmup
+// Needs a MongoDB at -Dbenchmark.mongo.uri (default mongodb://localhost:27017). The
+// prescription_benchmark database is seeded on the first run, which takes a few minutes, and
+// reused afterwards as long as it holds the expected number of prescriptions.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main PrescriptionLookupBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrescriptionLookupBenchmark {
+
+    private static final int SEED_BATCH = 10_000;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Param({"5000000"})
+    public int prescriptions;
+
+    @Param({"1000"})
+    public int hotAppointments;
+
+    private MongoClient client;
+    private MongoOperations mongo;
+    private PrescriptionCache cache;
+    private long[] appointmentIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017"));
+        mongo = new MongoTemplate(client, "prescription_benchmark");
+        cache = new PrescriptionCache(mongo, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                10_000, 3600);
+        if (mongo.estimatedCount(Prescription.class) != prescriptions) {
+            seed();
+        }
+        cache.ensureIndexes();
+
+        Random random = new Random(42);
+        appointmentIds = new long[hotAppointments];
+        for (int i = 0; i < hotAppointments; i++) {
+            appointmentIds[i] = 1 + random.nextInt(prescriptions);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public List<Prescription> indexed() {
+        return mongo.find(byAppointment(nextAppointment()), Prescription.class);
+    }
+
+    @Benchmark
+    public List<Prescription> collectionScan() {
+        return mongo.find(byAppointment(nextAppointment()).withHint(new Document("$natural", 1)), Prescription.class);
+    }
+
+    @Benchmark
+    public CachedJson cached() {
+        return cache.getByAppointment(nextAppointment());
+    }
+
+    private long nextAppointment() {
+        long appointmentId = appointmentIds[next];
+        next = (next + 1) % appointmentIds.length;
+        return appointmentId;
+    }
+
+    private static Query byAppointment(long appointmentId) {
+        return Query.query(Criteria.where("appointmentId").is(appointmentId));
+    }
+
+    // One prescription per appointment, for 500k patients and 2,000 doctors.
+    private void seed() {
+        mongo.dropCollection(Prescription.class);
+        List<Prescription> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < prescriptions; i++) {
+            batch.add(prescription(i));
+            if (batch.size() == SEED_BATCH || i == prescriptions - 1) {
+                mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class).insert(batch).execute();
+                batch.clear();
+            }
+        }
+    }
+
+    private static Prescription prescription(int i) {
+        Prescription prescription = new Prescription();
+        prescription.setAppointmentId(i + 1L);
+        prescription.setPatientId(i % 500_000 + 1L);
+        prescription.setDoctorId(i % 2_000 + 1L);
+        prescription.setPatientName("Patient " + (i % 500_000 + 1));
+        prescription.setDoctorName("Doctor " + (i % 2_000 + 1));
+        prescription.setPrescriptionDate(START.plusMinutes(i * 7L));
+        prescription.setStatus(Prescription.PrescriptionStatus.values()[i % Prescription.PrescriptionStatus.values().length]);
+        Prescription.Medication medication = new Prescription.Medication();
+        medication.setName("Lisinopril");
+        medication.setDosage("10 mg");
+        medication.setFrequency("Once daily");
+        medication.setDuration("30 days");
+        medication.setQuantity(30);
+        prescription.getMedications().add(medication);
+        return prescription;
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.SettlementFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Joining a million payments against a settlement file of a million rows, each payment looked
+// up by transaction id and its settled amount read, the way PaymentReconciliationService does:
+//   mapped:   SettlementFile, memory-mapped with an int-array index over the file
+//   hashMap:  the file read line by line into a HashMap of transaction id to split fields
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main SettlementJoinBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx512m")
+public class SettlementJoinBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private Path file;
+    private String[] transactionIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("settlement", ".csv");
+        transactionIds = new String[ROWS];
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("transaction_id,amount,status,settled_at\n");
+            for (int i = 0; i < ROWS; i++) {
+                transactionIds[i] = String.format("txn_%08x", i * 2654435761L & 0xffffffffL);
+                out.write(transactionIds[i] + "," + (i % 500) + "." + (i % 100) + ",settled,2025-06-01T12:00:00Z\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public BigDecimal mapped() throws IOException {
+        SettlementFile settlements = SettlementFile.open(file);
+        BigDecimal total = BigDecimal.ZERO;
+        for (String transactionId : transactionIds) {
+            total = total.add(settlements.getAmount(settlements.find(transactionId)));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal hashMap() throws IOException {
+        Map<String, String[]> settlements = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String[] fields = line.split(",");
+                settlements.put(fields[0], fields);
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (String transactionId : transactionIds) {
+            total = total.add(new BigDecimal(settlements.get(transactionId)[1]));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.back_end.benchmark;
+
+import com.project.back_end.services.TokenClaimsCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// validateToken as TokenService specifies it (build a parser, verify the HMAC, parse the claims,
+// look the user up) on every call, versus the same check behind TokenClaimsCache.
+//   cold: no cache, every request pays the full verification
+//   miss: cache in front, but every token is new to it
+//   warm: the steady state, a user's token already verified once
+// The repository lookup is a HashSet here, so real cold numbers are higher by one query.
+// Run with: java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main TokenValidationBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"1000"})
+    public int users;
+
+    private SecretKey key;
+    private Set<String> emails;
+    private String[] tokens;
+    private TokenClaimsCache cache;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        emails = new HashSet<>();
+        tokens = new String[users];
+        Instant now = Instant.now();
+        for (int i = 0; i < users; i++) {
+            String email = "user" + i + "@clinic.test";
+            emails.add(email);
+            tokens[i] = Jwts.builder()
+                    .subject(email)
+                    .issuedAt(Date.from(now))
+                    .expiration(Date.from(now.plus(Duration.ofDays(7))))
+                    .signWith(key)
+                    .compact();
+        }
+        cache = new TokenClaimsCache(new SimpleMeterRegistry(), users * 2L);
+        for (String token : tokens) {
+            cache.verifiedEmail(token, "doctor", this::verify);
+        }
+    }
+
+    @Benchmark
+    public String cold() {
+        TokenClaimsCache.VerifiedToken verified = verify(nextToken());
+        return verified != null ? verified.getEmail() : null;
+    }
+
+    @Benchmark
+    public String miss() {
+        String token = nextToken();
+        cache.clear();
+        return cache.verifiedEmail(token, "doctor", this::verify);
+    }
+
+    @Benchmark
+    public String warm() {
+        return cache.verifiedEmail(nextToken(), "doctor", this::verify);
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % tokens.length;
+        return token;
+    }
+
+    private TokenClaimsCache.VerifiedToken verify(String token) {
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        if (!emails.contains(claims.getSubject())) {
+            return null;
+        }
+        return new TokenClaimsCache.VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
+    }
+}
@@ -0,0 +1,111 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.ClinicLocation;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Counts the SQL statements behind each dashboard listing: every request must be answered by
+// the one joined projection query, with nothing lazily loaded afterwards.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboard;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppointmentDashboardQueryTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(7);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AppointmentProjectionRepository projections;
+
+    private Statistics statistics;
+    private Doctor doctor;
+    private Patient firstPatient;
+
+    @BeforeEach
+    void setUp() {
+        ClinicLocation clinic = new ClinicLocation("Main Clinic", "1 Main St", "Boston", "MA", "02101", "+16175550100");
+        entityManager.persist(clinic);
+
+        doctor = new Doctor("drhouse", "Gregory", "House", "house@clinic.test", "secret1",
+                "617-555-0101", "Diagnostics", "LIC-12345");
+        doctor.setClinicLocation(clinic);
+        entityManager.persist(doctor);
+
+        for (int i = 0; i < 5; i++) {
+            Patient patient = new Patient("Patient" + i, "Tester", "patient" + i + "@mail.test", "secret1",
+                    "617-555-02" + i + "0", LocalDate.of(1980, 1, 1 + i), Patient.Gender.OTHER);
+            entityManager.persist(patient);
+            if (i == 0) {
+                firstPatient = patient;
+            }
+            Appointment appointment = new Appointment(doctor, patient, DAY, LocalTime.of(9 + i, 0),
+                    Appointment.AppointmentType.CONSULTATION);
+            appointment.setClinicLocation(clinic);
+            appointment.setNotes("x".repeat(4000));
+            entityManager.persist(appointment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void doctorDayListingIsOneStatement() {
+        List<AppointmentDTO> rows = projections.findDashboardRows(doctor.getId(), DAY);
+
+        assertEquals(5, rows.size());
+        assertEquals("Dr. Gregory House", rows.get(0).getDoctorName());
+        assertEquals("Patient0 Tester", rows.get(0).getPatientName());
+        assertEquals("patient0@mail.test", rows.get(0).getPatientEmail());
+        assertEquals(LocalTime.of(10, 0), rows.get(0).getEndTime().toLocalTime());
+        assertStatements(1);
+    }
+
+    @Test
+    void patientNameFilterIsOneStatement() {
+        List<AppointmentDTO> rows = projections.findDashboardRowsByPatientName(doctor.getId(), DAY, "patient3");
+
+        assertEquals(1, rows.size());
+        assertEquals(LocalTime.of(12, 0), rows.get(0).getAppointmentTimeOnly());
+        assertStatements(1);
+    }
+
+    @Test
+    void patientHistoryIsOneStatement() {
+        List<AppointmentDTO> rows = projections.findPatientAppointmentRows(firstPatient.getId());
+
+        assertEquals(1, rows.size());
+        assertEquals(AppointmentDTO.STATUS_SCHEDULED, rows.get(0).getStatus());
+        assertStatements(1);
+    }
+
+    private void assertStatements(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements per dashboard request");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities hydrated");
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the AppointmentProjectionRepository queries against H2 in MySQL mode, with the schema
+// generated from the entities, records the SQL Hibernate generates for them, and EXPLAINs that
+// SQL with the same parameters to check each lookup is driven by the intended index rather than
+// a table scan. H2 names the chosen index in the plan; it cannot show whether MySQL would answer
+// from the index alone, which is what the column lists of the queries are chosen for.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explain;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.project.back_end.repo.AppointmentIndexExplainTest$RecordedStatements"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppointmentIndexExplainTest {
+
+    private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2030, 1, 7);
+    private static final String PATIENT_STATUS_INDEX = "idx_appointments_patient_status_date_time";
+    private static final String DOCTOR_DATE_TIME_INDEX = "uk_appointments_doctor_date_time";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AppointmentProjectionRepository repository;
+
+    @Test
+    void patientSlotsByStatusUsePatientStatusIndex() {
+        String plan = explain(() -> repository.findPatientSlotsByStatus(1L, Appointment.AppointmentStatus.SCHEDULED, FROM),
+                1L, Appointment.AppointmentStatus.SCHEDULED.name(), FROM);
+        assertIndexLookup(plan, PATIENT_STATUS_INDEX);
+    }
+
+    @Test
+    void doctorDayCountIsServedByTheDoctorDateTimeKey() {
+        String plan = explain(() -> repository.countByDoctorAndDate(1L, FROM), 1L, FROM);
+        assertIndexLookup(plan, DOCTOR_DATE_TIME_INDEX);
+    }
+
+    @Test
+    void doctorDayIdsAreServedByTheDoctorDateTimeKey() {
+        String plan = explain(() -> repository.findIdsByDoctorAndDate(1L, FROM), 1L, FROM);
+        assertIndexLookup(plan, DOCTOR_DATE_TIME_INDEX);
+    }
+
+    @Test
+    void doctorSlotsBetweenDatesAreServedByTheDoctorDateTimeKey() {
+        String plan = explain(() -> repository.findDoctorSlotsBetween(1L, FROM, TO), 1L, FROM, TO);
+        assertIndexLookup(plan, DOCTOR_DATE_TIME_INDEX);
+    }
+
+    private static void assertIndexLookup(String plan, String index) {
+        assertFalse(plan.contains("tablescan"), plan);
+        assertTrue(plan.contains(index), plan);
+    }
+
+    // Runs the repository query, then EXPLAINs the statement it issued with parameters bound in
+    // the order they appear in the SQL.
+    private String explain(Runnable repositoryQuery, Object... parameters) {
+        RecordedStatements.SQL.clear();
+        repositoryQuery.run();
+        assertFalse(RecordedStatements.SQL.isEmpty(), "the repository issued no SQL");
+        String sql = RecordedStatements.SQL.get(RecordedStatements.SQL.size() - 1);
+
+        Query explain = entityManager.createNativeQuery("explain " + sql);
+        for (int i = 0; i < parameters.length; i++) {
+            explain.setParameter(i + 1, parameters[i]);
+        }
+        StringBuilder plan = new StringBuilder();
+        for (Object row : explain.getResultList()) {
+            plan.append(row).append('\n');
+        }
+        return plan.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public static class RecordedStatements implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (!sql.regionMatches(true, 0, "explain", 0, 7)) {
+                SQL.add(sql);
+            }
+            return sql;
+        }
+    }
+}
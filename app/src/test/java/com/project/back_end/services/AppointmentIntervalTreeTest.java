@@ -0,0 +1,134 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentIntervalTreeTest {
+
+    @Test
+    void adjacentIntervalsDoNotOverlap() {
+        AppointmentIntervalTree tree = new AppointmentIntervalTree();
+        tree.insert(1, 540, 570);
+        tree.insert(2, 600, 630);
+
+        assertNull(tree.findOverlap(570, 600, null));
+        assertNull(tree.findOverlap(510, 540, null));
+        assertNull(tree.findOverlap(630, 660, null));
+        assertEquals(Long.valueOf(1), tree.findOverlap(569, 571, null));
+        assertEquals(Long.valueOf(2), tree.findOverlap(560, 660, 1L));
+        assertNull(tree.findOverlap(540, 570, 1L));
+    }
+
+    @Test
+    void keepsIntervalsWithIdenticalStartsApartById() {
+        AppointmentIntervalTree tree = new AppointmentIntervalTree();
+        tree.insert(1, 540, 570);
+        tree.insert(2, 540, 600);
+        tree.insert(3, 540, 555);
+
+        assertEquals(List.of(1L, 2L, 3L),
+                tree.findAllOverlaps(540, 541).stream().sorted().toList());
+        assertEquals(List.of(2L), tree.findAllOverlaps(570, 600));
+
+        assertTrue(tree.remove(2, 540));
+        assertEquals(2, tree.size());
+        assertNull(tree.findOverlap(570, 600, null));
+        assertEquals(Long.valueOf(1), tree.findOverlap(555, 560, null));
+    }
+
+    @Test
+    void removingAMissingKeyChangesNothing() {
+        AppointmentIntervalTree tree = new AppointmentIntervalTree();
+        assertFalse(tree.remove(1, 540));
+        tree.insert(1, 540, 570);
+
+        assertFalse(tree.remove(1, 541));
+        assertFalse(tree.remove(2, 540));
+        assertEquals(1, tree.size());
+        assertEquals(Long.valueOf(1), tree.findOverlap(550, 551, null));
+        assertTrue(tree.remove(1, 540));
+        assertEquals(0, tree.size());
+        assertNull(tree.findOverlap(0, Long.MAX_VALUE, null));
+    }
+
+    @Test
+    void agreesWithALinearScan() {
+        Random random = new Random(42);
+        AppointmentIntervalTree tree = new AppointmentIntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 0; id < 2_000; id++) {
+            long start = random.nextInt(100_000);
+            long end = start + 5 + random.nextInt(120);
+            tree.insert(id, start, end);
+            intervals.add(new long[]{id, start, end});
+        }
+        for (int i = 0; i < 500; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            assertTrue(tree.remove(removed[0], removed[1]));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(60);
+            List<Long> expected = new ArrayList<>();
+            for (long[] interval : intervals) {
+                if (interval[1] < end && interval[2] > start) {
+                    expected.add(interval[0]);
+                }
+            }
+            assertEquals(expected.stream().sorted().toList(), tree.findAllOverlaps(start, end).stream().sorted().toList());
+            Long found = tree.findOverlap(start, end, null);
+            assertEquals(expected.isEmpty(), found == null);
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+
+    @Test
+    void detectorDropsSchedulesLoadedOnEarlierDays() {
+        AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2030, 5, 6));
+        AtomicInteger loads = new AtomicInteger();
+        AppointmentConflictDetector detector = new AppointmentConflictDetector((doctorId, from) -> {
+            loads.incrementAndGet();
+            return new AppointmentConflictDetector.DoctorSchedule(from);
+        }, today::get);
+        LocalDateTime nine = LocalDateTime.of(2030, 5, 7, 9, 0);
+
+        assertNull(detector.findConflict(4L, nine, 30, null));
+        detector.onBooked(appointment(10L, nine));
+        assertEquals(Long.valueOf(10), detector.findConflict(4L, nine.plusMinutes(15), 30, null));
+        assertNull(detector.findConflict(4L, nine.plusMinutes(30), 30, null));
+        assertNull(detector.findConflict(4L, nine, 30, 10L));
+        assertEquals(1, loads.get());
+
+        today.set(today.get().plusDays(1));
+        assertNull(detector.findConflict(4L, nine, 30, null));
+        assertEquals(2, loads.get());
+    }
+
+    private static Appointment appointment(Long id, LocalDateTime start) {
+        Doctor doctor = new Doctor();
+        doctor.setId(4L);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(start.toLocalDate());
+        appointment.setAppointmentTime(LocalTime.from(start));
+        appointment.setDurationMinutes(30);
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        return appointment;
+    }
+}
@@ -0,0 +1,150 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AppointmentPage;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.ClinicLocation;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Walks both paged listings to the end and checks every row comes back exactly once, in key order.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:paging;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "appointment.page.default-size=7",
+        "appointment.page.max-size=10"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AppointmentPageService.class)
+class AppointmentPageServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AppointmentPageService pages;
+
+    private Doctor doctor;
+    private Patient regular;
+
+    @BeforeEach
+    void setUp() {
+        ClinicLocation clinic = new ClinicLocation("Main Clinic", "1 Main St", "Boston", "MA", "02101", "+16175550100");
+        entityManager.persist(clinic);
+        doctor = new Doctor("drgrey", "Meredith", "Grey", "grey@clinic.test", "secret1",
+                "617-555-0101", "Surgery", "LIC-54321");
+        doctor.setClinicLocation(clinic);
+        entityManager.persist(doctor);
+        regular = new Patient("Regular", "Visitor", "regular@mail.test", "secret1",
+                "617-555-0300", LocalDate.of(1970, 5, 5), Patient.Gender.FEMALE);
+        entityManager.persist(regular);
+
+        // 24 quarter-hour appointments on one day for the doctor, each with its own patient
+        for (int i = 0; i < 24; i++) {
+            Patient patient = new Patient("Patient" + i, "Tester", "p" + i + "@mail.test", "secret1",
+                    "617-555-04" + (10 + i), LocalDate.of(1990, 1, 1), Patient.Gender.OTHER);
+            entityManager.persist(patient);
+            persist(clinic, patient, DAY, LocalTime.of(8, 0).plusMinutes(15L * i));
+        }
+        // 15 visits by one patient, two per day so ties on the date are broken by time
+        for (int i = 0; i < 15; i++) {
+            persist(clinic, regular, DAY.plusDays(1 + i / 2), LocalTime.of(i % 2 == 0 ? 9 : 14, 0));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void doctorDayPagesCoverTheDayInTimeOrder() {
+        List<AppointmentDTO> all = new ArrayList<>();
+        String cursor = null;
+        int requests = 0;
+        do {
+            AppointmentPage page = pages.doctorDay(doctor.getId(), DAY, "null", cursor, 10);
+            all.addAll(page.getAppointments());
+            cursor = page.getNextCursor();
+            requests++;
+        } while (cursor != null);
+
+        assertEquals(3, requests);
+        assertEquals(24, all.size());
+        assertEquals(24, ids(all).size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getAppointmentTime().isBefore(all.get(i).getAppointmentTime()));
+        }
+    }
+
+    @Test
+    void patientHistoryPagesAreNewestFirstWithConfiguredDefaultSize() {
+        List<AppointmentDTO> all = new ArrayList<>();
+        AppointmentPage page = pages.patientHistory(regular.getId(), null, null);
+        assertEquals(7, page.getAppointments().size());
+        all.addAll(page.getAppointments());
+        while (page.getNextCursor() != null) {
+            page = pages.patientHistory(regular.getId(), page.getNextCursor(), 500);
+            all.addAll(page.getAppointments());
+        }
+
+        assertEquals(15, all.size());
+        assertEquals(15, ids(all).size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getAppointmentTime().isAfter(all.get(i).getAppointmentTime()));
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        AppointmentPage page = pages.doctorDay(doctor.getId(), DAY, "patient2", null, null);
+
+        assertEquals(5, page.getAppointments().size()); // Patient2, Patient20..23
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rejectsForeignCursors() {
+        String cursor = pages.doctorDay(doctor.getId(), DAY, null, null, 5).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pages.doctorDay(doctor.getId(), DAY.plusDays(1), null, cursor, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> pages.patientHistory(regular.getId(), "bm90LWEtY3Vyc29y", 5));
+    }
+
+    private void persist(ClinicLocation clinic, Patient patient, LocalDate date, LocalTime time) {
+        Appointment appointment = new Appointment(doctor, patient, date, time, Appointment.AppointmentType.CONSULTATION);
+        appointment.setClinicLocation(clinic);
+        appointment.setDurationMinutes(15);
+        entityManager.persist(appointment);
+    }
+
+    private static Set<Long> ids(List<AppointmentDTO> rows) {
+        Set<Long> ids = new HashSet<>();
+        for (AppointmentDTO row : rows) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,154 @@
+package com.project.back_end.services;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentReminderGeneratorTest {
+
+    @Test
+    void reminderNotificationsAreRenderedAndKeyedByAppointment() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("patientName", "Ada Lovelace");
+        data.put("doctorName", "Grace Hopper");
+        data.put("date", "Monday, March 2, 2026");
+        data.put("time", "9:30 AM");
+        data.put("durationMinutes", 30);
+        data.put("clinicName", "Downtown");
+        data.put("clinicAddress", "1 Main St");
+        data.put("clinicPhone", "555-0100");
+
+        EmailTemplates.Template template = new EmailTemplates(new SimpleMeterRegistry(), "email-templates", 10)
+                .get(AppointmentReminderGenerator.NOTIFICATION_TYPE, 1);
+
+        EmailNotification notification =
+                AppointmentReminderGenerator.notification(42, 7, "ada@clinic.test", data, template, null);
+
+        assertEquals("appointment_reminder-42", notification.getId());
+        assertEquals(Integer.valueOf(42), notification.getAppointmentId());
+        assertEquals("Reminder: your appointment on Monday, March 2, 2026 at 9:30 AM", notification.getSubject());
+        assertEquals("Dear Ada Lovelace,\n\nThis is a reminder of your appointment with Dr. Grace Hopper on "
+                        + "Monday, March 2, 2026 at 9:30 AM (30 minutes), at Downtown, 1 Main St.\n\n"
+                        + "If you cannot attend, please let us know by calling 555-0100.\n",
+                template.renderBody(new StringBuilder(), notification.getContent().getPersonalizedData()).toString());
+        assertEquals("Pending", notification.getEmailStatus());
+    }
+
+    @Test
+    void fullChunksAreFlushedAsTheyFillAndThePartialOneAtTheEnd() {
+        List<List<String>> inserts = new ArrayList<>();
+        List<List<Long>> flags = new ArrayList<>();
+        AppointmentReminderGenerator.Run run = new AppointmentReminderGenerator.Run(2, notifications -> {
+            inserts.add(notifications.stream().map(EmailNotification::getId).toList());
+            return notifications.size();
+        }, ids -> flags.add(List.copyOf(ids)));
+
+        run.add(1, notification(1));
+        assertEquals(0, inserts.size());
+        run.add(2, notification(2));
+        assertEquals(List.of(List.of("appointment_reminder-1", "appointment_reminder-2")), inserts);
+        assertEquals(List.of(List.of(1L, 2L)), flags);
+        run.add(3, notification(3));
+
+        assertEquals(3, run.finish());
+        assertEquals(List.of("appointment_reminder-3"), inserts.get(1));
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), flags);
+    }
+
+    @Test
+    void aResumedRunSkipsExistingRemindersButStillFlagsTheirAppointments() {
+        BulkOperationException duplicates = mock(BulkOperationException.class);
+        List<BulkWriteError> errors = List.of(writeError(0, 11000), writeError(1, 11000));
+        when(duplicates.getErrors()).thenReturn(errors);
+        BulkOperations bulk = bulk(duplicates);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        List<Object[]> updates = new ArrayList<>();
+        when(jdbc.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            updates.add(invocation.getRawArguments());
+            return 2;
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AppointmentReminderGenerator generator = generator(jdbc, bulk, registry);
+
+        AppointmentReminderGenerator.Run run = generator.run();
+        run.add(1, notification(1));
+        run.add(2, notification(2));
+        run.add(3, notification(3));
+
+        // The second chunk is inserted normally
+        assertEquals(1, run.finish());
+        assertEquals(2, updates.size());
+        assertEquals("update appointments set reminder_sent = true, updated_at = ? where id in (?, ?)", updates.get(0)[0]);
+        Object[] args = (Object[]) updates.get(0)[1];
+        assertEquals(List.of(1L, 2L), List.of(args[1], args[2]));
+        assertEquals("update appointments set reminder_sent = true, updated_at = ? where id in (?)", updates.get(1)[0]);
+        assertEquals(1.0, registry.counter("reminders.generated").count());
+        generator.shutdown();
+    }
+
+    @Test
+    void otherWriteErrorsFailTheChunkBeforeItIsFlagged() {
+        BulkOperationException invalid = mock(BulkOperationException.class);
+        List<BulkWriteError> errors = List.of(writeError(0, 11000), writeError(1, 121));
+        when(invalid.getErrors()).thenReturn(errors);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        AppointmentReminderGenerator generator = generator(jdbc, bulk(invalid), new SimpleMeterRegistry());
+
+        AppointmentReminderGenerator.Run run = generator.run();
+        run.add(1, notification(1));
+
+        assertSame(invalid, assertThrows(BulkOperationException.class, () -> run.add(2, notification(2))));
+        verify(jdbc, never()).update(anyString(), any(Object[].class));
+        generator.shutdown();
+    }
+
+    private static AppointmentReminderGenerator generator(JdbcTemplate jdbc, BulkOperations bulk,
+                                                          SimpleMeterRegistry registry) {
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailNotification.class)).thenReturn(bulk);
+        return new AppointmentReminderGenerator(jdbc, mongo, new EmailTemplates(registry, "email-templates", 10),
+                registry, 2, "18:00");
+    }
+
+    // Fails its first execute with the given exception, as a run resumed after the insert did
+    private static BulkOperations bulk(BulkOperationException firstFailure) {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(firstFailure).thenReturn(null);
+        return bulk;
+    }
+
+    private static BulkWriteError writeError(int index, int code) {
+        BulkWriteError error = mock(BulkWriteError.class);
+        when(error.getIndex()).thenReturn(index);
+        when(error.getCode()).thenReturn(code);
+        return error;
+    }
+
+    private static EmailNotification notification(long appointmentId) {
+        EmailNotification notification = new EmailNotification();
+        notification.setId(AppointmentReminderGenerator.NOTIFICATION_TYPE + "-" + appointmentId);
+        return notification;
+    }
+}
@@ -0,0 +1,197 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.AuditLog;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.collection.spi.PersistentBag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditChangeListenerTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<AuditLog> written = new CopyOnWriteArrayList<>();
+
+    @Test
+    void aTypicalUpdateStoresOnlyTheChangedColumn() throws Exception {
+        Patient patient = patient();
+        Map<String, Object> fullBefore = fullState(patient);
+
+        List<AuditLog> events = capture(listener -> {
+            listener.loaded(patient);
+            patient.setPhone("555-0199");
+            listener.updated(patient);
+        });
+
+        AuditLog event = events.get(0);
+        assertEquals("UPDATE", event.getAction());
+        assertEquals(Map.of("phone", "555-0100"), event.getBeforeState());
+        assertEquals(Map.of("phone", "555-0199"), event.getAfterState());
+
+        // What capturing the whole entity before and after would have stored instead
+        AuditLog full = new AuditLog(event.getEventType(), event.getPerformedBy(), event.getAction());
+        full.setTargetEntity(event.getTargetEntity());
+        full.setMetadata(event.getMetadata());
+        full.setBeforeState(fullBefore);
+        full.setAfterState(fullState(patient));
+        int diffBytes = objectMapper.writeValueAsBytes(event).length;
+        int fullBytes = objectMapper.writeValueAsBytes(full).length;
+        assertTrue(fullBytes >= 10 * diffBytes, "diff " + diffBytes + " bytes, full " + fullBytes + " bytes");
+    }
+
+    @Test
+    void secretsAreMaskedAndUnchangedSavesAreNotAudited() {
+        Patient patient = patient();
+
+        List<AuditLog> events = capture(listener -> {
+            listener.loaded(patient);
+            listener.updated(patient);
+            patient.setPassword("$2a$10$new-hash");
+            listener.updated(patient);
+        });
+
+        assertEquals(1, events.size());
+        assertEquals(Map.of("password", AuditFields.MASK), events.get(0).getBeforeState());
+        assertEquals(Map.of("password", AuditFields.MASK), events.get(0).getAfterState());
+    }
+
+    @Test
+    void creationRecordsTheColumnsThatWereSet() {
+        Patient patient = patient();
+
+        List<AuditLog> events = capture(listener -> listener.created(patient));
+
+        AuditLog event = events.get(0);
+        assertEquals("Patient Created", event.getEventType());
+        assertNull(event.getBeforeState());
+        assertEquals("Lovelace", event.getAfterState().get("lastName"));
+        assertEquals("FEMALE", event.getAfterState().get("gender"));
+        assertEquals("System", event.getPerformedBy().getUserType());
+    }
+
+    @Test
+    void eventsAreRecordedOnlyWhenTheirTransactionCommits() {
+        Patient committed = patient();
+        Patient rolledBack = patient();
+        rolledBack.setId(43L);
+
+        List<AuditLog> events = capture(listener -> {
+            inTransaction(() -> listener.created(committed), true);
+            inTransaction(() -> listener.created(rolledBack), false);
+        });
+
+        assertEquals(1, events.size());
+        assertEquals(Integer.valueOf(42), events.get(0).getTargetEntity().getEntityId());
+    }
+
+    @Test
+    void lazyCollectionsThatWereNeverLoadedAreLeftAlone() {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setFirstName("Grace");
+        doctor.setLastName("Hopper");
+        doctor.setPhone("555-0100");
+        // Reading an uninitialized collection outside a session would throw
+        doctor.setAvailableTimes(new PersistentBag<>());
+
+        List<AuditLog> events = capture(listener -> {
+            listener.loaded(doctor);
+            doctor.setPhone("555-0199");
+            listener.updated(doctor);
+            doctor.setAvailableTimes(List.of("09:00-10:00"));
+            listener.updated(doctor);
+        });
+
+        assertEquals(2, events.size());
+        assertEquals(Map.of("phone", "555-0199"), events.get(0).getAfterState());
+        // Replaced before it was ever loaded, so its earlier value is unknown
+        assertEquals(Map.of("availableTimes", List.of("09:00-10:00")), events.get(1).getAfterState());
+        assertFalse(events.get(1).getBeforeState().containsKey("availableTimes"));
+    }
+
+    private static void inTransaction(Runnable work, boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (commit) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<AuditLog> capture(ListenerScript script) {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.insert(anyList())).thenAnswer(invocation -> {
+            List<AuditLog> documents = invocation.getArgument(0);
+            written.addAll(documents);
+            return bulk;
+        });
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class)).thenReturn(bulk);
+        AuditLogWriter writer = new AuditLogWriter(mongo, objectMapper, new SimpleMeterRegistry(),
+                64, 1, 0, "block", 1_000, spillDirectory.toString(), 1 << 16, false, 60_000);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("auditLogWriter", writer));
+        try {
+            script.run(new AuditChangeListener(beans.getBeanProvider(AuditLogWriter.class)));
+        } finally {
+            writer.shutdown();
+        }
+        return written;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fullState(Patient patient) {
+        return objectMapper.convertValue(patient, Map.class);
+    }
+
+    private static Patient patient() {
+        Patient patient = new Patient();
+        patient.setId(42L);
+        patient.setFirstName("Ada");
+        patient.setLastName("Lovelace");
+        patient.setEmail("ada@clinic.test");
+        patient.setPassword("$2a$10$old-hash");
+        patient.setPhone("555-0100");
+        patient.setDateOfBirth(LocalDate.of(1980, 5, 17));
+        patient.setGender(Patient.Gender.FEMALE);
+        patient.setAddress("12 Harbour Road, Apartment 4B, Portsmouth");
+        patient.setMedicalHistory("Type 2 diabetes diagnosed 2015, managed with metformin. ".repeat(40));
+        patient.setAllergies("Penicillin (rash), shellfish (anaphylaxis), latex (contact dermatitis)");
+        patient.setInsuranceProvider("Harbour Mutual");
+        patient.setInsurancePolicyNumber("HM-2291-7734");
+        return patient;
+    }
+
+    private interface ListenerScript {
+        void run(AuditChangeListener listener);
+    }
+}
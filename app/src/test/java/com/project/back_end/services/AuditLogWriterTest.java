@@ -0,0 +1,194 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.project.back_end.models.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditLogWriterTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void insertsFullBatchesAndFlushesTheRestOnShutdown() {
+        AuditLogWriter writer = writer(mongo(null), 100, "block");
+
+        for (int i = 0; i < 250; i++) {
+            assertTrue(writer.record(event("LOW")));
+        }
+        writer.shutdown();
+
+        assertEquals(250, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() <= 3, "Expected at most three inserts, got " + batchSizes);
+    }
+
+    @Test
+    void failedInsertsAreSpilledToTheLocalLog() {
+        AuditLogWriter writer = writer(mongo(new IllegalStateException("mongo down")), 10, "block");
+
+        for (int i = 0; i < 25; i++) {
+            writer.record(event("LOW"));
+        }
+        writer.shutdown();
+
+        try (AuditSpillLog spillLog = new AuditSpillLog(objectMapper, spillDirectory, 1 << 20, false)) {
+            assertEquals(25, spillLog.read(100).getEvents().size());
+        }
+    }
+
+    @Test
+    void onlyTheDocumentsMongoRejectedAreSpilled() {
+        List<AuditLog> recorded = new ArrayList<>();
+        BulkWriteError invalid = writeError(1, 121);
+        BulkWriteError duplicate = writeError(3, 11000);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(invalid, duplicate));
+        AuditLogWriter writer = writer(mongo(failure), 5, "block");
+        List<AuditLog> handed = new CopyOnWriteArrayList<>();
+        writer.onWritten(handed::addAll);
+
+        for (int i = 0; i < 5; i++) {
+            AuditLog event = event("LOW");
+            recorded.add(event);
+            writer.record(event);
+        }
+        writer.shutdown();
+
+        assertEquals(List.of(recorded.get(0), recorded.get(2), recorded.get(4)), handed);
+        try (AuditSpillLog spillLog = new AuditSpillLog(objectMapper, spillDirectory, 1 << 20, false)) {
+            List<AuditLog> spilled = spillLog.read(100).getEvents();
+            assertEquals(1, spilled.size());
+            assertEquals(recorded.get(1).getId(), spilled.get(0).getId());
+        }
+    }
+
+    @Test
+    void dropLowSeverityKeepsHighRiskEventsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inserting = new CountDownLatch(1);
+        MongoOperations stalled = mongo(null, () -> {
+            inserting.countDown();
+            release.await();
+        });
+        AuditLogWriter writer = new AuditLogWriter(stalled, objectMapper, new SimpleMeterRegistry(),
+                2, 1, 0, "drop-low-severity", 5_000, spillDirectory.toString(), 1 << 20, false, 60_000);
+
+        writer.record(event("LOW"));
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        // The writer thread is stuck in the insert; fill the buffer behind it
+        assertTrue(writer.record(event("LOW")));
+        assertTrue(writer.record(event("LOW")));
+
+        assertFalse(writer.record(event("LOW")));
+        Thread unblock = new Thread(() -> {
+            sleepQuietly(100);
+            release.countDown();
+        });
+        unblock.start();
+        assertTrue(writer.record(event("CRITICAL")));
+        writer.shutdown();
+
+        assertEquals(4, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void storedEventsAreHandedOnAndAFailingHandlerDoesNotSpillThem() {
+        AuditLogWriter writer = writer(mongo(null), 10, "block");
+        List<AuditLog> handed = new CopyOnWriteArrayList<>();
+        writer.onWritten(events -> {
+            handed.addAll(events);
+            throw new IllegalStateException("rollups unavailable");
+        });
+
+        for (int i = 0; i < 25; i++) {
+            writer.record(event("LOW"));
+        }
+        writer.shutdown();
+
+        assertEquals(25, handed.size());
+        try (AuditSpillLog spillLog = new AuditSpillLog(objectMapper, spillDirectory, 1 << 20, false)) {
+            assertFalse(spillLog.hasPending());
+        }
+    }
+
+    private AuditLogWriter writer(MongoOperations mongo, int batchSize, String backpressure) {
+        return new AuditLogWriter(mongo, objectMapper, new SimpleMeterRegistry(),
+                1024, batchSize, 60_000, backpressure, 1_000, spillDirectory.toString(), 1 << 20, false, 60_000);
+    }
+
+    private MongoOperations mongo(RuntimeException failure) {
+        return mongo(failure, () -> { });
+    }
+
+    // Only the writer thread uses the bulk, so one pending list is enough.
+    private MongoOperations mongo(RuntimeException failure, Stall stall) {
+        List<Object> pending = new ArrayList<>();
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.insert(anyList())).thenAnswer(invocation -> {
+            pending.addAll(invocation.getArgument(0));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(invocation -> {
+            int size = pending.size();
+            pending.clear();
+            stall.await();
+            if (failure != null) {
+                throw failure;
+            }
+            batchSizes.add(size);
+            return null;
+        });
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class)).thenReturn(bulk);
+        return mongo;
+    }
+
+    private static BulkWriteError writeError(int index, int code) {
+        BulkWriteError error = mock(BulkWriteError.class);
+        when(error.getIndex()).thenReturn(index);
+        when(error.getCode()).thenReturn(code);
+        return error;
+    }
+
+    private static AuditLog event(String severity) {
+        AuditLog event = new AuditLog("PATIENT_RECORD", new AuditLog.PerformedBy(1, "Doctor", "dr@clinic.test", null), "READ");
+        event.setMetadata(new AuditLog.AuditMetadata());
+        event.getMetadata().setSeverity(severity);
+        return event;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Stall {
+        void await() throws InterruptedException;
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.AuditLog;
+import com.project.back_end.models.AuditRollup;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditQueryServiceTest {
+
+    @Test
+    void wholeDaysComeFromDailyRollupsAndTheEndsFromHourlyOnes() {
+        List<AuditQueryService.Span> spans = AuditQueryService.plan(
+                LocalDateTime.of(2026, 3, 1, 21, 40), LocalDateTime.of(2026, 3, 31, 2, 5));
+
+        assertEquals(List.of(
+                "HOURLY 2026-03-01T21:00..2026-03-02T00:00",
+                "DAILY 2026-03-02T00:00..2026-03-31T00:00",
+                "HOURLY 2026-03-31T00:00..2026-03-31T03:00"), names(spans));
+    }
+
+    @Test
+    void rangesWithinADayOrOnDayBoundariesUseOneKindOfRollup() {
+        assertEquals(List.of("HOURLY 2026-03-01T09:00..2026-03-01T17:00"), names(AuditQueryService.plan(
+                LocalDateTime.of(2026, 3, 1, 9, 0), LocalDateTime.of(2026, 3, 1, 17, 0))));
+        assertEquals(List.of("DAILY 2026-03-01T00:00..2026-04-01T00:00"), names(AuditQueryService.plan(
+                LocalDateTime.of(2026, 3, 1, 0, 0), LocalDateTime.of(2026, 4, 1, 0, 0))));
+        assertTrue(AuditQueryService.plan(LocalDateTime.of(2026, 3, 1, 9, 0), LocalDateTime.of(2026, 3, 1, 9, 0)).isEmpty());
+    }
+
+    @Test
+    void aBatchIsTalliedIntoOneCounterPerBucketAndKey() {
+        Map<String, AuditRollup> tally = new LinkedHashMap<>();
+        AuditRollups.tally(List.of(
+                event("Patient Updated", "LOW", LocalDateTime.of(2026, 3, 1, 9, 5)),
+                event("Patient Updated", "LOW", LocalDateTime.of(2026, 3, 1, 9, 55)),
+                event("Patient Updated", "LOW", LocalDateTime.of(2026, 3, 1, 10, 0)),
+                event("Patient Deleted", "HIGH", LocalDateTime.of(2026, 3, 1, 9, 30))), AuditRollups.Granularity.HOURLY, tally);
+
+        Map<String, Long> counts = tally.values().stream().collect(Collectors.toMap(
+                rollup -> rollup.getBucket().getHour() + " " + rollup.getEventType() + " " + rollup.getSeverity(),
+                AuditRollup::getCount));
+        assertEquals(Map.of(
+                "9 Patient Updated LOW", 2L,
+                "10 Patient Updated LOW", 1L,
+                "9 Patient Deleted HIGH", 1L), counts);
+    }
+
+    private static List<String> names(List<AuditQueryService.Span> spans) {
+        return spans.stream().map(AuditQueryService.Span::toString).collect(Collectors.toList());
+    }
+
+    private static AuditLog event(String eventType, String severity, LocalDateTime timestamp) {
+        AuditLog event = new AuditLog(eventType, new AuditLog.PerformedBy(null, "System", "system", null), "UPDATE");
+        event.setTimestamp(timestamp);
+        event.setMetadata(new AuditLog.AuditMetadata());
+        event.getMetadata().setCategory("data_change");
+        event.getMetadata().setSeverity(severity);
+        return event;
+    }
+}
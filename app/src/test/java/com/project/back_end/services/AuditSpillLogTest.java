@@ -0,0 +1,235 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.AuditLog;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditSpillLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void replaysInOrderAcrossSegmentsAndDeletesFinishedOnes() {
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, SEGMENT_BYTES, false)) {
+            for (int seq = 0; seq < 200; seq++) {
+                log.append(List.of(event(seq)));
+            }
+            assertTrue(segmentCount() > 5);
+
+            List<Integer> seen = new ArrayList<>();
+            while (log.hasPending()) {
+                AuditSpillLog.Batch batch = log.read(37);
+                batch.getEvents().forEach(event -> seen.add(seq(event)));
+                log.commit(batch);
+            }
+
+            assertEquals(sequence(200), seen);
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    void reopeningResumesFromTheCheckpoint() {
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, SEGMENT_BYTES, true)) {
+            for (int seq = 0; seq < 50; seq++) {
+                log.append(List.of(event(seq)));
+            }
+            log.commit(log.read(20));
+        }
+
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, SEGMENT_BYTES, true)) {
+            List<AuditLog> rest = log.read(100).getEvents();
+            assertEquals(30, rest.size());
+            assertEquals(20, seq(rest.get(0)));
+        }
+    }
+
+    @Test
+    void aTornAppendIsCutOffOnReopen() throws Exception {
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, 1 << 16, false)) {
+            for (int seq = 0; seq < 10; seq++) {
+                log.append(List.of(event(seq)));
+            }
+        }
+        // What a kill between writing the length and the rest of the record would leave
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(20).putInt(400).putInt(12345).put("{\"_id\":\"x".getBytes(StandardCharsets.US_ASCII));
+            torn.flip();
+            channel.write(torn, endOfRecords(channel));
+        }
+
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, 1 << 16, false)) {
+            log.append(List.of(event(10)));
+            List<Integer> seen = new ArrayList<>();
+            log.read(100).getEvents().forEach(event -> seen.add(seq(event)));
+            assertEquals(sequence(11), seen);
+        }
+    }
+
+    @Test
+    void aKilledWriterLosesNothingAndReplayDuplicatesNothing() throws Exception {
+        Process writer = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), WriterProcess.class.getName(), directory.toString())
+                .redirectErrorStream(true)
+                .start();
+        int acknowledged = -1;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while (acknowledged < 3000 && (line = out.readLine()) != null) {
+                acknowledged = Integer.parseInt(line.trim());
+            }
+            writer.destroyForcibly();
+        }
+        assertTrue(writer.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(3000, acknowledged);
+
+        FakeAuditCollection collection = new FakeAuditCollection();
+        try (AuditSpillLog log = new AuditSpillLog(objectMapper, directory, SEGMENT_BYTES * 16, false)) {
+            AuditSpillReplayer replayer = new AuditSpillReplayer(collection.operations(), log);
+            // The first bulk write reaches Mongo but its acknowledgement is lost
+            collection.failAfterWriting = 1;
+            while (replayer.hasPending()) {
+                try {
+                    replayer.replayBatch(500);
+                } catch (IllegalStateException e) {
+                    assertEquals("connection reset", e.getMessage());
+                }
+            }
+            assertFalse(replayer.hasPending());
+        }
+
+        List<Integer> replayed = new ArrayList<>();
+        collection.documents.values().forEach(event -> replayed.add(seq(event)));
+        assertTrue(replayed.size() > acknowledged);
+        assertEquals(sequence(replayed.size()), replayed);
+        assertTrue(collection.writes > replayed.size());
+    }
+
+    // Appends numbered events one at a time and prints each number once its append returned.
+    public static final class WriterProcess {
+
+        public static void main(String[] args) {
+            ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+            AuditSpillLog log = new AuditSpillLog(objectMapper, Paths.get(args[0]), SEGMENT_BYTES * 16, false);
+            for (int seq = 0; ; seq++) {
+                log.append(List.of(event(seq)));
+                System.out.println(seq);
+                System.out.flush();
+            }
+        }
+    }
+
+    private static final class FakeAuditCollection {
+
+        private final Map<String, AuditLog> documents = new LinkedHashMap<>();
+        private int writes;
+        private int failAfterWriting;
+
+        // The replayer runs one bulk at a time, so one pending list is enough.
+        private MongoOperations operations() {
+            List<AuditLog> pending = new ArrayList<>();
+            BulkOperations bulk = mock(BulkOperations.class);
+            when(bulk.replaceOne(any(Query.class), any(), any(FindAndReplaceOptions.class))).thenAnswer(invocation -> {
+                pending.add(invocation.getArgument(1));
+                return bulk;
+            });
+            when(bulk.execute()).thenAnswer(invocation -> {
+                for (AuditLog event : pending) {
+                    documents.put(event.getId(), event);
+                    writes++;
+                }
+                pending.clear();
+                if (failAfterWriting > 0) {
+                    failAfterWriting--;
+                    throw new IllegalStateException("connection reset");
+                }
+                return null;
+            });
+            MongoOperations operations = mock(MongoOperations.class);
+            when(operations.bulkOps(BulkOperations.BulkMode.ORDERED, AuditLog.class)).thenReturn(bulk);
+            return operations;
+        }
+    }
+
+    private static AuditLog event(int seq) {
+        AuditLog event = new AuditLog("PATIENT_RECORD", new AuditLog.PerformedBy(1, "Doctor", "dr@clinic.test", "10.0.0.1"), "READ");
+        event.setId(new ObjectId().toHexString());
+        event.setDetails(Map.of("seq", seq));
+        return event;
+    }
+
+    private static int seq(AuditLog event) {
+        return ((Number) event.getDetails().get("seq")).intValue();
+    }
+
+    private static List<Integer> sequence(int count) {
+        List<Integer> sequence = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sequence.add(i);
+        }
+        return sequence;
+    }
+
+    private long segmentCount() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".wal")).count();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path lastSegment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".wal")).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+    }
+
+    private static long endOfRecords(FileChannel channel) throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        long offset = 0;
+        while (true) {
+            header.clear();
+            channel.read(header, offset);
+            int length = header.flip().getInt();
+            if (length == 0) {
+                return offset;
+            }
+            offset += 8 + length;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many patients race for the slots of one popular doctor. The "database" is a map whose
+// putIfAbsent plays the role of the (doctor_id, appointment_date, appointment_time) constraint,
+// with a short sleep standing in for the round trip between the availability check and the insert.
+class BookingLockTableTest {
+
+    private static final int THREADS = 16;
+    private static final int SLOTS = 64;
+    private static final Long DOCTOR_ID = 7L;
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    @Test
+    void stripedLockBooksEverySlotOnceWithoutTheConstraintPathsRollbacks() throws Exception {
+        BookingLockTable locks = new BookingLockTable(64, 10_000);
+        ConcurrentMap<Integer, Integer> lockedTable = new ConcurrentHashMap<>();
+        AtomicInteger[] insertsPerSlot = newCounters();
+        AtomicInteger lockedRollbacks = new AtomicInteger();
+
+        race(patient -> locks.withLock(DOCTOR_ID, DATE, () -> book(lockedTable, patient, lockedRollbacks, insertsPerSlot)));
+
+        ConcurrentMap<Integer, Integer> constrainedTable = new ConcurrentHashMap<>();
+        AtomicInteger constrainedRollbacks = new AtomicInteger();
+
+        race(patient -> book(constrainedTable, patient, constrainedRollbacks, newCounters()));
+
+        for (AtomicInteger inserts : insertsPerSlot) {
+            assertEquals(1, inserts.get(), "slot booked more than once");
+        }
+        assertEquals(SLOTS, lockedTable.size());
+        assertEquals(SLOTS, constrainedTable.size());
+        assertEquals(0, lockedRollbacks.get(), "the lock should leave no insert to hit the constraint");
+        assertTrue(constrainedRollbacks.get() > 0, "racing check-then-insert should hit the constraint");
+        assertTrue(locks.stats().stream().anyMatch(s -> s.getContended() > 0));
+    }
+
+    @Test
+    void unrelatedDoctorsDoNotShareStripes() {
+        BookingLockTable locks = new BookingLockTable(256, 1_000);
+        long distinct = LongStream.rangeClosed(1, 64)
+                .mapToObj(id -> locks.indexFor(id, DATE))
+                .distinct()
+                .count();
+        assertTrue(distinct > 32, "doctor ids should spread across stripes");
+    }
+
+    // One booking attempt against the "database": check for a free slot, then insert it, with
+    // putIfAbsent standing in for the unique constraint.
+    private static boolean book(ConcurrentMap<Integer, Integer> table, int patient, AtomicInteger rollbacks,
+                                AtomicInteger[] insertsPerSlot) {
+        Integer slot = firstFreeSlot(table);
+        if (slot == null) {
+            return false;
+        }
+        pause();
+        if (table.putIfAbsent(slot, patient) != null) {
+            // DataIntegrityViolationException: the transaction rolls back and the client retries
+            rollbacks.incrementAndGet();
+            throw new IllegalStateException("duplicate slot");
+        }
+        insertsPerSlot[slot].incrementAndGet();
+        return true;
+    }
+
+    private void race(BookingAttempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int patient = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (true) {
+                    try {
+                        if (!attempt.book(patient)) {
+                            return null;
+                        }
+                    } catch (IllegalStateException retry) {
+                        // retried by the next loop iteration
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private static Integer firstFreeSlot(ConcurrentMap<Integer, Integer> table) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (!table.containsKey(slot)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private static AtomicInteger[] newCounters() {
+        AtomicInteger[] counters = new AtomicInteger[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            counters[i] = new AtomicInteger();
+        }
+        return counters;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface BookingAttempt {
+        boolean book(int patient);
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledTemplateTest {
+
+    @Test
+    void fillsPlaceholdersAndDropsMissingOnes() {
+        CompiledTemplate template = CompiledTemplate.compile("Dear {{ name }}, see you {{when}}.{{missing}}");
+
+        assertEquals(List.of("name", "when", "missing"), template.getPlaceholders());
+        assertEquals("Dear Ada, see you at 9:30 AM.", template.render(Map.of("name", "Ada", "when", "at 9:30 AM")));
+        assertEquals("Dear , see you .".length(), template.getLiteralLength());
+    }
+
+    @Test
+    void unclosedPlaceholdersStayLiteral() {
+        CompiledTemplate template = CompiledTemplate.compile("{{a}}{{b}} and {{ unclosed");
+
+        assertEquals("12 and {{ unclosed", template.render(Map.of("a", 1, "b", 2)));
+        assertEquals("plain", CompiledTemplate.compile("plain").render(Map.of()));
+    }
+
+    @Test
+    void appendsToTheCallersBuffer() {
+        CompiledTemplate template = CompiledTemplate.compile("[{{x}}]");
+        StringBuilder out = new StringBuilder("a");
+
+        template.render(out, Map.of("x", "b"));
+        template.render(out, Map.of());
+
+        assertEquals("a[b][]", out.toString());
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoctorSearchIndexTest {
+
+    @Test
+    void matchesNameAndCitySubstringsLikeTheRepositoryQueries() {
+        DoctorSearchIndex index = index();
+
+        assertEquals(List.of(1L, 3L), index.search("ann", null, null, null));
+        assertEquals(List.of(1L), index.search("anna kow", null, null, null));
+        assertEquals(List.of(2L), index.search("ZIELINSKI", null, null, null));
+        assertEquals(List.of(1L, 2L, 3L, 4L), index.search(null, null, null, null));
+        // Terms shorter than a trigram are checked by the verification pass alone
+        assertEquals(List.of(2L, 4L), index.search("mo", null, null, null));
+        assertEquals(List.of(3L), index.search(null, null, "paulo", null));
+        // Name and city are separate fields, so a term spanning both finds nothing
+        assertTrue(index.search("a kowalska boston", null, null, null).isEmpty());
+        assertTrue(index.search("xyz", null, null, null).isEmpty());
+    }
+
+    @Test
+    void foldsCaseAndAccents() {
+        DoctorSearchIndex index = index();
+
+        assertEquals(List.of(2L), index.search("jose", null, null, null));
+        assertEquals(List.of(2L), index.search("JOS\u00c9", null, null, null));
+        assertEquals(List.of(3L), index.search(null, null, "S\u00c3O", null));
+    }
+
+    @Test
+    void filtersSpecialtyExactlyAndTimeByHalfOfTheDay() {
+        DoctorSearchIndex index = index();
+
+        assertEquals(List.of(1L, 4L), index.search(null, "cardiology", null, null));
+        assertTrue(index.search(null, "cardio", null, null).isEmpty());
+        assertEquals(List.of(1L, 3L), index.search(null, null, null, "am"));
+        assertEquals(List.of(2L, 3L, 4L), index.search(null, null, null, DoctorSearchIndex.PM));
+        assertEquals(List.of(4L), index.search("mor", "Cardiology", null, DoctorSearchIndex.PM));
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceEarlierEntries() {
+        DoctorSearchIndex index = index();
+
+        index.put(1L, "Anna", "Schmidt", "Neurology", "Berlin", List.of("15:00-15:30"));
+        assertTrue(index.search("kowalska", null, null, null).isEmpty());
+        assertEquals(List.of(1L), index.search("schmidt", "neurology", "berlin", DoctorSearchIndex.PM));
+        assertEquals(List.of(4L), index.search(null, "cardiology", null, null));
+
+        index.remove(3L);
+        index.remove(99L);
+        assertEquals(List.of(2L, 4L, 1L), index.search(null, null, null, null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void compactsTombstonesWithoutLosingLiveDoctors() {
+        DoctorSearchIndex index = new DoctorSearchIndex();
+        for (int round = 0; round < 5; round++) {
+            for (long id = 0; id < 500; id++) {
+                index.put(id, "Doctor" + round, "Number" + id, "General", "Lyon",
+                        List.of(id % 2 == 0 ? "09:00-09:30" : "13:00-13:30"));
+            }
+        }
+
+        assertEquals(500, index.size());
+        assertEquals(500, index.search("doctor4", null, "lyon", null).size());
+        assertTrue(index.search("doctor3", null, null, null).isEmpty());
+        assertEquals(250, index.search(null, "general", null, DoctorSearchIndex.AM).size());
+        assertEquals(List.of(123L), index.search("number123", null, null, null));
+    }
+
+    private static DoctorSearchIndex index() {
+        DoctorSearchIndex index = new DoctorSearchIndex();
+        index.put(1L, "Anna", "Kowalska", "Cardiology", "Boston", List.of("09:00-09:30"));
+        index.put(2L, "Jos\u00e9", "Moreno-Zielinski", "Dermatology", "Austin", List.of("14:00-14:30"));
+        index.put(3L, "Joanna", "Baptiste", "Pediatrics", "S\u00e3o Paulo", List.of("08:00-08:30", "16:00-16:30"));
+        index.put(4L, "Omar", "Moreau", "Cardiology", "Denver", List.of("12:00-12:30"));
+        return index;
+    }
+}
@@ -0,0 +1,80 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DrugInteractionIndexTest {
+
+    private static final String INTERACTIONS = """
+            # medication_a,medication_b,severity,description
+            warfarin,aspirin,major,Increased risk of bleeding
+            warfarin,nsaid,major,Increased risk of bleeding, via NSAID
+            ssri,maoi,contraindicated,Risk of serotonin syndrome
+            """;
+
+    private static final String CLASSES = """
+            ibuprofen,nsaid
+            aspirin,nsaid
+            sertraline,ssri
+            phenelzine,maoi
+            amoxicillin,penicillin
+            penicillin v,penicillin
+            iron,supplement
+            """;
+
+    @Test
+    void findsPairsDirectlyAndThroughClasses() throws Exception {
+        DrugInteractionIndex index = index();
+
+        List<String> found = index.check(List.of("Warfarin 5 mg", "Aspirin 81mg", "Ibuprofen", "Sertraline", "Placebo",
+                "PHENELZINE sulfate"), null);
+
+        assertEquals(List.of(
+                "Warfarin 5 mg + Aspirin 81mg: major - Increased risk of bleeding",
+                "Warfarin 5 mg + Ibuprofen: major - Increased risk of bleeding, via NSAID",
+                "Sertraline + PHENELZINE sulfate: contraindicated - Risk of serotonin syndrome"), found);
+        assertEquals(3, index.getInteractionCount());
+    }
+
+    @Test
+    void matchesAllergiesAsWholeWordsInFreeText() throws Exception {
+        DrugInteractionIndex index = index();
+
+        List<String> found = index.check(List.of("Amoxicillin 500 mg", "Penicillin V potassium", "Iron", "Ibuprofen"),
+                "P\u00e9nicilline? no - PENICILLIN (rash); reacts to environment, NSAIDs");
+
+        assertEquals(List.of(
+                "Amoxicillin 500 mg: allergy - patient is allergic to penicillin",
+                "Penicillin V potassium: allergy - patient is allergic to penicillin",
+                "Ibuprofen: allergy - patient is allergic to nsaid"), found);
+        assertTrue(index.check(List.of("Ibuprofen"), "nsaidss, ibuprofenum").isEmpty());
+    }
+
+    @Test
+    void engineAnnotatesPrescriptionsFromTheBundledDataset() {
+        DrugInteractionEngine engine = new DrugInteractionEngine(new SimpleMeterRegistry(), "drug-interactions");
+        Prescription prescription = new Prescription();
+        for (String name : List.of("Simvastatin 40 mg", "Clarithromycin 500 mg", "Amoxicillin")) {
+            Prescription.Medication medication = new Prescription.Medication();
+            medication.setName(name);
+            prescription.getMedications().add(medication);
+        }
+
+        engine.annotate(prescription, "Penicillin");
+
+        assertEquals(List.of(
+                "Simvastatin 40 mg + Clarithromycin 500 mg: contraindicated - Risk of myopathy and rhabdomyolysis",
+                "Amoxicillin: allergy - patient is allergic to penicillin"), prescription.getInteractions());
+    }
+
+    private static DrugInteractionIndex index() throws Exception {
+        return DrugInteractionIndex.load(new StringReader(INTERACTIONS), new StringReader(CLASSES));
+    }
+}
@@ -0,0 +1,159 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailDispatchQueueTest {
+
+    private static final long BACKOFF_MILLIS = 60_000;
+
+    private final BlockingQueue<EmailNotification> completed = new LinkedBlockingQueue<>();
+
+    @Test
+    void theMostUrgentQueuedNotificationGoesNext() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        EmailDispatchQueue queue = queue(1, notification -> {
+            sending.countDown();
+            release.await();
+            sent.add(notification.getSubject());
+        });
+
+        queue.offer(notification("first", "Low"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        queue.offer(notification("low", "Low"));
+        queue.offer(notification("normal", null));
+        queue.offer(notification("high", "High"));
+        queue.offer(notification("urgent", "Urgent"));
+        release.countDown();
+        for (int i = 0; i < 5; i++) {
+            completed.poll(5, TimeUnit.SECONDS);
+        }
+        queue.shutdown();
+
+        assertEquals(List.of("first", "urgent", "high", "normal", "low"), sent);
+    }
+
+    @Test
+    void temporaryFailuresAreRescheduledUntilTheRetriesRunOut() throws Exception {
+        EmailDispatchQueue queue = queue(2, notification -> {
+            throw new EmailTransport.DeliveryException("SMTP 451 Try again later", false);
+        });
+        EmailNotification notification = notification("reminder", "Normal");
+
+        LocalDateTime before = LocalDateTime.now();
+        queue.offer(notification);
+        completed.poll(5, TimeUnit.SECONDS);
+        assertEquals("Pending", notification.getEmailStatus());
+        assertEquals(Integer.valueOf(1), notification.getRetryCount());
+        assertEquals("SMTP 451 Try again later", notification.getErrorMessage());
+        assertTrue(notification.getScheduledFor().isAfter(before.plusSeconds(29)), notification.getScheduledFor().toString());
+
+        // As EmailDispatcher would claim it again once it is due
+        queue.offer(notification);
+        completed.poll(5, TimeUnit.SECONDS);
+        queue.offer(notification);
+        completed.poll(5, TimeUnit.SECONDS);
+        queue.shutdown();
+
+        assertEquals("Failed", notification.getEmailStatus());
+        assertEquals(Integer.valueOf(3), notification.getRetryCount());
+    }
+
+    @Test
+    void permanentFailuresAreNotRetried() throws Exception {
+        EmailDispatchQueue queue = queue(2, notification -> {
+            throw new EmailTransport.DeliveryException("SMTP 550 No such user", true);
+        });
+        EmailNotification notification = notification("reminder", "Urgent");
+
+        queue.offer(notification);
+        completed.poll(5, TimeUnit.SECONDS);
+        queue.shutdown();
+
+        assertEquals("Failed", notification.getEmailStatus());
+        assertEquals(Integer.valueOf(1), notification.getRetryCount());
+    }
+
+    @Test
+    void theBackoffDoublesUpToItsCap() {
+        EmailDispatchQueue queue = queue(1, notification -> { });
+        try {
+            for (int failures = 1; failures <= 8; failures++) {
+                long ceiling = Math.min(BACKOFF_MILLIS << (failures - 1), 4 * BACKOFF_MILLIS);
+                long delay = queue.backoff(failures);
+                assertTrue(delay >= ceiling / 2 && delay <= ceiling, failures + " failures: " + delay);
+            }
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownHandsBackWhatWasNotSent() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailDispatchQueue queue = queue(1, notification -> {
+            sending.countDown();
+            release.await();
+        });
+        for (int i = 0; i < 5; i++) {
+            queue.offer(notification("n" + i, "Normal"));
+        }
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        Thread unblock = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+                // Release anyway
+            }
+            release.countDown();
+        });
+        unblock.start();
+        List<EmailNotification> unsent = queue.shutdown();
+
+        assertEquals(4, unsent.size());
+        assertEquals(1, completed.size());
+        assertNull(completed.peek().getErrorMessage());
+    }
+
+    private EmailDispatchQueue queue(int concurrency, Send send) {
+        EmailTransport transport = notification -> {
+            try {
+                send.send(notification);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        return new EmailDispatchQueue(transport, new SimpleMeterRegistry(), concurrency, 100,
+                BACKOFF_MILLIS, 4 * BACKOFF_MILLIS, completed::add, () -> { });
+    }
+
+    private static EmailNotification notification(String subject, String priority) {
+        EmailNotification notification = new EmailNotification();
+        notification.setSubject(subject);
+        notification.setRecipientEmail(subject + "@clinic.test");
+        notification.setMetadata(new EmailNotification.EmailMetadata());
+        notification.getMetadata().setPriority(priority);
+        return notification;
+    }
+
+    private interface Send {
+        void send(EmailNotification notification) throws EmailTransport.DeliveryException, InterruptedException;
+    }
+}
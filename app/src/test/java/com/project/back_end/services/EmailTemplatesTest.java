@@ -0,0 +1,36 @@
+package com.project.back_end.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmailTemplatesTest {
+
+    private final EmailTemplates templates = new EmailTemplates(new SimpleMeterRegistry(), "email-templates", 10);
+
+    @Test
+    void compilesEachVersionOnce() {
+        EmailTemplates.Template template = templates.get("appointment_reminder", null);
+
+        assertSame(template, templates.get("appointment_reminder", 1));
+        assertNull(templates.get("appointment_reminder", 99));
+        assertNull(templates.get("no_such_template", 1));
+        assertNull(templates.get("../application", 1));
+    }
+
+    @Test
+    void splitsTheSubjectLineFromTheBody() {
+        EmailTemplates.Template template = EmailTemplates.parse("Subject: Hello {{name}}\r\n\r\nHi {{name}},\r\nbye\r\n");
+        StringBuilder out = new StringBuilder();
+
+        assertEquals("Hello Ada", template.renderSubject(Map.of("name", "Ada")));
+        assertEquals("Hi Ada,\nbye\n", template.renderBody(out, Map.of("name", "Ada")).toString());
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplates.parse("Hello {{name}}"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.back_end.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpirySchedulerTest {
+
+    // Hour-long ticks keep the background ticker out of the way; the tests drive tick directly
+    private static final long TICK = 3_600_000;
+
+    private final long start = System.currentTimeMillis();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Failed batches are retried on the next tick
+    private final ExpiryScheduler scheduler = new ExpiryScheduler(meterRegistry, TICK, 1);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void deliversDueIdsInOneBatchPerKind() {
+        List<List<String>> sessions = new ArrayList<>();
+        List<List<String>> locks = new ArrayList<>();
+        scheduler.onExpiry(ExpiryScheduler.Kind.SESSION, sessions::add);
+        scheduler.onExpiry(ExpiryScheduler.Kind.ACCOUNT_LOCK, locks::add);
+
+        scheduler.schedule(ExpiryScheduler.Kind.SESSION, "a", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.SESSION, "b", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.ACCOUNT_LOCK, "7", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.SESSION, "later", start + 5 * TICK);
+
+        advanceInto(1);
+
+        assertEquals(1, sessions.size());
+        assertEquals(List.of("a", "b"), sessions.get(0).stream().sorted().toList());
+        assertEquals(List.of(List.of("7")), locks);
+        assertTrue(scheduler.isPending(ExpiryScheduler.Kind.SESSION, "later"));
+        assertFalse(scheduler.isPending(ExpiryScheduler.Kind.SESSION, "a"));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    void reschedulingAndCancellingAreByKindAndId() {
+        List<String> fired = new ArrayList<>();
+        scheduler.onExpiry(ExpiryScheduler.Kind.PASSWORD_RESET, fired::addAll);
+
+        scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "1", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "1", start + 3 * TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "2", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.SESSION, "2", start + TICK);
+        assertTrue(scheduler.cancel(ExpiryScheduler.Kind.PASSWORD_RESET, "2"));
+        assertFalse(scheduler.cancel(ExpiryScheduler.Kind.PASSWORD_RESET, "2"));
+
+        advanceInto(2);
+        assertEquals(List.of(), fired);
+
+        advanceInto(3);
+        assertEquals(List.of("1"), fired);
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void aFailingHandlerDoesNotStopTheOthers() {
+        List<String> fired = new ArrayList<>();
+        scheduler.onExpiry(ExpiryScheduler.Kind.SESSION, ids -> {
+            throw new IllegalStateException("database down");
+        });
+        scheduler.onExpiry(ExpiryScheduler.Kind.ACCOUNT_LOCK, fired::addAll);
+        scheduler.schedule(ExpiryScheduler.Kind.SESSION, "s", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.ACCOUNT_LOCK, "9", start + TICK);
+
+        advanceInto(1);
+
+        assertEquals(List.of("9"), fired);
+        assertThrows(IllegalStateException.class, () -> scheduler.onExpiry(ExpiryScheduler.Kind.SESSION, ids -> { }));
+    }
+
+    @Test
+    void aFailedBatchIsCountedAndRetriedOnTheNextTick() {
+        List<List<String>> attempts = new ArrayList<>();
+        scheduler.onExpiry(ExpiryScheduler.Kind.PASSWORD_RESET, ids -> {
+            attempts.add(ids.stream().sorted().toList());
+            if (attempts.size() == 1) {
+                // The handler moved "moved" before failing; that deadline stands
+                scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "moved", start + 4 * TICK);
+                throw new IllegalStateException("database down");
+            }
+        });
+        scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "1", start + TICK);
+        scheduler.schedule(ExpiryScheduler.Kind.PASSWORD_RESET, "moved", start + TICK);
+
+        advanceInto(1);
+        assertTrue(scheduler.isPending(ExpiryScheduler.Kind.PASSWORD_RESET, "1"));
+        assertEquals(1.0, meterRegistry.counter("expiry.failures", "kind", "password_reset").count());
+
+        advanceInto(2);
+        assertEquals(List.of(List.of("1", "moved"), List.of("1")), attempts);
+        assertFalse(scheduler.isPending(ExpiryScheduler.Kind.PASSWORD_RESET, "1"));
+
+        advanceInto(4);
+        assertEquals(List.of("moved"), attempts.get(2));
+        assertEquals(1.0, meterRegistry.counter("expiry.failures", "kind", "password_reset").count());
+        assertEquals(0, scheduler.size());
+    }
+
+    // Halfway into the tick, clear of the few milliseconds between start and the wheel's origin
+    private void advanceInto(int ticks) {
+        scheduler.tick(start + ticks * TICK + TICK / 2);
+    }
+}
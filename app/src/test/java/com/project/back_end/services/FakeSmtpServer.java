@@ -0,0 +1,192 @@
+package com.project.back_end.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// An SMTP server on a local port for tests and benchmarks. It accepts every message except
+// those for recipients whose address starts with "bounce" (550, permanent) or "busy" (451,
+// temporary), and holds each accepted one for acceptDelayMillis before replying.
+public final class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final boolean keepMessages;
+    private final long acceptDelayMillis;
+    private final List<Message> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+
+    public FakeSmtpServer(boolean keepMessages, long acceptDelayMillis) throws IOException {
+        this.serverSocket = new ServerSocket(0, 256, InetAddress.getLoopbackAddress());
+        this.keepMessages = keepMessages;
+        this.acceptDelayMillis = acceptDelayMillis;
+        Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Empty unless the server was created to keep them.
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public int getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    // Closes every client connection without a reply, as a server timing out idle clients does.
+    public void dropConnections() throws IOException {
+        for (Socket socket : open) {
+            socket.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.incrementAndGet();
+                open.add(socket);
+                Thread session = new Thread(() -> serve(socket), "fake-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            reply(out, "220 fake ESMTP");
+            String from = null;
+            String to = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-fake\r\n250-PIPELINING\r\n250 8BITMIME");
+                } else if (command.startsWith("HELO") || command.startsWith("NOOP")) {
+                    reply(out, "250 Ok");
+                } else if (command.startsWith("MAIL FROM:")) {
+                    from = address(line);
+                    reply(out, "250 2.1.0 Ok");
+                } else if (command.startsWith("RCPT TO:")) {
+                    String recipient = address(line);
+                    if (recipient.startsWith("bounce")) {
+                        reply(out, "550 5.1.1 No such user");
+                    } else if (recipient.startsWith("busy")) {
+                        reply(out, "451 4.3.0 Try again later");
+                    } else {
+                        to = recipient;
+                        reply(out, "250 2.1.5 Ok");
+                    }
+                } else if (command.equals("DATA")) {
+                    if (from == null || to == null) {
+                        reply(out, "503 5.5.1 Need MAIL and RCPT first");
+                        continue;
+                    }
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                    }
+                    if (line == null) {
+                        return;
+                    }
+                    if (acceptDelayMillis > 0) {
+                        Thread.sleep(acceptDelayMillis);
+                    }
+                    if (keepMessages) {
+                        messages.add(new Message(from, to, data.toString()));
+                    }
+                    accepted.incrementAndGet();
+                    from = null;
+                    to = null;
+                    reply(out, "250 2.0.0 Ok: queued");
+                } else if (command.equals("RSET")) {
+                    from = null;
+                    to = null;
+                    reply(out, "250 2.0.0 Ok");
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 2.0.0 Bye");
+                    return;
+                } else {
+                    reply(out, "500 5.5.2 Unknown command");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    public static final class Message {
+
+        private final String from;
+        private final String to;
+        private final String data;
+
+        private Message(String from, String to, String data) {
+            this.from = from;
+            this.to = to;
+            this.data = data;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        // Headers and body, lines separated by \n, dot-stuffing undone.
+        public String getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long ORIGIN = 1_700_000_000_000L;
+
+    @Test
+    void firesOnTheFirstTickAtOrAfterTheDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, ORIGIN);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("near", ORIGIN + 2500);
+        wheel.schedule("cascaded", ORIGIN + 300 * TICK);
+        wheel.schedule("top-level", ORIGIN + 20_000_000 * TICK);
+
+        wheel.advanceTo(ORIGIN + 2999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(ORIGIN + 3000, fired::add);
+        assertEquals(List.of("near"), fired);
+
+        wheel.advanceTo(ORIGIN + 299 * TICK, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advanceTo(ORIGIN + 300 * TICK, fired::add);
+        assertEquals(List.of("near", "cascaded"), fired);
+
+        wheel.advanceTo(ORIGIN + 20_000_000 * TICK - 1, fired::add);
+        assertEquals(2, fired.size());
+        wheel.advanceTo(ORIGIN + 20_000_000 * TICK, fired::add);
+        assertEquals("top-level", fired.get(2));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, ORIGIN);
+        HierarchicalTimingWheel.Timer<String> timer = wheel.schedule("cancelled", ORIGIN + 5 * TICK);
+
+        assertTrue(wheel.cancel(timer));
+        assertFalse(wheel.cancel(timer));
+        wheel.advanceTo(ORIGIN + 10 * TICK, id -> {
+            throw new AssertionError("fired " + id);
+        });
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void matchesExpectedFiringTicksUnderRandomLoad() {
+        Random random = new Random(11);
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, ORIGIN);
+        Map<Integer, Long> dueTick = new HashMap<>();
+        Map<Integer, HierarchicalTimingWheel.Timer<Integer>> timers = new HashMap<>();
+        long now = ORIGIN;
+        int next = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                long[] spans = {300, 20_000, 2_000_000, 1L << 28};
+                long deadline = now + (long) (random.nextDouble() * spans[random.nextInt(spans.length)] * TICK);
+                int id = next++;
+                long currentTick = (now - ORIGIN) / TICK;
+                dueTick.put(id, Math.max(currentTick + 1, (deadline - ORIGIN + TICK - 1) / TICK));
+                timers.put(id, wheel.schedule(id, deadline));
+            } else if (op < 7 && !timers.isEmpty()) {
+                Integer id = timers.keySet().iterator().next();
+                assertTrue(wheel.cancel(timers.remove(id)));
+                dueTick.remove(id);
+            } else {
+                now += random.nextInt(20) == 0 ? (long) random.nextInt(1 << 20) * TICK : random.nextInt(5000);
+                long currentTick = (now - ORIGIN) / TICK;
+                wheel.advanceTo(now, id -> {
+                    assertTrue(dueTick.remove(id) <= currentTick, "fired early");
+                    timers.remove(id);
+                });
+                for (long due : dueTick.values()) {
+                    assertTrue(due > currentTick, "overdue timer still pending");
+                }
+            }
+        }
+        assertEquals(timers.size(), wheel.size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.MedicationTimeline;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MedicationTimelineServiceTest {
+
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    @Test
+    void coursesRunFromThePrescriptionDateThroughTheRefills() {
+        Prescription.Medication medication = medication("Lisinopril", "30 days");
+        medication.setRefillsAllowed(2);
+        medication.setRefillsUsed(1);
+
+        MedicationTimeline.Course course = MedicationTimelineService.course(medication, JAN_1);
+
+        assertEquals(JAN_1.plusDays(60), course.getSupplyEndsAt());
+        assertEquals(JAN_1.plusDays(90), course.getEndsAt());
+        assertEquals(1, course.getRefillsRemaining());
+        assertEquals(Period.of(0, 1, 14), MedicationTimelineService.parseDuration("1 Month 2 weeks"));
+        assertNull(MedicationTimelineService.parseDuration("as needed"));
+        assertNull(MedicationTimelineService.course(medication("Albuterol", "Ongoing"), JAN_1).getEndsAt());
+    }
+
+    @Test
+    void activeMedicationsSkipFinishedCoursesAndInactivePrescriptions() {
+        Prescription older = prescription("a", JAN_1, Prescription.PrescriptionStatus.ACTIVE,
+                medication("Amoxicillin", "10 days"), medication("Lisinopril", "3 months"));
+        Prescription completed = prescription("b", JAN_1.plusDays(5), Prescription.PrescriptionStatus.COMPLETED,
+                medication("Metformin", "1 year"));
+        Prescription newer = prescription("c", JAN_1.plusDays(20), Prescription.PrescriptionStatus.ACTIVE,
+                medication("Albuterol", "as needed"));
+        MedicationTimeline timeline = new MedicationTimeline(7L);
+        for (Prescription prescription : List.of(older, completed, newer)) {
+            timeline.getPrescriptions().put(prescription.getId(), MedicationTimelineService.entry(prescription));
+        }
+        MedicationTimelineService service = new MedicationTimelineService(mongo(timeline), new SimpleMeterRegistry(), 2, 100);
+
+        List<MedicationTimeline.Entry> active = service.getActiveMedications(7L, JAN_1.plusDays(30));
+
+        assertEquals(List.of("c", "a"), active.stream().map(MedicationTimeline.Entry::getPrescriptionId).toList());
+        assertEquals(List.of("Lisinopril"), active.get(1).getMedications().stream().map(MedicationTimeline.Course::getName).toList());
+        assertEquals(0, service.getActiveMedications(8L, JAN_1).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildSplitsPatientsIntoContiguousRangesAndWritesEachTimelineOnce() {
+        List<Prescription> prescriptions = new ArrayList<>();
+        for (long patientId = 3; patientId <= 12; patientId++) {
+            for (int i = 0; i < patientId % 3 + 1; i++) {
+                Prescription prescription = prescription("p" + patientId + "-" + i, JAN_1.plusDays(i),
+                        Prescription.PrescriptionStatus.ACTIVE, medication("Lisinopril", "30 days"));
+                prescription.setPatientId(patientId);
+                prescriptions.add(prescription);
+            }
+        }
+        List<long[]> ranges = new CopyOnWriteArrayList<>();
+        List<Document> sorts = new CopyOnWriteArrayList<>();
+        Map<Long, List<Map<String, ?>>> written = new ConcurrentHashMap<>();
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.find(any(Query.class), eq(Prescription.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Comparator<Prescription> byPatient = Comparator.comparing(Prescription::getPatientId);
+            boolean ascending = query.getSortObject().getInteger("patientId") > 0;
+            return List.of(prescriptions.stream().min(ascending ? byPatient : byPatient.reversed()).orElseThrow());
+        });
+        when(mongo.stream(any(Query.class), eq(Prescription.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Document range = (Document) query.getQueryObject().get("patientId");
+            long from = range.get("$gte", Long.class);
+            long to = range.get("$lt", Long.class);
+            ranges.add(new long[]{from, to});
+            sorts.add(query.getSortObject());
+            return prescriptions.stream()
+                    .filter(prescription -> prescription.getPatientId() >= from && prescription.getPatientId() < to)
+                    .sorted(Comparator.comparing(Prescription::getPatientId)
+                            .thenComparing(Prescription::getPrescriptionDate, Comparator.reverseOrder()));
+        });
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            Map<String, ?> entries = (Map<String, ?>) update.getUpdateObject().get("$set", Document.class).get("prescriptions");
+            written.computeIfAbsent(query.getQueryObject().get("_id", Long.class), id -> new CopyOnWriteArrayList<>())
+                    .add(entries);
+            return bulk;
+        });
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationTimeline.class)).thenReturn(bulk);
+
+        long read = new MedicationTimelineService(mongo, new SimpleMeterRegistry(), 3, 2).rebuild();
+
+        assertEquals(prescriptions.size(), read);
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        assertEquals(List.of(3L, 7L, 11L), ranges.stream().map(range -> range[0]).toList());
+        assertEquals(List.of(7L, 11L, 13L), ranges.stream().map(range -> range[1]).toList());
+        // The order of the patientId_prescriptionDate index, so Mongo need not sort
+        sorts.forEach(sort -> assertEquals(new Document("patientId", 1).append("prescriptionDate", -1), sort));
+        assertEquals(10, written.size());
+        for (long patientId = 3; patientId <= 12; patientId++) {
+            List<Map<String, ?>> timelines = written.get(patientId);
+            assertEquals(1, timelines.size(), "timelines written for patient " + patientId);
+            long expected = patientId % 3 + 1;
+            assertEquals(expected, timelines.get(0).size());
+            for (int i = 0; i < expected; i++) {
+                assertTrue(timelines.get(0).containsKey("p" + patientId + "-" + i));
+            }
+        }
+    }
+
+    private static Prescription prescription(String id, LocalDateTime date, Prescription.PrescriptionStatus status,
+                                             Prescription.Medication... medications) {
+        Prescription prescription = new Prescription();
+        prescription.setId(id);
+        prescription.setPatientId(7L);
+        prescription.setPrescriptionDate(date);
+        prescription.setStatus(status);
+        prescription.setMedications(List.of(medications));
+        return prescription;
+    }
+
+    private static Prescription.Medication medication(String name, String duration) {
+        return new Prescription.Medication(name, "1 tablet", "Once daily", duration, 30);
+    }
+
+    private MongoOperations mongo(MedicationTimeline timeline) {
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.findById(timeline.getPatientId(), MedicationTimeline.class)).thenReturn(timeline);
+        return mongo;
+    }
+}
@@ -0,0 +1,127 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaymentReconciliationServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexesSettlementFileByTransactionId() throws Exception {
+        Path path = write("""
+                Status, Amount ,TRANSACTION_ID,note
+                settled,10.00,tx-1,
+                "paid","1,000.50","tx-2","has ""quotes"", and commas"
+
+                failed,5,tx-3
+                settled,10.00,tx-1,again
+                settled,10.00
+                pending,1,"",
+                """);
+        SettlementFile file = SettlementFile.open(path);
+
+        assertEquals(4, file.getRowCount());
+        assertEquals(1, file.find("tx-2"));
+        assertEquals("paid", file.getStatus(1));
+        assertEquals(null, file.getAmount(1));
+        assertEquals(new BigDecimal("5"), file.getAmount(file.find("tx-3")));
+        assertEquals(5, file.getLineNumber(file.find("tx-3")));
+        assertEquals(-1, file.find("tx-4"));
+        assertEquals(0, file.find("tx-1"));
+        assertArrayEquals(new int[]{3}, file.duplicateRows());
+        assertArrayEquals(new int[]{7, 8}, file.malformedLines());
+
+        file.close();
+        assertThrows(IllegalStateException.class, () -> file.find("tx-1"));
+        Files.delete(path);
+
+        assertThrows(IllegalArgumentException.class, () -> SettlementFile.open(write("id,amount,status\n")));
+    }
+
+    @Test
+    void reportsDiscrepanciesAndBatchesStatusChanges() throws Exception {
+        SettlementFile file = SettlementFile.open(write("""
+                transaction_id,amount,status
+                tx-1,10.00,SETTLED
+                tx-2,20.00,declined
+                tx-3,30.00,chargeback
+                tx-4,41.00,settled
+                tx-5,50.00,settled
+                tx-6,60.00,settled
+                tx-9,90.00,settled
+                tx-7,70.00,unheard-of
+                tx-1,10.00,settled
+                """));
+        List<List<Object[]>> batches = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.setRootValueSeparator(null);
+        PaymentReconciliationService.Run run = new PaymentReconciliationService.Run(file, json, 2, changes -> {
+            batches.add(new ArrayList<>(changes));
+            return changes.size();
+        });
+
+        run.payment(1, "tx-1", new BigDecimal("10"), "PENDING");
+        run.payment(2, "tx-2", new BigDecimal("20.00"), "PENDING");
+        run.payment(3, "tx-3", new BigDecimal("30.00"), "COMPLETED");
+        run.payment(4, "tx-4", new BigDecimal("40.00"), "PENDING");
+        run.payment(5, "tx-5", new BigDecimal("50.00"), "FAILED");
+        run.payment(6, "tx-6", new BigDecimal("60.00"), "COMPLETED");
+        run.payment(7, "tx-7", new BigDecimal("70.00"), "PENDING");
+        run.payment(8, "tx-8", new BigDecimal("80.00"), "COMPLETED");
+        PaymentReconciliationService.Summary summary = run.finish();
+        json.flush();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertEquals(List.of("status_change", "status_change", "status_change", "amount_mismatch", "status_mismatch",
+                "malformed_settlement", "missing_settlement", "unknown_settlement", "duplicate_settlement"),
+                lines.subList(0, 9).stream().map(line -> line.get("type").asText()).toList());
+        assertEquals("FAILED", lines.get(1).get("to").asText());
+        assertEquals("REFUNDED", lines.get(2).get("to").asText());
+        assertEquals("41.00", lines.get(3).get("settled").asText());
+        assertEquals("tx-9", lines.get(7).get("transactionId").asText());
+        assertEquals(10, lines.get(8).get("line").asInt());
+
+        assertEquals(2, batches.size());
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        assertEquals("COMPLETED", batches.get(0).get(0)[0]);
+        assertEquals(1, batches.get(0).get(0)[2]);
+        assertEquals("PENDING", batches.get(0).get(0)[3]);
+
+        JsonNode totals = lines.get(9).get("summary");
+        assertEquals(8, totals.get("payments").asInt());
+        assertEquals(8, totals.get("settlements").asInt());
+        assertEquals(7, totals.get("matched").asInt());
+        assertEquals(3, totals.get("statusChanges").asInt());
+        assertEquals(6, totals.get("discrepancies").asInt());
+        assertEquals(3, summary.getStatusesWritten());
+    }
+
+    private Path write(String content) throws Exception {
+        Path path = Files.createTempFile(dir, "settlement", ".csv");
+        Files.writeString(path, content);
+        return path;
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.CachedJson;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrescriptionCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Prescription> stored = new ArrayList<>();
+    private int finds;
+
+    @Test
+    void readsEachAppointmentOnceUntilEvicted() throws Exception {
+        PrescriptionCache cache = new PrescriptionCache(mongo(), objectMapper, new SimpleMeterRegistry(), 100, 60);
+
+        CachedJson empty = cache.getByAppointment(7L);
+        assertEquals(0, objectMapper.readTree(empty.getBody()).get("prescriptions").size());
+        assertSame(empty, cache.getByAppointment(7L));
+        assertEquals(1, finds);
+
+        stored.add(prescription(7L, "Lisinopril"));
+        cache.evictAppointment(7L);
+        JsonNode prescriptions = objectMapper.readTree(cache.getByAppointment(7L).getBody()).get("prescriptions");
+        assertEquals(1, prescriptions.size());
+        assertEquals("Lisinopril", prescriptions.get(0).get("medications").get(0).get("name").asText());
+        assertEquals(2, finds);
+    }
+
+    private static Prescription prescription(long appointmentId, String medication) {
+        Prescription prescription = new Prescription();
+        prescription.setAppointmentId(appointmentId);
+        Prescription.Medication item = new Prescription.Medication();
+        item.setName(medication);
+        prescription.getMedications().add(item);
+        return prescription;
+    }
+
+    private MongoOperations mongo() {
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.find(any(Query.class), any())).thenAnswer(invocation -> {
+            finds++;
+            return new ArrayList<>(stored);
+        });
+        return mongo;
+    }
+}
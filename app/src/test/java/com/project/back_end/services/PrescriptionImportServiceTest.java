@@ -0,0 +1,171 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.MedicationTimeline;
+import com.project.back_end.models.Prescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrescriptionImportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Prescription> stored = new ArrayList<>();
+    private final List<Integer> bulkSizes = new ArrayList<>();
+    private final List<Set<Long>> allergyLoads = new ArrayList<>();
+    private int timelineUpserts;
+
+    @Test
+    void reportsEveryRecordAndInsertsTheValidOnes() throws Exception {
+        stored.add(prescription(10L));
+        String upload = record(1) + "\n"
+                + "{\"appointmentId\": 2, \"patientId\": \n"
+                + "\r\n"
+                + record(3).replace("\"dosage\":\"10 mg\",", "") + "\r\n"
+                + record(10) + "\n"
+                + record(4) + "\n"
+                + record(4) + "\n"
+                + record(5);
+
+        List<JsonNode> results = importNdjson(upload, 2);
+
+        assertEquals(List.of(1, 2, 4, 5, 6, 7, 8), results.subList(0, 7).stream().map(r -> r.get("line").asInt()).toList());
+        assertEquals(List.of("inserted", "invalid", "invalid", "duplicate", "inserted", "duplicate", "inserted"),
+                results.subList(0, 7).stream().map(r -> r.get("status").asText()).toList());
+        assertTrue(results.get(1).get("errors").get(0).asText().startsWith("Malformed record"), results.get(1).toString());
+        assertEquals("medications[0].dosage: Dosage is required", results.get(2).get("errors").get(0).asText());
+        assertEquals("A prescription already exists for appointment 10", results.get(3).get("error").asText());
+
+        JsonNode summary = results.get(7).get("summary");
+        assertEquals(7, summary.get("records").asInt());
+        assertEquals(3, summary.get("inserted").asInt());
+        assertEquals(2, summary.get("invalid").asInt());
+        assertEquals(2, summary.get("duplicate").asInt());
+        assertEquals(List.of(10L, 1L, 4L, 5L), stored.stream().map(Prescription::getAppointmentId).toList());
+        assertEquals(results.get(0).get("id").asText(), stored.get(1).getId());
+        assertEquals(3, timelineUpserts);
+    }
+
+    @Test
+    void oversizedRecordsAreSkippedToTheNextLine() throws Exception {
+        String upload = "{\"doctorNotes\": \"" + "x".repeat(5000) + "\"}\n" + record(1) + "\n";
+
+        List<JsonNode> results = importNdjson(upload, 100, 1024);
+
+        assertEquals("invalid", results.get(0).get("status").asText());
+        assertEquals("Record exceeds 1024 bytes", results.get(0).get("errors").get(0).asText());
+        assertEquals("inserted", results.get(1).get("status").asText());
+        assertEquals(2, results.get(1).get("line").asInt());
+        assertEquals(List.of(1), bulkSizes);
+    }
+
+    @Test
+    void interactionsAreCheckedWithOneAllergyQueryPerBatch() throws Exception {
+        String upload = record(1) + "\n"
+                + record(2).replace("\"patientId\":7", "\"patientId\":8").replace("Lisinopril", "Amoxicillin 500 mg") + "\n"
+                + record(3).replace("\"patientId\":7", "\"patientId\":9").replace("Lisinopril", "Amoxicillin 500 mg");
+
+        importNdjson(upload, 2);
+
+        assertEquals(List.of(Set.of(7L, 8L), Set.of(9L)), allergyLoads);
+        assertEquals(List.of(), stored.get(0).getInteractions());
+        assertEquals(List.of("Amoxicillin 500 mg: allergy - patient is allergic to penicillin"), stored.get(1).getInteractions());
+        // Patient 9 has no allergies on file
+        assertEquals(List.of(), stored.get(2).getInteractions());
+    }
+
+    private List<JsonNode> importNdjson(String upload, int batchSize) throws Exception {
+        return importNdjson(upload, batchSize, 1 << 20);
+    }
+
+    private List<JsonNode> importNdjson(String upload, int batchSize, int maxRecordBytes) throws Exception {
+        MongoOperations mongo = mongo();
+        PrescriptionImportService service = new PrescriptionImportService(mongo,
+                new PrescriptionCache(mongo, objectMapper, new SimpleMeterRegistry(), 100, 60),
+                new MedicationTimelineService(mongo, new SimpleMeterRegistry(), 1, 100),
+                new DrugInteractionEngine(new SimpleMeterRegistry(), "drug-interactions"),
+                patientIds -> {
+                    allergyLoads.add(Set.copyOf(patientIds));
+                    return Map.of(8L, "Penicillin (rash)");
+                },
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), new SimpleMeterRegistry(),
+                batchSize, maxRecordBytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.importNdjson(new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static String record(long appointmentId) {
+        return "{\"appointmentId\":" + appointmentId + ",\"patientId\":7,\"doctorId\":3,"
+                + "\"patientName\":\"Ada Lovelace\",\"doctorName\":\"Grace Hopper\","
+                + "\"prescriptionDate\":\"2026-03-02T09:30:00\","
+                + "\"medications\":[{\"name\":\"Lisinopril\",\"dosage\":\"10 mg\",\"frequency\":\"Once daily\","
+                + "\"duration\":\"30 days\",\"quantity\":30}]}";
+    }
+
+    private static Prescription prescription(long appointmentId) {
+        Prescription prescription = new Prescription();
+        prescription.setAppointmentId(appointmentId);
+        return prescription;
+    }
+
+    // Holds written prescriptions in a list; find returns all of them, which is what the
+    // appointmentId query would match for the appointments that have one.
+    private MongoOperations mongo() {
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.find(any(Query.class), any())).thenAnswer(invocation -> new ArrayList<>(stored));
+        BulkOperations prescriptions = prescriptionBulk();
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class)).thenReturn(prescriptions);
+        BulkOperations timelines = mock(BulkOperations.class);
+        when(timelines.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            timelineUpserts++;
+            return timelines;
+        });
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationTimeline.class)).thenReturn(timelines);
+        return mongo;
+    }
+
+    // Batches are written one at a time, so one pending list is enough.
+    private BulkOperations prescriptionBulk() {
+        List<Prescription> pending = new ArrayList<>();
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(bulk.insert(anyList())).thenAnswer(invocation -> {
+            List<Prescription> documents = invocation.getArgument(0);
+            pending.addAll(documents);
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(invocation -> {
+            if (!pending.isEmpty()) {
+                bulkSizes.add(pending.size());
+                stored.addAll(pending);
+                pending.clear();
+            }
+            return null;
+        });
+        return bulk;
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotAvailabilityEngineTest {
+
+    private static final Long DOCTOR_ID = 3L;
+    private static final LocalDate DATE = LocalDate.of(2030, 3, 4);
+
+    @Test
+    void bookCancelAndRescheduleUpdateCachedDays() {
+        AtomicInteger loads = new AtomicInteger();
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine((doctorId, date) -> {
+            loads.incrementAndGet();
+            return morning();
+        }, 100);
+        assertEquals(List.of("09:00-09:30", "09:30-10:00", "10:00-10:30", "10:30-11:00"),
+                engine.getAvailableSlots(DOCTOR_ID, DATE));
+        engine.getAvailableSlots(DOCTOR_ID, DATE.plusDays(1));
+
+        engine.onBooked(appointment(1L, DATE, "09:30"));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(9, 30), 30));
+        assertTrue(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(10, 0), 30));
+
+        engine.onRescheduled(DOCTOR_ID, DATE, appointment(1L, DATE.plusDays(1), "10:00"));
+        assertTrue(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(9, 30), 30));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE.plusDays(1), LocalTime.of(10, 0), 30));
+
+        engine.onCancelled(appointment(1L, DATE.plusDays(1), "10:00"));
+        assertTrue(engine.isAvailable(DOCTOR_ID, DATE.plusDays(1), LocalTime.of(10, 0), 30));
+
+        // Days that are not cached are left to load from the database
+        engine.onBooked(appointment(2L, DATE.plusDays(2), "09:00"));
+        assertEquals(2, loads.get());
+        assertTrue(engine.isAvailable(DOCTOR_ID, DATE.plusDays(2), LocalTime.of(9, 0), 30));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void bookingDuringALoadIsAppliedToTheLoadedDay() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine((doctorId, date) -> {
+            // The day has been read without the booking, which commits before the load returns
+            DoctorDaySlots slots = morning();
+            loading.countDown();
+            await(release);
+            return slots;
+        }, 100);
+
+        CompletableFuture<Boolean> read = CompletableFuture.supplyAsync(
+                () -> engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(9, 0), 30));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> booked = CompletableFuture.runAsync(() -> engine.onBooked(appointment(1L, DATE, "09:00")));
+        Thread.sleep(50);
+        assertFalse(booked.isDone(), "the booking should wait for the load");
+        release.countDown();
+
+        assertTrue(read.get(5, TimeUnit.SECONDS));
+        booked.get(5, TimeUnit.SECONDS);
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(9, 0), 30));
+    }
+
+    @Test
+    void rangesMustLieWhollyInsideContiguousWindows() {
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine((doctorId, date) -> {
+            DoctorDaySlots slots = morning();
+            if (date.equals(DATE.plusDays(1))) {
+                // 11:00-12:00 meets the morning window; 13:00-14:00 leaves a gap after it
+                slots.addWindow(11 * 60, 12 * 60, 30);
+                slots.addWindow(13 * 60, 14 * 60, 30);
+            }
+            return slots;
+        }, 100);
+
+        assertTrue(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(9, 0), 120));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(10, 30), 60));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(8, 30), 60));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(8, 0), 240));
+        assertFalse(engine.isAvailable(DOCTOR_ID, DATE, LocalTime.of(11, 0), 30));
+
+        LocalDate twoWindows = DATE.plusDays(1);
+        assertTrue(engine.isAvailable(DOCTOR_ID, twoWindows, LocalTime.of(10, 30), 60));
+        assertFalse(engine.isAvailable(DOCTOR_ID, twoWindows, LocalTime.of(11, 30), 120));
+        assertFalse(engine.isAvailable(DOCTOR_ID, twoWindows, LocalTime.of(12, 0), 60));
+        assertTrue(engine.isAvailable(DOCTOR_ID, twoWindows, LocalTime.of(13, 0), 60));
+
+        engine.onBooked(appointment(1L, twoWindows, "11:00"));
+        assertFalse(engine.isAvailable(DOCTOR_ID, twoWindows, LocalTime.of(10, 30), 60));
+    }
+
+    private static DoctorDaySlots morning() {
+        DoctorDaySlots slots = new DoctorDaySlots();
+        slots.addWindow(9 * 60, 11 * 60, 30);
+        return slots;
+    }
+
+    private static Appointment appointment(Long id, LocalDate date, String time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(LocalTime.parse(time));
+        appointment.setDurationMinutes(30);
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        return appointment;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.EmailNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmtpEmailTransportTest {
+
+    private FakeSmtpServer server;
+    private SmtpEmailTransport transport;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    void sendsOverOneKeptOpenConnection() throws Exception {
+        start();
+
+        for (int i = 0; i < 20; i++) {
+            transport.send(notification("patient" + i + "@clinic.test", "Line one\n.hidden\n.\nLast line"));
+        }
+
+        assertEquals(20, server.getMessages().size());
+        assertEquals(1, server.getConnectionCount());
+        FakeSmtpServer.Message message = server.getMessages().get(3);
+        assertEquals("patient3@clinic.test", message.getTo());
+        assertTrue(message.getData().contains("Subject: =?UTF-8?B?"), message.getData());
+        assertTrue(message.getData().endsWith("\nLine one\n.hidden\n.\nLast line\n"), message.getData());
+    }
+
+    @Test
+    void rejectedRecipientsArePermanentAndDeferredOnesTemporary() throws Exception {
+        start();
+
+        EmailTransport.DeliveryException bounced = assertThrows(EmailTransport.DeliveryException.class,
+                () -> transport.send(notification("bounce@clinic.test", "x")));
+        EmailTransport.DeliveryException deferred = assertThrows(EmailTransport.DeliveryException.class,
+                () -> transport.send(notification("busy@clinic.test", "x")));
+        transport.send(notification("patient@clinic.test", "x"));
+
+        assertTrue(bounced.isPermanent());
+        assertTrue(bounced.getMessage().startsWith("SMTP 550"), bounced.getMessage());
+        assertFalse(deferred.isPermanent());
+        assertEquals(1, server.getAcceptedCount());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    void aConnectionTheServerDroppedIsReplaced() throws Exception {
+        start();
+        transport.send(notification("patient@clinic.test", "first"));
+
+        server.dropConnections();
+        Thread.sleep(50);
+        transport.send(notification("patient@clinic.test", "second"));
+
+        assertEquals(2, server.getAcceptedCount());
+        assertEquals(2, server.getConnectionCount());
+    }
+
+    private void start() throws Exception {
+        server = new FakeSmtpServer(true, 0);
+        transport = new SmtpEmailTransport(new EmailTemplates(new SimpleMeterRegistry(), "email-templates", 10), "127.0.0.1", server.getPort(), "no-reply@clinic.test", 5_000, 4);
+    }
+
+    private static EmailNotification notification(String to, String body) {
+        EmailNotification notification = new EmailNotification();
+        notification.setId("n-" + to);
+        notification.setRecipientEmail(to);
+        notification.setSubject("Rappel de rendez-vous \u2013 Dr M\u00fcller");
+        EmailNotification.EmailContent content = new EmailNotification.EmailContent();
+        content.setPersonalizedData(Map.of("body", body));
+        notification.setContent(content);
+        return notification;
+    }
+}
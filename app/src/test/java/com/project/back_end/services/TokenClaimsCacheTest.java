@@ -0,0 +1,81 @@
+package com.project.back_end.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenClaimsCacheTest {
+
+    private final TokenClaimsCache cache = new TokenClaimsCache(new SimpleMeterRegistry(), 100);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void verifiesOncePerTokenAndRole() {
+        Function<String, TokenClaimsCache.VerifiedToken> verifier = verifier("a@clinic.test", Duration.ofHours(1));
+
+        assertEquals("a@clinic.test", cache.verifiedEmail("token-a", "doctor", verifier));
+        assertEquals("a@clinic.test", cache.verifiedEmail("token-a", "doctor", verifier));
+        assertEquals(1, verifications.get());
+
+        // The user lookup is per role, so another role is verified separately
+        cache.verifiedEmail("token-a", "patient", verifier);
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        Function<String, TokenClaimsCache.VerifiedToken> failing = token -> {
+            verifications.incrementAndGet();
+            throw new IllegalArgumentException("bad signature");
+        };
+
+        assertNull(cache.verifiedEmail("forged", "admin", failing));
+        assertNull(cache.verifiedEmail("forged", "admin", failing));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void revokedTokensAreRejectedEvenWhenCached() {
+        Function<String, TokenClaimsCache.VerifiedToken> verifier = verifier("b@clinic.test", Duration.ofHours(1));
+        cache.verifiedEmail("token-b", "patient", verifier);
+
+        cache.revoke("token-b", Instant.now().plus(Duration.ofHours(1)));
+
+        assertTrue(cache.isRevoked("token-b"));
+        assertNull(cache.verifiedEmail("token-b", "patient", verifier));
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void expiredTokensAreNotServedFromCache() {
+        Function<String, TokenClaimsCache.VerifiedToken> verifier = verifier("c@clinic.test", Duration.ofMillis(-1));
+
+        assertNull(cache.verifiedEmail("token-c", "doctor", verifier));
+    }
+
+    @Test
+    void evictedUsersAreVerifiedAgain() {
+        Function<String, TokenClaimsCache.VerifiedToken> verifier = verifier("d@clinic.test", Duration.ofHours(1));
+        cache.verifiedEmail("token-d", "doctor", verifier);
+
+        cache.evictUser("D@clinic.test");
+        cache.verifiedEmail("token-d", "doctor", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    private Function<String, TokenClaimsCache.VerifiedToken> verifier(String email, Duration ttl) {
+        return token -> {
+            verifications.incrementAndGet();
+            return new TokenClaimsCache.VerifiedToken(email, Instant.now().plus(ttl));
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.UserSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Counts the statements the store sends: requests must cost none, and a flush one batch per kind.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sessions;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserSessionStoreTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private CountingJdbcTemplate jdbc;
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiryScheduler expiryScheduler;
+    private UserSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new CountingJdbcTemplate(dataSource);
+        // Background work is pushed out of the test's way; the test calls flush and tick itself
+        expiryScheduler = new ExpiryScheduler(new SimpleMeterRegistry(), 3_600_000, 3_600_000);
+        meterRegistry = new SimpleMeterRegistry();
+        store = new UserSessionStore(jdbc, meterRegistry, expiryScheduler, 3_600_000, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+        expiryScheduler.shutdown();
+    }
+
+    @Test
+    void requestsDoNotWriteAndFlushCoalesces() {
+        UserSessionStore.LiveSession first = store.create(1, UserSession.UserType.PATIENT, "10.0.0.1", "test", Duration.ofHours(1));
+        UserSessionStore.LiveSession second = store.create(2, UserSession.UserType.DOCTOR, "10.0.0.2", "test", Duration.ofHours(1));
+        jdbc.writes.set(0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(store.touch(i % 2 == 0 ? first.getSessionId() : second.getSessionId()));
+        }
+        assertEquals(0, jdbc.writes.get());
+
+        assertEquals(2, store.flush());
+        assertEquals(1, jdbc.writes.get());
+        assertEquals(0, store.flush());
+        Timestamp lastActivity = jdbc.queryForObject(
+                "select last_activity from user_sessions where session_id = ?", Timestamp.class, first.getSessionId());
+        assertEquals(first.getLastActivity(), lastActivity.getTime());
+    }
+
+    @Test
+    void expiredSessionsAreDroppedByTheWheelAndDeactivatedInTheNextFlush() {
+        UserSessionStore.LiveSession session = store.create(3, UserSession.UserType.ADMIN, null, null, Duration.ofSeconds(2));
+
+        expiryScheduler.tick(session.getExpiresAt() + 3_600_000);
+
+        assertNull(store.touch(session.getSessionId()));
+        assertEquals(0, store.size());
+        store.flush();
+        assertFalse(jdbc.queryForObject(
+                "select is_active from user_sessions where session_id = ?", Boolean.class, session.getSessionId()));
+    }
+
+    @Test
+    void sessionsSurviveARestart() {
+        UserSessionStore.LiveSession live = store.create(4, UserSession.UserType.PATIENT, null, null, Duration.ofHours(1));
+        UserSessionStore.LiveSession ended = store.create(5, UserSession.UserType.PATIENT, null, null, Duration.ofHours(1));
+        store.invalidate(ended.getSessionId());
+
+        ExpiryScheduler restartedScheduler = new ExpiryScheduler(new SimpleMeterRegistry(), 3_600_000, 3_600_000);
+        UserSessionStore restarted = new UserSessionStore(jdbc, new SimpleMeterRegistry(), restartedScheduler, 3_600_000, 500);
+        try {
+            restarted.rehydrate();
+            assertNotNull(restarted.touch(live.getSessionId()));
+            assertNull(restarted.touch(ended.getSessionId()));
+            assertTrue(restartedScheduler.isPending(ExpiryScheduler.Kind.SESSION, live.getSessionId()));
+        } finally {
+            restarted.shutdown();
+            restartedScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void invalidatingAUserEndsAllOfTheirSessions() {
+        store.create(6, UserSession.UserType.DOCTOR, null, null, Duration.ofHours(1));
+        store.create(6, UserSession.UserType.DOCTOR, null, null, Duration.ofHours(1));
+        store.create(6, UserSession.UserType.PATIENT, null, null, Duration.ofHours(1));
+
+        assertEquals(2, store.invalidateUser(6, UserSession.UserType.DOCTOR));
+        assertEquals(1, store.size());
+        assertEquals(List.of(1), jdbc.queryForList(
+                "select count(*) from user_sessions where user_id = 6 and is_active = true", Integer.class));
+    }
+
+    @Test
+    void failedFlushesAreCountedAndTheirRowsKeptForTheNextOne() {
+        UserSessionStore.LiveSession first = store.create(7, UserSession.UserType.PATIENT, null, null, Duration.ofHours(1));
+        UserSessionStore.LiveSession second = store.create(8, UserSession.UserType.PATIENT, null, null, Duration.ofHours(1));
+        store.touch(first.getSessionId());
+        store.touch(second.getSessionId());
+
+        jdbc.failBatches = true;
+        assertThrows(DataAccessResourceFailureException.class, store::flush);
+        assertThrows(DataAccessResourceFailureException.class, store::flush);
+        assertEquals(2.0, meterRegistry.counter("sessions.flush.failures").count());
+        assertEquals(2.0, meterRegistry.get("sessions.flush.requeued").gauge().value());
+
+        jdbc.failBatches = false;
+        assertEquals(2, store.flush());
+        assertEquals(0.0, meterRegistry.get("sessions.flush.requeued").gauge().value());
+        assertEquals(2.0, meterRegistry.counter("sessions.flush.failures").count());
+    }
+
+    private static final class CountingJdbcTemplate extends JdbcTemplate {
+
+        private final AtomicInteger writes = new AtomicInteger();
+        private volatile boolean failBatches;
+
+        private CountingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            writes.incrementAndGet();
+            return super.update(sql, args);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (failBatches) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            writes.incrementAndGet();
+            return super.batchUpdate(sql, batchArgs);
+        }
+    }
+}